@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Format and parse of {@link BinStringHelper}, byteSize bytes every operate.
+ *
+ * @author SunYiJun
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinStringHelperBenchmark {
+
+    @Param({ "8", "1024", "65536" })
+    public int byteSize;
+
+    private byte[] bytes;
+
+    private String binString;
+
+    private char[] chars;
+
+    private StringBuilder builder;
+
+    private BitBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        bytes = new byte[byteSize];
+        new Random(1).nextBytes(bytes);
+        binString = BinStringHelper.bytesToString(bytes);
+        chars = new char[binString.length()];
+        builder = new StringBuilder(binString.length());
+        buffer = BitBuffer.allocate(byteSize << 3);
+    }
+
+    @Benchmark
+    public String bytesToString() {
+        return BinStringHelper.bytesToString(bytes);
+    }
+
+    @Benchmark
+    public char[] toChars() {
+        BinStringHelper.toChars(bytes, 0, bytes.length, chars, 0);
+        return chars;
+    }
+
+    @Benchmark
+    public StringBuilder appendBytes() {
+        builder.setLength(0);
+        BinStringHelper.appendBytes(builder, bytes, 0, bytes.length);
+        return builder;
+    }
+
+    @Benchmark
+    public byte[] toByteArray() {
+        return BinStringHelper.toByteArray(binString);
+    }
+
+    @Benchmark
+    public int putBits() {
+        buffer.position(0);
+        return BinStringHelper.putBits(binString, buffer);
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * {@link BitBuffer#array()} and {@link BitBuffer#getUsedArray()}, buffer capacity and
+ * position both have not whole bytes, so last byte need to be covered.
+ *
+ * @author SunYiJun
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitBufferArrayBenchmark {
+
+    @Param({ "64", "4096", "65536" })
+    public int byteSize;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private BitBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        int bitLength = (byteSize << 3) - 3;
+        buffer = direct ? BitBuffer.allocateDirect(bitLength) : BitBuffer.allocate(bitLength);
+        byte[] bytes = new byte[byteSize];
+        new Random(1).nextBytes(bytes);
+        buffer.put(bytes, bitLength);
+        buffer.position(bitLength - 5);
+    }
+
+    @Benchmark
+    public byte[] array() {
+        return buffer.array();
+    }
+
+    @Benchmark
+    public byte[] getUsedArray() {
+        return buffer.getUsedArray();
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Get methods of {@link BitBuffer}, one field every operate. Fields are got one by one
+ * from startBitIndex, position go back when buffer have not enough bits.
+ * <p/>
+ * bitWidth larger than the type is limited to bit count of the type, e.g. getByte with
+ * bitWidth 13 get 8 bits.
+ *
+ * @author SunYiJun
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitBufferGetBenchmark {
+
+    @Param({ "64", "65536" })
+    public int byteSize;
+
+    /**
+     * 0 is aligned with byte, 3 is not.
+     */
+    @Param({ "0", "3" })
+    public int startBitIndex;
+
+    @Param({ "1", "5", "8", "13", "32", "64" })
+    public int bitWidth;
+
+    private BitBuffer buffer;
+
+    private int bitIndex;
+
+    @Setup
+    public void setUp() {
+        byte[] bytes = new byte[byteSize];
+        new Random(1).nextBytes(bytes);
+        buffer = BitBuffer.wrapBytes(bytes);
+        buffer.position(startBitIndex);
+        bitIndex = startBitIndex;
+    }
+
+    @Benchmark
+    public byte getByte() {
+        int bitLength = Math.min(bitWidth, 8);
+        rewindIfNeed(bitLength);
+        return buffer.getByte(bitLength);
+    }
+
+    @Benchmark
+    public int getInt() {
+        int bitLength = Math.min(bitWidth, 32);
+        rewindIfNeed(bitLength);
+        return buffer.getInt(bitLength);
+    }
+
+    @Benchmark
+    public long getLong() {
+        rewindIfNeed(bitWidth);
+        return buffer.getLong(bitWidth);
+    }
+
+    @Benchmark
+    public byte[] getBytes() {
+        rewindIfNeed(bitWidth);
+        return buffer.getBytes(bitWidth);
+    }
+
+    @Benchmark
+    public long peekThenSkip() {
+        rewindIfNeed(bitWidth);
+        long bits = buffer.peekLong(bitWidth);
+        buffer.skipBits((int)(bits & 1) + (bitWidth >>> 1));
+        return bits;
+    }
+
+    @Benchmark
+    public byte getByteAt() {
+        int bitLength = Math.min(bitWidth, 8);
+        return buffer.getByte(nextBitIndex(bitLength), bitLength);
+    }
+
+    @Benchmark
+    public long getLongAt() {
+        return buffer.getLong(nextBitIndex(bitWidth), bitWidth);
+    }
+
+    private void rewindIfNeed(int bitLength) {
+        if(buffer.remainingBits() < bitLength) {
+            buffer.position(startBitIndex);
+        }
+    }
+
+    private int nextBitIndex(int bitLength) {
+        if(buffer.remainingBits(bitIndex + bitLength) < bitLength) {
+            bitIndex = startBitIndex;
+        } else {
+            bitIndex += bitLength;
+        }
+        return bitIndex;
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Put overloads of {@link BitBuffer}, one field every operate. Fields are put one by one
+ * from startBitIndex, position go back when buffer have not enough bits.
+ * <p/>
+ * bitWidth larger than the type is limited to bit count of the type.
+ *
+ * @author SunYiJun
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitBufferPutBenchmark {
+
+    @Param({ "64", "65536" })
+    public int byteSize;
+
+    /**
+     * 0 is aligned with byte, 3 is not.
+     */
+    @Param({ "0", "3" })
+    public int startBitIndex;
+
+    @Param({ "1", "5", "8", "13", "32", "64" })
+    public int bitWidth;
+
+    private BitBuffer buffer;
+
+    private byte[] data;
+
+    private long value;
+
+    private int bitIndex;
+
+    @Setup
+    public void setUp() {
+        buffer = BitBuffer.allocate(byteSize << 3);
+        buffer.position(startBitIndex);
+        data = new byte[]{ (byte)210, 50, 72, 1, 2, 3, 4, 5 };
+        bitIndex = startBitIndex;
+    }
+
+    @Benchmark
+    public BitBuffer putByte() {
+        int bitLength = Math.min(bitWidth, 8);
+        rewindIfNeed(bitLength);
+        return buffer.put((byte)value++, bitLength);
+    }
+
+    @Benchmark
+    public BitBuffer putShort() {
+        int bitLength = Math.min(bitWidth, 16);
+        rewindIfNeed(bitLength);
+        return buffer.put((short)value++, bitLength);
+    }
+
+    @Benchmark
+    public BitBuffer putInt() {
+        int bitLength = Math.min(bitWidth, 32);
+        rewindIfNeed(bitLength);
+        return buffer.put((int)value++, bitLength);
+    }
+
+    @Benchmark
+    public BitBuffer putLong() {
+        rewindIfNeed(bitWidth);
+        return buffer.put(value++, bitWidth);
+    }
+
+    @Benchmark
+    public BitBuffer putBytes() {
+        rewindIfNeed(bitWidth);
+        return buffer.put(data, bitWidth);
+    }
+
+    @Benchmark
+    public BitBuffer putRightPart() {
+        rewindIfNeed(bitWidth);
+        return buffer.putRightPart(data, bitWidth);
+    }
+
+    @Benchmark
+    public BitBuffer putSigned() {
+        rewindIfNeed(bitWidth);
+        return buffer.putSigned(-(value++ & 1), bitWidth);
+    }
+
+    @Benchmark
+    public BitBuffer putByteAt() {
+        int bitLength = Math.min(bitWidth, 8);
+        return buffer.put((byte)value++, nextBitIndex(bitLength), bitLength);
+    }
+
+    @Benchmark
+    public BitBuffer putBytesAt() {
+        return buffer.put(data, nextBitIndex(bitWidth), bitWidth);
+    }
+
+    private void rewindIfNeed(int bitLength) {
+        if(buffer.remainingBits() < bitLength) {
+            buffer.position(startBitIndex);
+        }
+    }
+
+    private int nextBitIndex(int bitLength) {
+        if(buffer.remainingBits(bitIndex + bitLength) < bitLength) {
+            bitIndex = startBitIndex;
+        } else {
+            bitIndex += bitLength;
+        }
+        return bitIndex;
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Static methods of {@link NumberHelper}, numbers are taken one by one from a byte array
+ * of byteSize, bytes to number use the byte array split into 8 bytes arrays.
+ *
+ * @author SunYiJun
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberHelperBenchmark {
+
+    @Param({ "64", "65536" })
+    public int byteSize;
+
+    private byte[] bytes;
+
+    private byte[][] numberBytes;
+
+    private int index;
+
+    private int numberIndex;
+
+    @Setup
+    public void setUp() {
+        bytes = new byte[byteSize];
+        new Random(1).nextBytes(bytes);
+        numberBytes = new byte[byteSize >>> 3][];
+        for(int i = 0; i < numberBytes.length; i++) {
+            numberBytes[i] = Arrays.copyOfRange(bytes, i << 3, (i + 1) << 3);
+        }
+    }
+
+    @Benchmark
+    public byte[] to2Bytes() {
+        return NumberHelper.to2Bytes(nextByte());
+    }
+
+    @Benchmark
+    public byte[] to4Bytes() {
+        return NumberHelper.to4Bytes(nextByte());
+    }
+
+    @Benchmark
+    public byte[] to8Bytes() {
+        return NumberHelper.to8Bytes(nextByte());
+    }
+
+    @Benchmark
+    public Short toShort() {
+        return NumberHelper.toShort(nextNumberBytes());
+    }
+
+    @Benchmark
+    public Integer toInt() {
+        return NumberHelper.toInt(nextNumberBytes());
+    }
+
+    @Benchmark
+    public Long toLong() {
+        return NumberHelper.toLong(nextNumberBytes());
+    }
+
+    private byte nextByte() {
+        if(index == bytes.length) {
+            index = 0;
+        }
+        return bytes[index++];
+    }
+
+    private byte[] nextNumberBytes() {
+        if(numberIndex == numberBytes.length) {
+            numberIndex = 0;
+        }
+        return numberBytes[numberIndex++];
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Encode and decode of {@link PackedIntArray}, 4096 values every operate, compared
+ * with get or put values one by one.
+ *
+ * @author SunYiJun
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PackedIntArrayBenchmark {
+
+    private static final int VALUE_COUNT = 4096;
+
+    @Param({ "1", "3", "8", "13", "32" })
+    public int bitWidth;
+
+    @Param({ "MSB_FIRST", "LSB_FIRST" })
+    public BitOrder bitOrder;
+
+    private int[] values;
+
+    private long[] longValues;
+
+    private BitBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        values = new int[VALUE_COUNT];
+        longValues = new long[VALUE_COUNT];
+        for(int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = (int)(random.nextLong() >>> (64 - bitWidth));
+            longValues[i] = values[i] & 0xffffffffL;
+        }
+        buffer = BitBuffer.allocate(VALUE_COUNT * bitWidth, bitOrder);
+    }
+
+    @Benchmark
+    public BitBuffer encodeInts() {
+        buffer.position(0);
+        PackedIntArray.encode(values, 0, VALUE_COUNT, bitWidth, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public BitBuffer encodeLongs() {
+        buffer.position(0);
+        PackedIntArray.encode(longValues, 0, VALUE_COUNT, bitWidth, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public int[] decodeInts() {
+        buffer.position(0);
+        PackedIntArray.decode(buffer, bitWidth, values, 0, VALUE_COUNT);
+        return values;
+    }
+
+    @Benchmark
+    public long[] decodeLongs() {
+        buffer.position(0);
+        PackedIntArray.decode(buffer, bitWidth, longValues, 0, VALUE_COUNT);
+        return longValues;
+    }
+
+    @Benchmark
+    public int[] getOneByOne() {
+        buffer.position(0);
+        for(int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = buffer.getInt(bitWidth);
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Static methods of {@link PickBitsHelper}, source bytes are taken one by one from a byte
+ * array of byteSize.
+ *
+ * @author SunYiJun
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PickBitsHelperBenchmark {
+
+    @Param({ "64", "65536" })
+    public int byteSize;
+
+    /**
+     * Bit count picked from one byte.
+     */
+    @Param({ "1", "3", "8" })
+    public int bitWidth;
+
+    private byte[] bytes;
+
+    private int index;
+
+    @Setup
+    public void setUp() {
+        bytes = new byte[byteSize];
+        new Random(1).nextBytes(bytes);
+    }
+
+    @Benchmark
+    public byte pickBitsFromRightPartOfByte() {
+        return PickBitsHelper.pickBitsFromRightPartOfByte(nextByte(), bitWidth);
+    }
+
+    @Benchmark
+    public byte pickBitsFromLeftPartOfByte() {
+        return PickBitsHelper.pickBitsFromLeftPartOfByte(nextByte(), bitWidth);
+    }
+
+    @Benchmark
+    public byte pickBitsPartOfByte() {
+        return PickBitsHelper.pickBitsPartOfByte(nextByte(), (8 - bitWidth) >>> 1, bitWidth);
+    }
+
+    private byte nextByte() {
+        if(index == bytes.length) {
+            index = 0;
+        }
+        return bytes[index++];
+    }
+
+}
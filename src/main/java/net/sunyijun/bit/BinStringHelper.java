@@ -17,27 +17,113 @@
 package net.sunyijun.bit;
 
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+
 /**
  * Get binary string from numbers(or byte array).
  * String pattern like "10101010 10101010".
+ * <p/>
+ * Chars of every byte are copied from a table of 256 bytes, not formatted one by one.
+ * Parse read chars one time, whitespace is skipped, bits are collected in a long and put
+ * into {@link BitBuffer} 64 bits one time. Formatter write into Appendable(or char
+ * array) and parser read from Reader in blocks, so large data need not be in one String.
  *
  * @author SunYiJun
  */
 public final class BinStringHelper {
 
+    /**
+     * Chars of one byte and a space.
+     */
+    private static final int CHARS_PER_BYTE = 9;
+
+    private static final int BLOCK_BYTE_COUNT = 512;
+
+    private static final int BLOCK_CHAR_COUNT = 4096;
+
+    /**
+     * "00000000 " to "11111111 ", 9 chars for every byte.
+     */
+    private static final char[] BYTE_CHARS = new char[256 * CHARS_PER_BYTE];
+
+    static {
+        for(int i = 0; i < 256; i++) {
+            for(int j = 0; j < 8; j++) {
+                BYTE_CHARS[i * CHARS_PER_BYTE + j] = (i & (0x80 >>> j)) == 0 ? '0' : '1';
+            }
+            BYTE_CHARS[i * CHARS_PER_BYTE + 8] = ' ';
+        }
+    }
+
     public static String bytesToString(byte... bytes) {
-        StringBuilder builder = new StringBuilder();
-        for(byte aByte : bytes) {
-            String binStr = Integer.toBinaryString(aByte);
-            int length = binStr.length();
-            if(length > 8) {
-                builder.append(binStr.substring(length - 8)).append(" ");
+        char[] chars = new char[bytes.length * CHARS_PER_BYTE];
+        toChars(bytes, 0, bytes.length, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Write chars of bytes into chars from charOffset, every byte write 9 chars like
+     * "11010010 ".
+     *
+     * @return Count of written chars.
+     * @throws IndexOutOfBoundsException range out of bytes, or chars have not enough space.
+     */
+    public static int toChars(byte[] bytes, int offset, int length, char[] chars,
+                              int charOffset) {
+        checkArrayRange(bytes.length, offset, length);
+        checkArrayRange(chars.length, charOffset, length * CHARS_PER_BYTE);
+        for(int i = offset; i < offset + length; i++) {
+            System.arraycopy(BYTE_CHARS, (bytes[i] & 0xff) * CHARS_PER_BYTE, chars,
+                    charOffset, CHARS_PER_BYTE);
+            charOffset += CHARS_PER_BYTE;
+        }
+        return length * CHARS_PER_BYTE;
+    }
+
+    /**
+     * Append chars of bytes into builder, like {@link #bytesToString(byte...)}.
+     *
+     * @throws IndexOutOfBoundsException range out of bytes.
+     */
+    public static void appendBytes(StringBuilder builder, byte[] bytes, int offset,
+                                   int length) {
+        checkArrayRange(bytes.length, offset, length);
+        builder.ensureCapacity(builder.length() + length * CHARS_PER_BYTE);
+        for(int i = offset; i < offset + length; i++) {
+            builder.append(BYTE_CHARS, (bytes[i] & 0xff) * CHARS_PER_BYTE, CHARS_PER_BYTE);
+        }
+    }
+
+    /**
+     * Append chars of bytes into out, like {@link #bytesToString(byte...)}.
+     * Chars are written block by block, no string of all bytes is created.
+     *
+     * @throws IndexOutOfBoundsException range out of bytes.
+     */
+    public static void appendBytes(Appendable out, byte[] bytes, int offset, int length)
+            throws IOException {
+        if(out instanceof StringBuilder) {
+            appendBytes((StringBuilder)out, bytes, offset, length);
+            return;
+        }
+        checkArrayRange(bytes.length, offset, length);
+        char[] block = new char[Math.min(length, BLOCK_BYTE_COUNT) * CHARS_PER_BYTE];
+        while(length > 0) {
+            int blockByteCount = Math.min(length, BLOCK_BYTE_COUNT);
+            int charCount = toChars(bytes, offset, blockByteCount, block, 0);
+            if(out instanceof Writer) {
+                ((Writer)out).write(block, 0, charCount);
             } else {
-                builder.append(String.format("%08d", Integer.parseInt(binStr)))
-                        .append(" ");
+                out.append(new String(block, 0, charCount));
             }
+            offset += blockByteCount;
+            length -= blockByteCount;
         }
-        return builder.toString();
     }
 
     /**
@@ -64,31 +150,165 @@ public final class BinStringHelper {
         return bytesToString(bytes);
     }
 
+    /**
+     * Parse binary string to bytes, whitespace is skipped. If bit count is not whole
+     * bytes, first byte have less bits, right aligned.
+     * <p/>
+     * Example:<br/>
+     * "1000000 10000000" to {64, 128}.
+     *
+     * @throws NumberFormatException have char not 0, 1 or whitespace.
+     */
     public static byte[] toByteArray(String binString) {
         if(binString == null) {
             return null;
         }
-        binString = binString.replaceAll(" ", "");
-        if(binString.isEmpty()) {
+        int bitCount = 0;
+        for(int i = 0; i < binString.length(); i++) {
+            char c = binString.charAt(i);
+            if(c == '0' || c == '1') {
+                bitCount++;
+            } else if(!Character.isWhitespace(c)) {
+                throw notBinaryChar(c, i);
+            }
+        }
+        if(bitCount == 0) {
             return new byte[0];
         }
+        byte[] bytes = new byte[(bitCount + 7) >>> 3];
+        BitBuffer buffer = BitBuffer.wrapBytes(bytes);
+        buffer.position((bytes.length << 3) - bitCount);
+        putBits(binString, buffer);
+        return bytes;
+    }
+
+    /**
+     * Parse binary string into bytes from offset, first bit is the highest bit of byte.
+     * Bits after parsed bits in last byte are not changed.
+     * <p/>
+     * Example:<br/>
+     * "110 1" to {208}("11010000").
+     *
+     * @return Count of parsed bits.
+     * @throws NumberFormatException   have char not 0, 1 or whitespace.
+     * @throws BufferOverflowException bytes have not enough bits.
+     */
+    public static int toBytes(CharSequence binString, byte[] bytes, int offset) {
+        if(offset < 0 || offset >= bytes.length) {
+            throw new IndexOutOfBoundsException(
+                    "offset " + offset + " out of array length " + bytes.length + ".");
+        }
+        BitBuffer buffer =
+                BitBuffer.wrap(ByteBuffer.wrap(bytes, offset, bytes.length - offset));
+        return putBits(binString, buffer);
+    }
+
+    /**
+     * Parse binary string and put bits into buffer, whitespace is skipped. Position of
+     * buffer increase count of parsed bits.
+     *
+     * @return Count of parsed bits.
+     * @throws NumberFormatException   have char not 0, 1 or whitespace.
+     * @throws BufferOverflowException buffer have not enough bits.
+     */
+    public static int putBits(CharSequence binString, BitBuffer buffer) {
+        BitsParser parser = new BitsParser(buffer);
+        char[] block = new char[Math.min(binString.length(), BLOCK_CHAR_COUNT)];
         int length = binString.length();
-        int bytesCount = (length + 7) >>> 3;
-        int firstByteStringLength = length & 0x07;
-        byte[] bytes = new byte[bytesCount];
-        if(firstByteStringLength != 0) {
-            bytes[0] = (byte)Integer
-                    .parseInt(binString.substring(0, firstByteStringLength), 2);
-        } else {
-            bytes[0] = (byte)Integer.parseInt(binString.substring(0, 8), 2);
-            firstByteStringLength = 8;
+        for(int start = 0; start < length; start += block.length) {
+            int end = Math.min(start + block.length, length);
+            if(binString instanceof String) {
+                ((String)binString).getChars(start, end, block, 0);
+            } else {
+                for(int i = start; i < end; i++) {
+                    block[i - start] = binString.charAt(i);
+                }
+            }
+            parser.parse(block, end - start, start);
+        }
+        parser.flush();
+        return (int)parser.bitCount;
+    }
+
+    /**
+     * Like {@link #putBits(CharSequence, BitBuffer)}, read chars from reader until end
+     * block by block.
+     *
+     * @return Count of parsed bits.
+     */
+    public static long putBits(Reader reader, BitBuffer buffer) throws IOException {
+        BitsParser parser = new BitsParser(buffer);
+        char[] block = new char[BLOCK_CHAR_COUNT];
+        long charIndex = 0;
+        int readCount;
+        while((readCount = reader.read(block)) >= 0) {
+            parser.parse(block, readCount, charIndex);
+            charIndex += readCount;
         }
-        int startIndex = firstByteStringLength;
-        for(int i = 1; i < bytesCount; i++) {
-            bytes[i] = (byte)Integer
-                    .parseInt(binString.substring(startIndex, startIndex + 8), 2);
-            startIndex += 8;
+        parser.flush();
+        return parser.bitCount;
+    }
+
+    private static NumberFormatException notBinaryChar(char c, long index) {
+        return new NumberFormatException(
+                "Not binary char '" + c + "' at index " + index + ".");
+    }
+
+    private static void checkArrayRange(int arrayLength, int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > arrayLength) {
+            throw new IndexOutOfBoundsException(
+                    "offset " + offset + ", length " + length + " out of array length " +
+                            arrayLength + ".");
         }
-        return bytes;
     }
+
+    /**
+     * Collect parsed bits in a long in bit order of buffer, put 64 bits one time.
+     */
+    private static final class BitsParser {
+
+        private final BitBuffer buffer;
+
+        private final boolean lsbFirst;
+
+        private long bits;
+
+        private int collectedBitCount;
+
+        private long bitCount;
+
+        private BitsParser(BitBuffer buffer) {
+            this.buffer = buffer;
+            this.lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        }
+
+        private void parse(char[] chars, int length, long startCharIndex) {
+            for(int i = 0; i < length; i++) {
+                int bit = chars[i] - '0';
+                if((bit & ~1) != 0) {
+                    if(Character.isWhitespace(chars[i])) {
+                        continue;
+                    }
+                    throw notBinaryChar(chars[i], startCharIndex + i);
+                }
+                if(lsbFirst) {
+                    bits |= (long)bit << collectedBitCount;
+                } else {
+                    bits = (bits << 1) | bit;
+                }
+                if(++collectedBitCount == 64) {
+                    flush();
+                }
+            }
+        }
+
+        private void flush() {
+            buffer.put(bits, collectedBitCount);
+            bitCount += collectedBitCount;
+            bits = 0;
+            collectedBitCount = 0;
+        }
+
+    }
+
 }
@@ -17,20 +17,49 @@
 package net.sunyijun.bit;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.nio.ByteOrder;
+import java.nio.InvalidMarkException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
 
 /**
  * To operate byte array in binary.
  * All operate like {@link ByteBuffer}.<br/>
  * Use {@link #wrapBytes(byte[])} or {@link #allocate(int)} to create buffer.
+ * Use {@link #wrap(ByteBuffer)} or {@link #allocateDirect(int)} to work on direct buffer.
+ * <p/>
+ * Default bit order is {@link BitOrder#MSB_FIRST}, examples in this class are in this
+ * order. Create with {@link BitOrder#LSB_FIRST} to operate bits from lowest bit of byte,
+ * then value is put and got from its lowest bit, byte arrays are in little-endian.
+ * <p/>
+ * Use {@link #duplicate()}, {@link #slice(int, int)} or {@link #asReadOnly()} to create
+ * views share content with this buffer, every view have its own position, limit and mark.
  *
  * @author SunYiJun
  */
 public class BitBuffer {
 
+    private static final long MAX_BIT_LENGTH = (long)Integer.MAX_VALUE & ~0x07;
+
+    private static final int WRITE_SCRATCH_SIZE = 512;
+
+    static final int AND = 0;
+
+    static final int OR = 1;
+
+    static final int XOR = 2;
+
+    static final int AND_NOT = 3;
+
+    static final int NOT = 4;
+
     private ByteBuffer buffer;
 
     private int positionInByte;
@@ -39,6 +68,32 @@ public class BitBuffer {
 
     private int bitTotalLength;
 
+    private boolean growable;
+
+    private boolean trimOnFlip;
+
+    private boolean lsbFirst;
+
+    private int bitMark = -1;
+
+    /**
+     * Bit 0 of this buffer is this bit from first byte, not 0 only in slice or rewrapped
+     * buffer. Positions of byte buffer count from first byte, bit positions of this
+     * buffer count from here.
+     */
+    private int bitOffset;
+
+    /**
+     * Pool lent this buffer, set by {@link BitBufferPool}, cleared when rewrapped.
+     */
+    BitBufferPool owner;
+
+    /**
+     * Bytes shifted or masked for channel are written by it, created when first needed,
+     * not shared with views.
+     */
+    private ByteBuffer writeScratch;
+
     private BitBuffer() {
     }
 
@@ -55,6 +110,15 @@ public class BitBuffer {
         return bitBuffer;
     }
 
+    /**
+     * Like {@link #wrapBytes(byte[])}, bits are in bitOrder.
+     */
+    public static BitBuffer wrapBytes(byte[] bytesData, BitOrder bitOrder) {
+        BitBuffer bitBuffer = wrapBytes(bytesData);
+        bitBuffer.setBitOrder(bitOrder);
+        return bitBuffer;
+    }
+
     /**
      * Create a buffer in fixed bit length.
      *
@@ -73,6 +137,124 @@ public class BitBuffer {
         return bitBuffer;
     }
 
+    /**
+     * Like {@link #allocate(int)}, bits are in bitOrder.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     */
+    public static BitBuffer allocate(int bitLength, BitOrder bitOrder) {
+        BitBuffer bitBuffer = allocate(bitLength);
+        bitBuffer.setBitOrder(bitOrder);
+        return bitBuffer;
+    }
+
+    /**
+     * Create a buffer with initial bit length, when put bits more than capacity,
+     * content will be copied into a larger buffer, capacity at least double.
+     * Like {@link java.io.ByteArrayOutputStream} in bit unit.
+     * <p/>
+     * Buffer only expand before {@link #flip()}, after flip limit is fixed.
+     *
+     * @param initialBitLength not byte count,1 byte have 8 bit length.
+     */
+    public static BitBuffer allocateGrowable(int initialBitLength) {
+        return allocateGrowable(initialBitLength, false);
+    }
+
+    /**
+     * Like {@link #allocateGrowable(int)}.
+     *
+     * @param initialBitLength not byte count,1 byte have 8 bit length.
+     * @param trimOnFlip       whether copy content into a buffer just hold used bits when
+     *                         {@link #flip()}, to free not used capacity.
+     */
+    public static BitBuffer allocateGrowable(int initialBitLength, boolean trimOnFlip) {
+        BitBuffer bitBuffer = allocate(initialBitLength);
+        bitBuffer.growable = true;
+        bitBuffer.trimOnFlip = trimOnFlip;
+        return bitBuffer;
+    }
+
+    /**
+     * Like {@link #allocateGrowable(int, boolean)}, bits are in bitOrder.
+     */
+    public static BitBuffer allocateGrowable(int initialBitLength, boolean trimOnFlip,
+                                             BitOrder bitOrder) {
+        BitBuffer bitBuffer = allocateGrowable(initialBitLength, trimOnFlip);
+        bitBuffer.setBitOrder(bitOrder);
+        return bitBuffer;
+    }
+
+    /**
+     * Create a buffer share content with byteBuffer, from its position to its limit.
+     * Direct buffer will not be copied into heap. Changes of this buffer will be
+     * visible in byteBuffer, and vice versa.
+     */
+    public static BitBuffer wrap(ByteBuffer byteBuffer) {
+        if(byteBuffer == null || !byteBuffer.hasRemaining()) {
+            throw new IllegalArgumentException("byteBuffer should not be null or empty.");
+        }
+        BitBuffer bitBuffer = new BitBuffer();
+        bitBuffer.buffer = byteBuffer.slice().order(ByteOrder.BIG_ENDIAN);
+        bitBuffer.bitTotalLength = bitBuffer.buffer.capacity() << 3;
+        return bitBuffer;
+    }
+
+    /**
+     * Like {@link #wrap(ByteBuffer)}, bits are in bitOrder.
+     */
+    public static BitBuffer wrap(ByteBuffer byteBuffer, BitOrder bitOrder) {
+        BitBuffer bitBuffer = wrap(byteBuffer);
+        bitBuffer.setBitOrder(bitOrder);
+        return bitBuffer;
+    }
+
+    /**
+     * Create a buffer in fixed bit length, content is in a direct(off-heap) byte buffer.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     * @see ByteBuffer#allocateDirect(int)
+     */
+    public static BitBuffer allocateDirect(int bitLength) {
+        if(bitLength <= 0) {
+            throw new IllegalArgumentException("bitLength must larger than 0.");
+        }
+        int byteLength = (bitLength + 7) >>> 3;
+        BitBuffer bitBuffer = new BitBuffer();
+        bitBuffer.buffer = ByteBuffer.allocateDirect(byteLength);
+        int temp = bitLength & 0x07;
+        bitBuffer.voidBitsInLastByte = 8 - (temp == 0 ? 8 : temp);
+        bitBuffer.bitTotalLength = bitLength;
+        return bitBuffer;
+    }
+
+    /**
+     * Like {@link #allocateDirect(int)}, bits are in bitOrder.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     */
+    public static BitBuffer allocateDirect(int bitLength, BitOrder bitOrder) {
+        BitBuffer bitBuffer = allocateDirect(bitLength);
+        bitBuffer.setBitOrder(bitOrder);
+        return bitBuffer;
+    }
+
+    /**
+     * Words are loaded in little-endian for LSB_FIRST, so lowest bit of word is
+     * the first bit.
+     */
+    private void setBitOrder(BitOrder bitOrder) {
+        if(bitOrder == null) {
+            throw new IllegalArgumentException("bitOrder should not be null.");
+        }
+        lsbFirst = bitOrder == BitOrder.LSB_FIRST;
+        buffer.order(lsbFirst ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+    }
+
+    public BitOrder bitOrder() {
+        return lsbFirst ? BitOrder.LSB_FIRST : BitOrder.MSB_FIRST;
+    }
+
     /**
      * Like {@link java.nio.ByteBuffer#remaining()}, but return bit count not byte count.
      */
@@ -82,15 +264,222 @@ public class BitBuffer {
     }
 
     /**
-     * Like {@link java.nio.ByteBuffer#flip()}
+     * Like {@link java.nio.ByteBuffer#position()}, but return bit position.
+     */
+    public int position() {
+        return bitPosition();
+    }
+
+    /**
+     * Like {@link java.nio.ByteBuffer#position(int)}, set bit position.
+     * If mark is larger than newBitPosition, mark is discarded.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException newBitPosition is negative or larger than limit.
+     */
+    public BitBuffer position(int newBitPosition) {
+        if(newBitPosition < 0 || newBitPosition > bitLimit()) {
+            throw new IllegalArgumentException(
+                    "Bit position " + newBitPosition + " out of limit " + bitLimit() + ".");
+        }
+        if(bitMark > newBitPosition) {
+            bitMark = -1;
+        }
+        setBitPosition(newBitPosition);
+        return this;
+    }
+
+    /**
+     * Like {@link java.nio.ByteBuffer#mark()}, mark current bit position.
+     *
+     * @return Current buffer.
+     */
+    public BitBuffer mark() {
+        bitMark = bitPosition();
+        return this;
+    }
+
+    /**
+     * Like {@link java.nio.ByteBuffer#reset()}, set bit position to mark.
+     *
+     * @return Current buffer.
+     * @throws InvalidMarkException mark is not set.
+     */
+    public BitBuffer reset() {
+        if(bitMark < 0) {
+            throw new InvalidMarkException();
+        }
+        setBitPosition(bitMark);
+        return this;
+    }
+
+    /**
+     * Move position bitLength bits forward, bits are not read.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't be negative.
+     * @throws BufferOverflowException  have not enough bits to skip.
+     */
+    public BitBuffer skipBits(int bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+        setBitPosition(bitPosition() + bitLength);
+        return this;
+    }
+
+    /**
+     * Like {@link java.nio.ByteBuffer#flip()}, mark is discarded.
      */
     public void flip() {
+        bitMark = -1;
         if(positionInByte > 0) {
             buffer.position(buffer.position() + 1);
             voidBitsInLastByte = 8 - positionInByte;
+        } else {
+            voidBitsInLastByte = 0;
         }
-        positionInByte = 0;
         buffer.flip();
+        setBitPosition(0);
+        if(growable) {
+            growable = false;
+            if(trimOnFlip) {
+                int bitLimit = bitLimit();
+                resize(buffer.limit());
+                bitTotalLength = bitLimit;
+            }
+        }
+    }
+
+    /**
+     * Like {@link java.nio.ByteBuffer#clear()}, position is 0, limit is capacity, mark is
+     * discarded. Bits are not cleared. A growable buffer not grows any more after flip.
+     * <p/>
+     * Use with {@link #rewrap(byte[], int, int)} to reuse one buffer for many messages.
+     *
+     * @return Current buffer.
+     */
+    public BitBuffer clear() {
+        bitMark = -1;
+        int endIndexInBuffer = bitOffset + bitTotalLength;
+        buffer.limit((endIndexInBuffer + 7) >>> 3);
+        voidBitsInLastByte = (8 - (endIndexInBuffer & 0x07)) & 0x07;
+        setBitPosition(0);
+        return this;
+    }
+
+    /**
+     * Let this buffer share length bytes of bytesData from offset, like
+     * {@link #wrapBytes(byte[])} but no new buffer is created. Position is 0, limit and
+     * capacity is length*8, mark is discarded, bit order not change. Buffer is writable and
+     * not growable.
+     * <p/>
+     * If bytesData is the array this buffer already wraps, its byte buffer is reused,
+     * so parsing messages in one array with one buffer allocates nothing.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bytesData is null, or offset and length out of it.
+     */
+    public BitBuffer rewrap(byte[] bytesData, int offset, int length) {
+        if(bytesData == null) {
+            throw new IllegalArgumentException("bytesData should not be null.");
+        }
+        if(offset < 0 || length < 0 || offset > bytesData.length - length) {
+            throw new IllegalArgumentException(
+                    "Offset " + offset + " and length " + length + " out of bytesData.");
+        }
+        if(!buffer.hasArray() || buffer.array() != bytesData || buffer.arrayOffset() != 0 ||
+                buffer.capacity() != bytesData.length) {
+            buffer = ByteBuffer.wrap(bytesData).order(buffer.order());
+        }
+        growable = false;
+        trimOnFlip = false;
+        owner = null;
+        bitOffset = offset << 3;
+        bitTotalLength = length << 3;
+        return clear();
+    }
+
+    /**
+     * Create a buffer share content with this buffer, like {@link ByteBuffer#duplicate()}.
+     * Position, limit, mark and bit order are same as this buffer, then they are
+     * independent. Returned buffer is never growable, if this buffer grows later, they
+     * will not share content any more.
+     * <p/>
+     * Views can be read by different threads at the same time, but put by different
+     * views at the same time is not supported. One put may read and write back 8 bytes,
+     * so bits put by another view within 8 bytes can be lost, even in different bytes.
+     * Use {@link ConcurrentBitArray} to put bits from many threads. Put bits of a view
+     * into another view, ranges should not overlap.
+     */
+    public BitBuffer duplicate() {
+        return view(buffer.duplicate());
+    }
+
+    /**
+     * Like {@link #duplicate()}, but returned buffer is read-only, put into it will throw
+     * {@link java.nio.ReadOnlyBufferException}. Changes of this buffer are still visible.
+     */
+    public BitBuffer asReadOnly() {
+        return view(buffer.asReadOnlyBuffer());
+    }
+
+    public boolean isReadOnly() {
+        return buffer.isReadOnly();
+    }
+
+    /**
+     * Create a buffer share bitLength bits of this buffer from startBitIndex, not copy.
+     * Bit 0 of returned buffer is startBitIndex of this buffer, startBitIndex need not be
+     * multiple of 8, bits before and after it in same byte are never changed by it.
+     * Its position is 0, limit and capacity is bitLength, not growable. Position of this
+     * buffer not change. Like {@link #duplicate()}, put by it and other views at the same
+     * time is not supported.
+     * <p/>
+     * Example:<br/>
+     * buffer like "10010101 01110001", slice(5, 6) is a buffer like "101011".
+     *
+     * @throws IllegalArgumentException bitLength or startBitIndex can't be negative.
+     * @throws BufferOverflowException  have not enough bits from startBitIndex.
+     */
+    public BitBuffer slice(int startBitIndex, int bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(startBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(remainingBits(startBitIndex) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        int startIndexInBuffer = startBitIndex + bitOffset;
+        int endIndexInBuffer = startIndexInBuffer + bitLength;
+        ByteBuffer source = buffer.duplicate();
+        source.limit((endIndexInBuffer + 7) >>> 3);
+        source.position(startIndexInBuffer >>> 3);
+        BitBuffer bitBuffer = new BitBuffer();
+        bitBuffer.buffer = source.slice().order(buffer.order());
+        bitBuffer.lsbFirst = lsbFirst;
+        bitBuffer.bitOffset = startIndexInBuffer & 0x07;
+        bitBuffer.positionInByte = bitBuffer.bitOffset;
+        bitBuffer.voidBitsInLastByte = (8 - (endIndexInBuffer & 0x07)) & 0x07;
+        bitBuffer.bitTotalLength = bitLength;
+        return bitBuffer;
+    }
+
+    private BitBuffer view(ByteBuffer viewBuffer) {
+        BitBuffer bitBuffer = new BitBuffer();
+        bitBuffer.buffer = viewBuffer.order(buffer.order());
+        bitBuffer.positionInByte = positionInByte;
+        bitBuffer.voidBitsInLastByte = voidBitsInLastByte;
+        bitBuffer.bitTotalLength = bitTotalLength;
+        bitBuffer.lsbFirst = lsbFirst;
+        bitBuffer.bitMark = bitMark;
+        bitBuffer.bitOffset = bitOffset;
+        return bitBuffer;
     }
 
     /**
@@ -128,29 +517,9 @@ public class BitBuffer {
         if(remainingBits() < bitLength) {
             throw new BufferOverflowException();
         }
-        int endIndex = positionInByte + bitLength;
-        Byte secondPart = null;
-        int secondPartBitLength = 0;
-        int currentBytePosition = buffer.position();
-        if(endIndex > 8) {// combine current and next bytes
-            secondPartBitLength = endIndex - 8;
-            endIndex = 8;
-            secondPart = PickBitsHelper
-                    .pickBitsFromByte(buffer.get(currentBytePosition + 1), 0,
-                            secondPartBitLength);
-        }
-        byte bitData = PickBitsHelper
-                .pickBitsFromByte(buffer.get(currentBytePosition), positionInByte,
-                        endIndex);
-        if(secondPart != null) {
-            bitData = (byte)((bitData << secondPartBitLength) | secondPart);
-        }
-        if(endIndex == 8) {
-            buffer.position(currentBytePosition + 1);
-            positionInByte = secondPartBitLength;
-        } else {
-            positionInByte = endIndex;
-        }
+        int bitPosition = bitPosition();
+        byte bitData = (byte)getBitsAt(bitPosition, bitLength);
+        setBitPosition(bitPosition + bitLength);
         return bitData;
     }
 
@@ -174,10 +543,10 @@ public class BitBuffer {
         if(remainingBits() < bitLength) {
             throw new BufferOverflowException();
         }
-        byte[] bytes = getBytes(bitLength);
-        byte[] intBytes = new byte[4];
-        System.arraycopy(bytes, 0, intBytes, 4 - bytes.length, bytes.length);
-        return NumberHelper.toInt(intBytes);
+        int bitPosition = bitPosition();
+        int bitData = (int)getBitsAt(bitPosition, bitLength);
+        setBitPosition(bitPosition + bitLength);
+        return bitData;
     }
 
     /**
@@ -200,97 +569,228 @@ public class BitBuffer {
         if(remainingBits() < bitLength) {
             throw new BufferOverflowException();
         }
-        byte[] bytes = getBytes(bitLength);
-        byte[] longBytes = new byte[8];
-        System.arraycopy(bytes, 0, longBytes, 8 - bytes.length, bytes.length);
-        return NumberHelper.toLong(longBytes);
+        int bitPosition = bitPosition();
+        long bitData = getBitsAt(bitPosition, bitLength);
+        setBitPosition(bitPosition + bitLength);
+        return bitData;
     }
 
     /**
-     * Get fixed count bits from startBitIndex into one byte. So length can't lager than 8.
+     * Get fixed count bits from beginning as a two's complement signed int, highest of
+     * the bits is sign bit. So length can't lager than 32.
      * <p/>
      * Example:<br/>
-     * buffer like "10010101 01110001".
-     * If startBitIndex is 2, bitLength is 8, will return a byte equals 85("01010101").
+     * buffer like "11010010", get 5 bits "11010" will return -6.
      *
-     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
      * @throws BufferOverflowException  have not enough bit to get.
      */
-    public byte getByte(int startBitIndex, int bitLength) {
-        if(bitLength > 8) {
+    public int getSignedInt(int bitLength) {
+        if(bitLength > 32) {
             throw new IllegalArgumentException(
-                    "One byte have 8 bit, bitLength must not larger than 8.");
-        }
-        if(bitLength < 0) {
-            throw new IllegalArgumentException("Length can't be negative.");
+                    "One int have 32 bit, bitLength must not larger than 32.");
         }
+        return (int)getSignedLong(bitLength);
+    }
+
+    /**
+     * Like {@link #getSignedInt(int)}, length can't lager than 64.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public long getSignedLong(int bitLength) {
         if(bitLength == 0) {
             return 0;
         }
-        if(remainingBits() < bitLength) {
-            throw new BufferOverflowException();
+        long bitData = getLong(bitLength);
+        return (bitData << (64 - bitLength)) >> (64 - bitLength);
+    }
+
+    /**
+     * Get fixed count bits from beginning as a zig-zag encoded signed int, see
+     * {@link #putZigZag(long, int)}. So length can't lager than 32.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public int getZigZagInt(int bitLength) {
+        if(bitLength > 32) {
+            throw new IllegalArgumentException(
+                    "One int have 32 bit, bitLength must not larger than 32.");
         }
-        int startByte = startBitIndex >>> 3;
-        int positionInByte = startBitIndex & 0x07;
-        int endIndex = positionInByte + bitLength;
-        Byte secondPart = null;
-        int secondPartBitLength = 0;
-        if(endIndex > 8) {// combine current and next bytes
-            secondPartBitLength = endIndex - 8;
-            endIndex = 8;
-            secondPart =
-                    PickBitsHelper.pickBitsFromByte(buffer.get(startByte + 1), 0,
-                            secondPartBitLength);
-        }
-        byte bitData = PickBitsHelper
-                .pickBitsFromByte(buffer.get(startByte), positionInByte, endIndex);
-        if(secondPart != null) {
-            bitData = (byte)((bitData << secondPartBitLength) | secondPart);
+        return (int)getZigZagLong(bitLength);
+    }
+
+    /**
+     * Like {@link #getZigZagInt(int)}, length can't lager than 64.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public long getZigZagLong(int bitLength) {
+        long bitData = getLong(bitLength);
+        return (bitData >>> 1) ^ -(bitData & 1);
+    }
+
+    /**
+     * Like {@link #getInt(int)}, but position not change. Use with {@link #skipBits(int)}
+     * to look at next bits, then move by bits really used.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public int peekInt(int bitLength) {
+        if(bitLength > 32) {
+            throw new IllegalArgumentException(
+                    "One int have 32 bit, bitLength must not larger than 32.");
         }
-        return bitData;
+        return (int)peekLong(bitLength);
     }
 
     /**
-     * Get fixed count bits from startBitIndex into byte array. The byte array length
-     * rest with bitLength.
-     * <p/>
-     * Example:<br/>
-     * buffer like "10010101 01110001".
-     * If startBitIndex is 2, bitLength is 14, will return 2 bytes,
-     * equals {85,49}, ("01010101 00110001").
+     * Like {@link #getLong(int)}, but position not change. Bits are got from one loaded
+     * word, no copy of bits is kept, so changes of backing bytes are always seen.
      *
-     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
      * @throws BufferOverflowException  have not enough bit to get.
      */
-    public byte[] getBytes(int startBitIndex, int bitLength) {
+    public long peekLong(int bitLength) {
+        if(bitLength > 64) {
+            throw new IllegalArgumentException(
+                    "One long have 64 bit, bitLength must not larger than 64.");
+        }
         if(bitLength < 0) {
             throw new IllegalArgumentException("Length can't be negative.");
         }
         if(bitLength == 0) {
-            return new byte[0];
-        }
-        byte[] bytes = new byte[(bitLength + 7) >>> 3];
-
-        if(bitLength <= 8) {
-            bytes[0] = getByte(startBitIndex, bitLength);
-            return bytes;
+            return 0;
         }
         if(remainingBits() < bitLength) {
             throw new BufferOverflowException();
         }
-
-        int bitLengthInFirstByte = (bitLength & 0x07) == 0 ? 8 : (bitLength & 0x07);
-        bytes[0] = getByte(startBitIndex, bitLengthInFirstByte);
-        startBitIndex += bitLengthInFirstByte;
-        for(int i = 1; i < bytes.length; i++) {
-            bytes[i] = getByte(startBitIndex, 8);
-            startBitIndex += 8;
-        }
-        return bytes;
+        return getBitsAt(bitPosition(), bitLength);
     }
 
     /**
-     * Get fixed count bits from beginning into byte array. The byte array length
+     * Get fixed count bits from startBitIndex into one int. So length can't lager than 32.
+     * This will not change position.
+     * <p/>
+     * Example:<br/>
+     * buffer like "10010101 01110001".
+     * If startBitIndex is 2, bitLength is 10, will return an int equals 343("01 01010111").
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public int getInt(int startBitIndex, int bitLength) {
+        if(bitLength > 32) {
+            throw new IllegalArgumentException(
+                    "One int have 32 bit, bitLength must not larger than 32.");
+        }
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(startBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(bitLength == 0) {
+            return 0;
+        }
+        if(remainingBits(startBitIndex) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        return (int)getBitsAt(startBitIndex, bitLength);
+    }
+
+    /**
+     * Get fixed count bits from startBitIndex into one long. So length can't lager than 64.
+     * This will not change position.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public long getLong(int startBitIndex, int bitLength) {
+        if(bitLength > 64) {
+            throw new IllegalArgumentException(
+                    "One long have 64 bit, bitLength must not larger than 64.");
+        }
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(startBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(bitLength == 0) {
+            return 0;
+        }
+        if(remainingBits(startBitIndex) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        return getBitsAt(startBitIndex, bitLength);
+    }
+
+    /**
+     * Get fixed count bits from startBitIndex into one byte. So length can't lager than 8.
+     * <p/>
+     * Example:<br/>
+     * buffer like "10010101 01110001".
+     * If startBitIndex is 2, bitLength is 8, will return a byte equals 85("01010101").
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public byte getByte(int startBitIndex, int bitLength) {
+        if(bitLength > 8) {
+            throw new IllegalArgumentException(
+                    "One byte have 8 bit, bitLength must not larger than 8.");
+        }
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(startBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(bitLength == 0) {
+            return 0;
+        }
+        if(remainingBits(startBitIndex) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        return (byte)getBitsAt(startBitIndex, bitLength);
+    }
+
+    /**
+     * Get fixed count bits from startBitIndex into byte array. The byte array length
+     * rest with bitLength.
+     * <p/>
+     * Example:<br/>
+     * buffer like "10010101 01110001".
+     * If startBitIndex is 2, bitLength is 14, will return 2 bytes,
+     * equals {85,49}, ("01010101 00110001").
+     * <br/> In LSB_FIRST order, not whole byte bits are in right part of last byte.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public byte[] getBytes(int startBitIndex, int bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(startBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(bitLength == 0) {
+            return new byte[0];
+        }
+        if(remainingBits(startBitIndex) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        return getBytesAt(startBitIndex, bitLength);
+    }
+
+    /**
+     * Get fixed count bits from beginning into byte array. The byte array length
      * rest with bitLength.
      * <p/>
      * Example:<br/>
@@ -305,19 +805,136 @@ public class BitBuffer {
         if(bitLength < 0) {
             throw new IllegalArgumentException("Length can't be negative.");
         }
-        byte[] bytes = new byte[(bitLength + 7) >>> 3];
+        if(remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+        int bitPosition = bitPosition();
+        byte[] bytes = getBytesAt(bitPosition, bitLength);
+        setBitPosition(bitPosition + bitLength);
+        return bytes;
+    }
 
-        if(bitLength <= 8) {
-            bytes[0] = getByte(bitLength);
-            return bytes;
+    /**
+     * Index of first 1 bit from fromBitIndex to limit, 64 bits are checked one time.
+     * This will not change position.
+     * <p/>
+     * Example:<br/>
+     * buffer like "10010101 01110001", nextSetBit(1) will return 3.
+     *
+     * @return -1 if have no 1 bit.
+     * @throws IllegalArgumentException fromBitIndex can't be negative.
+     */
+    public int nextSetBit(int fromBitIndex) {
+        return nextBit(fromBitIndex, false);
+    }
+
+    /**
+     * Like {@link #nextSetBit(int)}, find 0 bit.
+     *
+     * @return -1 if have no 0 bit.
+     * @throws IllegalArgumentException fromBitIndex can't be negative.
+     */
+    public int nextClearBit(int fromBitIndex) {
+        return nextBit(fromBitIndex, true);
+    }
+
+    private int nextBit(int fromBitIndex, boolean clear) {
+        if(fromBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        int bitLimit = bitLimit();
+        while(fromBitIndex < bitLimit) {
+            int bitLength = Math.min(64, bitLimit - fromBitIndex);
+            long bits = getBitsAt(fromBitIndex, bitLength);
+            if(clear) {
+                bits = ~bits & (-1L >>> (64 - bitLength));
+            }
+            if(bits != 0) {
+                return fromBitIndex + (lsbFirst ? Long.numberOfTrailingZeros(bits) :
+                        Long.numberOfLeadingZeros(bits) - (64 - bitLength));
+            }
+            fromBitIndex += bitLength;
+        }
+        return -1;
+    }
+
+    /**
+     * Index of last 1 bit from fromBitIndex to 0, 64 bits are checked one time.
+     * If fromBitIndex is not less than limit, find from last bit before limit.
+     * This will not change position.
+     *
+     * @return -1 if have no 1 bit, or fromBitIndex is -1.
+     * @throws IllegalArgumentException fromBitIndex less than -1.
+     */
+    public int previousSetBit(int fromBitIndex) {
+        if(fromBitIndex < -1) {
+            throw new IllegalArgumentException("Bit position can't less than -1.");
+        }
+        fromBitIndex = Math.min(fromBitIndex, bitLimit() - 1);
+        while(fromBitIndex >= 0) {
+            int bitLength = Math.min(64, fromBitIndex + 1);
+            long bits = getBitsAt(fromBitIndex + 1 - bitLength, bitLength);
+            if(bits != 0) {
+                return fromBitIndex - (lsbFirst ?
+                        Long.numberOfLeadingZeros(bits) - (64 - bitLength) :
+                        Long.numberOfTrailingZeros(bits));
+            }
+            fromBitIndex -= bitLength;
+        }
+        return -1;
+    }
+
+    /**
+     * Count of 1 bits from fromBitIndex(include) to toBitIndex(exclude).
+     * This will not change position.
+     *
+     * @throws IllegalArgumentException fromBitIndex can't be negative or larger than
+     *                                  toBitIndex.
+     * @throws BufferOverflowException  toBitIndex larger than limit.
+     */
+    public int cardinality(int fromBitIndex, int toBitIndex) {
+        if(fromBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
         }
+        if(toBitIndex < fromBitIndex) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(remainingBits(fromBitIndex) < toBitIndex - fromBitIndex) {
+            throw new BufferOverflowException();
+        }
+        int count = 0;
+        if(buffer.hasArray()) {// whole bytes are counted by BitKernel
+            int headBitLength = Math.min((8 - ((fromBitIndex + bitOffset) & 0x07)) & 0x07,
+                    toBitIndex - fromBitIndex);
+            if(headBitLength > 0) {
+                count += Long.bitCount(getBitsAt(fromBitIndex, headBitLength));
+                fromBitIndex += headBitLength;
+            }
+            int byteLength = (toBitIndex - fromBitIndex) >>> 3;
+            count += (int)BitKernel.INSTANCE.bitCount(buffer.array(), arrayIndex(fromBitIndex),
+                    byteLength);
+            fromBitIndex += byteLength << 3;
+        }
+        while(fromBitIndex < toBitIndex) {
+            int bitLength = Math.min(64, toBitIndex - fromBitIndex);
+            count += Long.bitCount(getBitsAt(fromBitIndex, bitLength));
+            fromBitIndex += bitLength;
+        }
+        return count;
+    }
 
-        int bitLengthInFirstByte = (bitLength & 0x07) == 0 ? 8 : (bitLength & 0x07);
-        bytes[0] = getByte(bitLengthInFirstByte);
-        for(int i = 1; i < bytes.length; i++) {
-            bytes[i] = getByte();
+    /**
+     * Iterate indexes of 1 bits from fromBitIndex to limit, limit is got when create.
+     * 64 bits are got one time when needed, bits put after that may not be seen.
+     * This will not change position.
+     *
+     * @throws IllegalArgumentException fromBitIndex can't be negative.
+     */
+    public PrimitiveIterator.OfInt setBitIterator(int fromBitIndex) {
+        if(fromBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
         }
-        return bytes;
+        return new SetBitIterator(fromBitIndex, bitLimit());
     }
 
     /**
@@ -357,47 +974,7 @@ public class BitBuffer {
         if(bitLength < 0) {
             throw new IllegalArgumentException("Length can't be negative.");
         }
-        if(bitLength == 0) {
-            return this;
-        }
-        if(buffer.remaining() == 0 || remainingBits() < bitLength) {
-            throw new BufferOverflowException();
-        }
-        byte firstPartBits;
-        int firstPartBitLength = bitLength;
-        Byte secondPartBits = null;
-        int secondPartBitLength = (positionInByte + bitLength) - 8;
-        if(secondPartBitLength > 0) {
-            secondPartBits = PickBitsHelper
-                    .pickBitsFromRightPartOfByte(data, secondPartBitLength);
-            firstPartBitLength = 8 - positionInByte;
-            firstPartBits = PickBitsHelper
-                    .pickBitsPartOfByte(data, 8 - bitLength, firstPartBitLength);
-        } else {
-            firstPartBits = PickBitsHelper.pickBitsFromRightPartOfByte(data, bitLength);
-        }
-        int currentBytePosition = buffer.position();
-        byte currentByte = buffer.get(currentBytePosition);
-        int fillZeroCover = ~(
-                PickBitsHelper.getCoverToPickBitsInByteRight(firstPartBitLength) <<
-                (8 - positionInByte - firstPartBitLength));
-        currentByte = (byte)((currentByte & fillZeroCover) |
-                (firstPartBits << (8 - positionInByte - firstPartBitLength)));
-        buffer.put(currentBytePosition, currentByte);
-        positionInByte += firstPartBitLength;
-
-        if(secondPartBits != null) {
-            int nextBytePosition = currentBytePosition + 1;
-            byte nextByte = buffer.get(nextBytePosition);
-            fillZeroCover = ~(PickBitsHelper.getCoverToPickBitsInByteRight(secondPartBits) <<
-                    (8 - secondPartBitLength));
-            nextByte = (byte)((nextByte & fillZeroCover) |
-                    (secondPartBits << (8 - secondPartBitLength)));
-            buffer.put(nextBytePosition, nextByte);
-            buffer.position(nextBytePosition);
-            positionInByte = secondPartBitLength;
-        }
-        return this;
+        return putBits(data, bitLength);
     }
 
     /**
@@ -424,46 +1001,17 @@ public class BitBuffer {
         if(bitLength < 0) {
             throw new IllegalArgumentException("Length can't be negative.");
         }
+        if(putBitPosition < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
         if(bitLength == 0) {
             return this;
         }
-        int currentBytePosition = putBitPosition >>> 3;
-        int positionInByte = putBitPosition & 0x07;
-        if(buffer.limit() <= currentBytePosition ||
-                remainingBits(putBitPosition) < bitLength) {
+        ensureRemaining(putBitPosition, bitLength);
+        if(remainingBits(putBitPosition) < bitLength) {
             throw new BufferOverflowException();
         }
-        byte firstPartBits;
-        int firstPartBitLength = bitLength;
-        Byte secondPartBits = null;
-        int secondPartBitLength = (positionInByte + bitLength) - 8;
-        if(secondPartBitLength > 0) {
-            secondPartBits = PickBitsHelper
-                    .pickBitsFromRightPartOfByte(data, secondPartBitLength);
-            firstPartBitLength = 8 - positionInByte;
-            firstPartBits = PickBitsHelper
-                    .pickBitsPartOfByte(data, 8 - bitLength, firstPartBitLength);
-        } else {
-            firstPartBits = PickBitsHelper.pickBitsFromRightPartOfByte(data, bitLength);
-        }
-
-        byte currentByte = buffer.get(currentBytePosition);
-        int fillZeroCover = ~(
-                PickBitsHelper.getCoverToPickBitsInByteRight(firstPartBitLength) <<
-                (8 - positionInByte - firstPartBitLength));
-        currentByte = (byte)((currentByte & fillZeroCover) |
-                (firstPartBits << (8 - positionInByte - firstPartBitLength)));
-        buffer.put(currentBytePosition, currentByte);
-
-        if(secondPartBits != null) {
-            int nextBytePosition = currentBytePosition + 1;
-            byte nextByte = buffer.get(nextBytePosition);
-            fillZeroCover = ~(PickBitsHelper.getCoverToPickBitsInByteRight(secondPartBits) <<
-                    (8 - secondPartBitLength));
-            nextByte = (byte)((nextByte & fillZeroCover) |
-                    (secondPartBits << (8 - secondPartBitLength)));
-            buffer.put(nextBytePosition, nextByte);
-        }
+        putBitsAt(putBitPosition, data, bitLength);
         return this;
     }
 
@@ -498,20 +1046,13 @@ public class BitBuffer {
         if(bitLength == 0) {
             return this;
         }
+        ensureRemaining(bitPosition(), bitLength);
         if(buffer.remaining() == 0 || remainingBits() < bitLength) {
             throw new BufferOverflowException();
         }
-        int fullUsedByteLength = bitLength >>> 3;
-        int lastByteUsedBitLength = bitLength & 0x07;
-        for(int i = 0; i < fullUsedByteLength; i++) {
-            put(data[i]);
-        }
-        if(lastByteUsedBitLength > 0) {
-            byte bitsInLastByte = PickBitsHelper
-                    .pickBitsFromLeftPartOfByte(data[fullUsedByteLength],
-                            lastByteUsedBitLength);
-            put(bitsInLastByte, lastByteUsedBitLength);
-        }
+        int bitPosition = bitPosition();
+        putBytesAt(bitPosition, data, bitLength);
+        setBitPosition(bitPosition + bitLength);
         return this;
     }
 
@@ -540,22 +1081,11 @@ public class BitBuffer {
         if(bitLength == 0) {
             return this;
         }
-        int bytePosition = putBitPosition >>> 3;
-        if(buffer.limit() <= bytePosition || remainingBits(putBitPosition) < bitLength) {
+        ensureRemaining(putBitPosition, bitLength);
+        if(remainingBits(putBitPosition) < bitLength) {
             throw new BufferOverflowException();
         }
-        int fullUsedByteLength = bitLength >>> 3;
-        int lastByteUsedBitLength = bitLength & 0x07;
-        for(int i = 0; i < fullUsedByteLength; i++) {
-            put(data[i], putBitPosition, 8);
-            putBitPosition += 8;
-        }
-        if(lastByteUsedBitLength > 0) {
-            byte bitsInLastByte = PickBitsHelper
-                    .pickBitsFromLeftPartOfByte(data[fullUsedByteLength],
-                            lastByteUsedBitLength);
-            put(bitsInLastByte, putBitPosition, lastByteUsedBitLength);
-        }
+        putBytesAt(putBitPosition, data, bitLength);
         return this;
     }
 
@@ -564,6 +1094,8 @@ public class BitBuffer {
      * will use 11110000 00, not 11111111 11), start put position in buffer is
      * putBitPosition. Because of put bytes, so bitLength can't larger than 8*data
      * .length or be negative. This will not change position.
+     * <br/> In LSB_FIRST order, data is treated as a big-endian number, its right
+     * bitLength bits are put from lowest bit.
      *
      * @return Current buffer.
      * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
@@ -581,48 +1113,434 @@ public class BitBuffer {
         if(bitLength == 0) {
             return this;
         }
+        ensureRemaining(bitPosition(), bitLength);
         if(buffer.remaining() == 0 || remainingBits() < bitLength) {
             throw new BufferOverflowException();
         }
+        int bitPosition = bitPosition();
         int notFullUsedByteLength = data.length - (bitLength >>> 3);
         int firstByteUsedBitLength = bitLength & 0x07;
-        if(firstByteUsedBitLength != 0) {
-            put(data[notFullUsedByteLength - 1], firstByteUsedBitLength);
-        }
-        for(int i = notFullUsedByteLength; i < data.length; i++) {
-            put(data[i]);
-        }
+        if(lsbFirst) {
+            for(int i = data.length - 1; i >= notFullUsedByteLength; i--) {
+                putBitsAt(bitPosition, data[i], 8);
+                bitPosition += 8;
+            }
+            if(firstByteUsedBitLength != 0) {
+                putBitsAt(bitPosition, data[notFullUsedByteLength - 1],
+                        firstByteUsedBitLength);
+                bitPosition += firstByteUsedBitLength;
+            }
+        } else {
+            if(firstByteUsedBitLength != 0) {
+                putBitsAt(bitPosition, data[notFullUsedByteLength - 1],
+                        firstByteUsedBitLength);
+                bitPosition += firstByteUsedBitLength;
+            }
+            putWholeBytesAt(bitPosition, data, notFullUsedByteLength,
+                    data.length - notFullUsedByteLength);
+            bitPosition += (data.length - notFullUsedByteLength) << 3;
+        }
+        setBitPosition(bitPosition);
         return this;
     }
 
     /**
      * Put fixed bit count of integer into buffer, from int right
      * (00000000 00000000 00000000 11000000 count 8 will use 11000000, not 00000000).
-     * Because of put bytes, so bitLength can't larger than 8*data.length or be negative.
+     * Because of put one int, so bitLength can't larger than 32 or be negative.
      *
      * @return Current buffer.
-     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
      * @throws BufferOverflowException  have not enough bit to get.
      */
     public BitBuffer put(int data, int bitLength) {
-        int changedData = data << (32 - bitLength);
-        byte[] dataBytes = NumberHelper.to4Bytes(changedData);
-        return put(dataBytes, bitLength);
+        if(bitLength > 32) {
+            throw new IllegalArgumentException(
+                    "One int have 32 bit, bitLength must not larger than 32.");
+        }
+        return putBits(data, bitLength);
     }
 
     /**
      * Put fixed bit count of short integer into buffer, from right
      * (00000000 11000000 count 8 will use 11000000, not 00000000).
-     * Because of put bytes, so bitLength can't larger than 8*data.length or be negative.
+     * Because of put one short, so bitLength can't larger than 16 or be negative.
      *
      * @return Current buffer.
-     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws IllegalArgumentException bitLength can't lager than 16 or be negative.
      * @throws BufferOverflowException  have not enough bit to get.
      */
     public BitBuffer put(short data, int bitLength) {
-        short changedData = (short)(data << (16 - bitLength));
-        byte[] dataBytes = NumberHelper.to2Bytes(changedData);
-        return put(dataBytes, bitLength);
+        if(bitLength > 16) {
+            throw new IllegalArgumentException(
+                    "One short have 16 bit, bitLength must not larger than 16.");
+        }
+        return putBits(data, bitLength);
+    }
+
+    /**
+     * Put fixed bit count of long integer into buffer, from right
+     * (... 00000000 11000000 count 8 will use 11000000, not 00000000).
+     * Because of put one long, so bitLength can't larger than 64 or be negative.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public BitBuffer put(long data, int bitLength) {
+        if(bitLength > 64) {
+            throw new IllegalArgumentException(
+                    "One long have 64 bit, bitLength must not larger than 64.");
+        }
+        return putBits(data, bitLength);
+    }
+
+    /**
+     * Put signed integer into buffer in bitLength bits two's complement.
+     * Unlike {@link #put(long, int)}, value is not truncated.
+     * <p/>
+     * Example:<br/>
+     * data=-6, bitLength=5, will put 11010.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative, data
+     *                                  not in range of bitLength bits signed integer.
+     * @throws BufferOverflowException  have not enough bit to put.
+     */
+    public BitBuffer putSigned(long data, int bitLength) {
+        if(bitLength > 64) {
+            throw new IllegalArgumentException(
+                    "One long have 64 bit, bitLength must not larger than 64.");
+        }
+        if(bitLength < 64 && bitLength > 0 && (data >> (bitLength - 1)) != (data >> 63)) {
+            throw new IllegalArgumentException(
+                    "Value " + data + " out of range of " + bitLength + " bits signed.");
+        }
+        if(bitLength == 0 && data != 0) {
+            throw new IllegalArgumentException("Value " + data + " out of range of 0 bits.");
+        }
+        return putBits(data, bitLength);
+    }
+
+    /**
+     * Put signed integer into buffer in zig-zag encode, small absolute value use less
+     * bits: 0 -> 0, -1 -> 1, 1 -> 2, -2 -> 3 ...
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative, zig-zag
+     *                                  encoded data have more than bitLength bits.
+     * @throws BufferOverflowException  have not enough bit to put.
+     */
+    public BitBuffer putZigZag(long data, int bitLength) {
+        if(bitLength > 64) {
+            throw new IllegalArgumentException(
+                    "One long have 64 bit, bitLength must not larger than 64.");
+        }
+        long zigZag = (data << 1) ^ (data >> 63);
+        if(bitLength < 64 && bitLength >= 0 && (zigZag >>> bitLength) != 0) {
+            throw new IllegalArgumentException(
+                    "Value " + data + " out of range of " + bitLength + " bits zig-zag.");
+        }
+        return putBits(zigZag, bitLength);
+    }
+
+    private BitBuffer putBits(long data, int bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(bitLength == 0) {
+            return this;
+        }
+        ensureRemaining(bitPosition(), bitLength);
+        if(buffer.remaining() == 0 || remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+        int bitPosition = bitPosition();
+        putBitsAt(bitPosition, data, bitLength);
+        setBitPosition(bitPosition + bitLength);
+        return this;
+    }
+
+    /**
+     * Put bitLength bits from src position into buffer, position of src and this buffer
+     * both increase bitLength. Like {@link ByteBuffer#put(ByteBuffer)} in bit unit.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't be negative, src can't be this buffer.
+     * @throws BufferOverflowException  src have not enough bits to get, or have not enough
+     *                                  bits to put.
+     */
+    public BitBuffer put(BitBuffer src, int bitLength) {
+        if(src == this) {
+            throw new IllegalArgumentException("Source buffer can't be this buffer.");
+        }
+        int srcBitPosition = src.bitPosition();
+        int bitPosition = bitPosition();
+        put(src, srcBitPosition, bitPosition, bitLength);
+        src.setBitPosition(srcBitPosition + bitLength);
+        setBitPosition(bitPosition + bitLength);
+        return this;
+    }
+
+    /**
+     * Put bitLength bits of src from srcBitIndex into buffer, start put position in buffer
+     * is putBitPosition. This will not change position of src and this buffer.
+     * src can be this buffer, ranges can overlap.
+     * <p/>
+     * If srcBitIndex and putBitPosition have same position in byte, whole bytes are copied
+     * by {@link System#arraycopy}, otherwise 64 bits are shifted and put one time.
+     * If src have different bit order, bits are copied one by one in order, like get
+     * from src and put into this buffer bit by bit.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength or bit position can't be negative.
+     * @throws BufferOverflowException  src have not enough bits to get, or have not enough
+     *                                  bits to put.
+     */
+    public BitBuffer put(BitBuffer src, int srcBitIndex, int putBitPosition, int bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(srcBitIndex < 0 || putBitPosition < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(bitLength == 0) {
+            return this;
+        }
+        if(src.remainingBits(srcBitIndex) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        ensureRemaining(putBitPosition, bitLength);
+        if(remainingBits(putBitPosition) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        if(src == this && putBitPosition > srcBitIndex &&
+                putBitPosition - srcBitIndex < bitLength) {
+            copyBitsBackward(srcBitIndex, putBitPosition, bitLength);
+        } else if(((srcBitIndex + src.bitOffset) & 0x07) ==
+                ((putBitPosition + bitOffset) & 0x07) && src.lsbFirst == lsbFirst &&
+                (src != this || buffer.hasArray())) {
+            copyBitsAligned(src, srcBitIndex, putBitPosition, bitLength);
+        } else {
+            copyBitsShifted(src, srcBitIndex, putBitPosition, bitLength);
+        }
+        return this;
+    }
+
+    /**
+     * Like {@link #and(BitBuffer, int, int, int)}, bits from position to limit, with bits
+     * of src from its position. Position of src and this buffer not change.
+     *
+     * @return Current buffer.
+     * @throws BufferOverflowException src have less remaining bits than this buffer.
+     */
+    public BitBuffer and(BitBuffer src) {
+        return combine(AND, src);
+    }
+
+    /**
+     * Set bitLength bits from bitIndex to AND of them and bits of src from srcBitIndex.
+     * 64 bits are got from both and put one time, bit positions in byte can be different.
+     * This will not change position of src and this buffer.
+     * <p/>
+     * Example:<br/>
+     * buffer like "10010101", src like "11110000", and(src, 2, 0, 6) will make buffer
+     * "10000001".
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength or bit position can't be negative.
+     * @throws BufferOverflowException  src have not enough bits to get, or have not enough
+     *                                  bits to put.
+     */
+    public BitBuffer and(BitBuffer src, int srcBitIndex, int bitIndex, int bitLength) {
+        return combine(AND, src, srcBitIndex, bitIndex, bitLength);
+    }
+
+    /**
+     * Like {@link #and(BitBuffer)}, in OR.
+     */
+    public BitBuffer or(BitBuffer src) {
+        return combine(OR, src);
+    }
+
+    /**
+     * Like {@link #and(BitBuffer, int, int, int)}, in OR.
+     */
+    public BitBuffer or(BitBuffer src, int srcBitIndex, int bitIndex, int bitLength) {
+        return combine(OR, src, srcBitIndex, bitIndex, bitLength);
+    }
+
+    /**
+     * Like {@link #and(BitBuffer)}, in XOR.
+     */
+    public BitBuffer xor(BitBuffer src) {
+        return combine(XOR, src);
+    }
+
+    /**
+     * Like {@link #and(BitBuffer, int, int, int)}, in XOR.
+     */
+    public BitBuffer xor(BitBuffer src, int srcBitIndex, int bitIndex, int bitLength) {
+        return combine(XOR, src, srcBitIndex, bitIndex, bitLength);
+    }
+
+    /**
+     * Like {@link #and(BitBuffer)}, clear bits which are 1 in src.
+     */
+    public BitBuffer andNot(BitBuffer src) {
+        return combine(AND_NOT, src);
+    }
+
+    /**
+     * Like {@link #and(BitBuffer, int, int, int)}, clear bits which are 1 in src.
+     */
+    public BitBuffer andNot(BitBuffer src, int srcBitIndex, int bitIndex, int bitLength) {
+        return combine(AND_NOT, src, srcBitIndex, bitIndex, bitLength);
+    }
+
+    /**
+     * Change bits from position to limit, 0 to 1 and 1 to 0. Position not change.
+     *
+     * @return Current buffer.
+     */
+    public BitBuffer not() {
+        return not(bitPosition(), remainingBits());
+    }
+
+    /**
+     * Change bitLength bits from bitIndex, 0 to 1 and 1 to 0. Position not change.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength or bit position can't be negative.
+     * @throws BufferOverflowException  have not enough bits.
+     */
+    public BitBuffer not(int bitIndex, int bitLength) {
+        return combine(NOT, this, bitIndex, bitIndex, bitLength);
+    }
+
+    private BitBuffer combine(int operation, BitBuffer src) {
+        return combine(operation, src, src.bitPosition(), bitPosition(), remainingBits());
+    }
+
+    private BitBuffer combine(int operation, BitBuffer src, int srcBitIndex, int bitIndex,
+                              int bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(srcBitIndex < 0 || bitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(src.remainingBits(srcBitIndex) < bitLength ||
+                remainingBits(bitIndex) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        if(bitLength > 0) {
+            combineBitsAt(operation, this, bitIndex, src, srcBitIndex, bitIndex, bitLength);
+        }
+        return this;
+    }
+
+    /**
+     * Put operation of bitLength bits of left from leftBitIndex and bits of right from
+     * rightBitIndex into bitIndex. Bits are checked before.
+     * <br/> Put head bits to make put position aligned with byte, then 64 bits are got from
+     * both and whole word is put one time, like {@link #put(BitBuffer, int, int, int)}.
+     * If all are byte arrays in same order and bits are aligned with bytes, whole bytes
+     * are done by {@link BitKernel}.
+     * If right is this buffer and its bits are before bitIndex and overlap, put from end
+     * to beginning.
+     */
+    void combineBitsAt(int operation, BitBuffer left, int leftBitIndex, BitBuffer right,
+                       int rightBitIndex, int bitIndex, int bitLength) {
+        if(right == this && bitIndex > rightBitIndex && bitIndex - rightBitIndex < bitLength) {
+            while(bitLength > 0) {
+                int partBitLength = Math.min(bitLength, 64);
+                bitLength -= partBitLength;
+                combinePart(operation, left, leftBitIndex + bitLength, right,
+                        rightBitIndex + bitLength, bitIndex + bitLength, partBitLength);
+            }
+            return;
+        }
+        int headBitLength =
+                Math.min((8 - ((bitIndex + bitOffset) & 0x07)) & 0x07, bitLength);
+        if(headBitLength > 0) {
+            combinePart(operation, left, leftBitIndex, right, rightBitIndex, bitIndex,
+                    headBitLength);
+            leftBitIndex += headBitLength;
+            rightBitIndex += headBitLength;
+            bitIndex += headBitLength;
+            bitLength -= headBitLength;
+        }
+        if(bitLength >= 8 && isAlignedArray(left, leftBitIndex, bitIndex) &&
+                isAlignedArray(right, rightBitIndex, bitIndex)) {
+            int byteLength = bitLength >>> 3;
+            BitKernel.INSTANCE.combine(operation, left.buffer.array(),
+                    left.arrayIndex(leftBitIndex), right.buffer.array(),
+                    right.arrayIndex(rightBitIndex), buffer.array(), arrayIndex(bitIndex),
+                    byteLength);
+            leftBitIndex += byteLength << 3;
+            rightBitIndex += byteLength << 3;
+            bitIndex += byteLength << 3;
+            bitLength &= 0x07;
+        }
+        int limit = buffer.limit();
+        while(bitLength >= 64) {
+            long word = combineBits(operation, getBitsFrom(left, leftBitIndex, 64),
+                    getBitsFrom(right, rightBitIndex, 64));
+            int byteIndex = (bitIndex + bitOffset) >>> 3;
+            if(byteIndex + 8 <= limit) {
+                buffer.putLong(byteIndex, word);
+            } else {
+                putBitsAt(bitIndex, word, 64);
+            }
+            leftBitIndex += 64;
+            rightBitIndex += 64;
+            bitIndex += 64;
+            bitLength -= 64;
+        }
+        if(bitLength > 0) {
+            combinePart(operation, left, leftBitIndex, right, rightBitIndex, bitIndex,
+                    bitLength);
+        }
+    }
+
+    /**
+     * Whether src and this buffer are byte arrays in same order, and srcBitIndex is at same
+     * position in byte as bitIndex which is aligned.
+     */
+    private boolean isAlignedArray(BitBuffer src, int srcBitIndex, int bitIndex) {
+        return src.lsbFirst == lsbFirst && src.buffer.hasArray() && buffer.hasArray() &&
+                ((srcBitIndex + src.bitOffset) & 0x07) == ((bitIndex + bitOffset) & 0x07);
+    }
+
+    /**
+     * Index in backing byte array of byte bitIndex in.
+     */
+    private int arrayIndex(int bitIndex) {
+        return buffer.arrayOffset() + ((bitIndex + bitOffset) >>> 3);
+    }
+
+    private void combinePart(int operation, BitBuffer left, int leftBitIndex,
+                             BitBuffer right, int rightBitIndex, int bitIndex,
+                             int bitLength) {
+        long bits = combineBits(operation, getBitsFrom(left, leftBitIndex, bitLength),
+                getBitsFrom(right, rightBitIndex, bitLength));
+        putBitsAt(bitIndex, bits, bitLength);
+    }
+
+    private static long combineBits(int operation, long left, long right) {
+        switch(operation) {
+            case AND:
+                return left & right;
+            case OR:
+                return left | right;
+            case XOR:
+                return left ^ right;
+            case AND_NOT:
+                return left & ~right;
+            default:
+                return ~left;
+        }
     }
 
     /**
@@ -633,17 +1551,7 @@ public class BitBuffer {
      * will return byte[2] : 11111111 11111100.
      */
     public byte[] array() {
-        int byteCount = bitTotalLength >>> 3;
-        int bitsInLastByte = bitTotalLength & 0x07;
-        byte[] allBytes = buffer.array();
-        if(bitsInLastByte == 0) {
-            allBytes = Arrays.copyOfRange(allBytes, 0, byteCount);
-        } else {
-            allBytes = Arrays.copyOfRange(allBytes, 0, byteCount + 1);
-            allBytes[allBytes.length - 1] = (byte)(allBytes[allBytes.length - 1] &
-                    PickBitsHelper.getCoverToPickBitsInByteLeft(bitsInLastByte));
-        }
-        return allBytes;
+        return copyFirstBits(bitTotalLength);
     }
 
     /**
@@ -655,20 +1563,636 @@ public class BitBuffer {
      * will return byte[2] : 11111111 11000000.
      */
     public byte[] getUsedArray() {
-        int bytePosition = buffer.position();
-        if(positionInByte == 0) {
-            return Arrays.copyOfRange(buffer.array(), 0, bytePosition);
+        return copyFirstBits(bitPosition());
+    }
+
+    /**
+     * Returns a read-only byte buffer share the used bytes of this buffer, not copy.
+     * Means from 0 to position, position of returned buffer is 0.
+     * Can be written to channel directly.
+     * <p/>
+     * Unlike {@link #getUsedArray()}, bits after position in last byte are not
+     * cleared, they are the bits in this buffer.
+     * <br/> Slice not start at beginning of a byte can't share, used bytes are copied.
+     */
+    public ByteBuffer getUsedByteBuffer() {
+        if((bitOffset & 0x07) != 0) {
+            return ByteBuffer.wrap(getUsedArray()).asReadOnlyBuffer();
+        }
+        int usedByteCount = buffer.position() + (positionInByte == 0 ? 0 : 1);
+        ByteBuffer usedBuffer = buffer.asReadOnlyBuffer();
+        usedBuffer.limit(usedByteCount);
+        usedBuffer.position(bitOffset >>> 3);
+        return bitOffset == 0 ? usedBuffer : usedBuffer.slice();
+    }
+
+    /**
+     * Write used bytes of this buffer into dest, same bytes as {@link #getUsedArray()},
+     * but no array is created. Bits after position in last byte are written as 0.
+     * <br/> Slice not start at beginning of a byte, used bytes are copied first.
+     *
+     * @return Count of written bytes.
+     * @throws BufferOverflowException dest have not enough remaining bytes.
+     */
+    public int writeTo(ByteBuffer dest) {
+        int bitLength = bitPosition();
+        int byteCount = (bitLength + 7) >>> 3;
+        if(dest.remaining() < byteCount) {
+            throw new BufferOverflowException();
+        }
+        if((bitOffset & 0x07) != 0) {
+            dest.put(getUsedArray());
+            return byteCount;
+        }
+        int wholeByteCount = bitLength >>> 3;
+        if(buffer.hasArray()) {
+            dest.put(buffer.array(), buffer.arrayOffset() + (bitOffset >>> 3), wholeByteCount);
+        } else {
+            dest.put(wholeBytesFromStart(wholeByteCount));
+        }
+        if((bitLength & 0x07) > 0) {
+            dest.put(lastUsedByte(bitLength));
+        }
+        return byteCount;
+    }
+
+    /**
+     * Like {@link #writeTo(ByteBuffer)}, write used bytes into out. Heap buffer is
+     * written from its backing array, direct buffer is written by parts.
+     *
+     * @return Count of written bytes.
+     */
+    public int writeTo(OutputStream out) throws IOException {
+        int bitLength = bitPosition();
+        int byteCount = (bitLength + 7) >>> 3;
+        if((bitOffset & 0x07) != 0) {
+            out.write(getUsedArray());
+            return byteCount;
+        }
+        int wholeByteCount = bitLength >>> 3;
+        if(buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + (bitOffset >>> 3), wholeByteCount);
+        } else if(wholeByteCount > 0) {
+            ByteBuffer source = wholeBytesFromStart(wholeByteCount);
+            byte[] part = new byte[Math.min(wholeByteCount, 8192)];
+            while(source.hasRemaining()) {
+                int partLength = Math.min(part.length, source.remaining());
+                source.get(part, 0, partLength);
+                out.write(part, 0, partLength);
+            }
+        }
+        if((bitLength & 0x07) > 0) {
+            out.write(lastUsedByte(bitLength));
+        }
+        return byteCount;
+    }
+
+    /**
+     * Like {@link #writeTo(ByteBuffer)}, write used bytes into channel. Whole bytes are
+     * not copied, last not whole byte is masked and written with bytes before it by a
+     * small buffer reused by this buffer. Slice not start at beginning of a byte is
+     * shifted part by part by the same small buffer. Return after all bytes are written,
+     * so channel must be in blocking mode, like {@link BitOutputStream}.
+     *
+     * @return Count of written bytes.
+     * @throws IllegalArgumentException channel is in non-blocking mode.
+     * @throws IOException              channel wrote no byte.
+     */
+    public int writeTo(WritableByteChannel channel) throws IOException {
+        if(channel instanceof SelectableChannel &&
+                !((SelectableChannel)channel).isBlocking()) {
+            throw new IllegalArgumentException(
+                    "Channel in non-blocking mode is not supported.");
+        }
+        int bitLength = bitPosition();
+        int byteCount = (bitLength + 7) >>> 3;
+        if((bitOffset & 0x07) != 0) {
+            writeByScratch(channel, 0, bitLength);
+            return byteCount;
+        }
+        int wholeByteCount = bitLength >>> 3;
+        if((bitLength & 0x07) == 0) {
+            writeFully(channel, wholeBytesFromStart(wholeByteCount));
+            return byteCount;
+        }
+        // last whole bytes go with the masked last byte
+        int directByteCount = Math.max(0, wholeByteCount - (WRITE_SCRATCH_SIZE - 1));
+        writeFully(channel, wholeBytesFromStart(directByteCount));
+        writeByScratch(channel, directByteCount << 3, bitLength);
+        return byteCount;
+    }
+
+    /**
+     * Write bits from bitIndex to bitLength by write scratch, part by part, bits after
+     * bitLength in last byte are 0.
+     */
+    private void writeByScratch(WritableByteChannel channel, int bitIndex, int bitLength)
+            throws IOException {
+        if(writeScratch == null) {
+            writeScratch = ByteBuffer.allocate(WRITE_SCRATCH_SIZE);
+        }
+        byte[] bytes = writeScratch.array();
+        while(bitIndex < bitLength) {
+            int partLength = Math.min(bytes.length, (bitLength - bitIndex) >>> 3);
+            getWholeBytesAt(bitIndex, bytes, 0, partLength);
+            bitIndex += partLength << 3;
+            int tailBitLength = bitLength - bitIndex;
+            if(tailBitLength > 0 && tailBitLength < 8 && partLength < bytes.length) {
+                long lastBits = getBitsAt(bitIndex, tailBitLength);
+                bytes[partLength++] = (byte)(lsbFirst ? lastBits :
+                        lastBits << (8 - tailBitLength));
+                bitIndex = bitLength;
+            }
+            writeScratch.clear();
+            writeScratch.limit(partLength);
+            writeFully(channel, writeScratch);
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer source)
+            throws IOException {
+        while(source.hasRemaining()) {
+            if(channel.write(source) == 0) {
+                throw new IOException(
+                        "Channel wrote no byte, non-blocking mode is not supported.");
+            }
+        }
+    }
+
+    /**
+     * Read-only buffer of byteCount bytes from bit 0, only used when bit 0 is the
+     * beginning of a byte.
+     */
+    private ByteBuffer wholeBytesFromStart(int byteCount) {
+        ByteBuffer source = buffer.asReadOnlyBuffer();
+        source.clear();
+        source.limit((bitOffset >>> 3) + byteCount);
+        source.position(bitOffset >>> 3);
+        return source;
+    }
+
+    /**
+     * Last byte of first bitLength bits, bits after them are 0. Only used when bit 0 is
+     * the beginning of a byte.
+     */
+    private byte lastUsedByte(int bitLength) {
+        int lastByte = buffer.get((bitOffset >>> 3) + (bitLength >>> 3));
+        return (byte)(lastByte & coverOfFirstBits(bitLength & 0x07));
+    }
+
+    /**
+     * Cover of first bitLength bits in one byte, left part or right part by bit order.
+     */
+    private int coverOfFirstBits(int bitLength) {
+        return lsbFirst ? ~(0xff << bitLength) & 0xff : (0xff00 >>> bitLength) & 0xff;
+    }
+
+    /**
+     * Copy first bitLength bits into bytes, bits after them in last byte are 0.
+     */
+    private byte[] copyFirstBits(int bitLength) {
+        int byteCount = bitLength >>> 3;
+        int bitsInLastByte = bitLength & 0x07;
+        if((bitOffset & 0x07) != 0) {
+            byte[] bytes = new byte[(bitLength + 7) >>> 3];
+            getWholeBytesAt(0, bytes, 0, byteCount);
+            if(bitsInLastByte > 0) {
+                long lastBits = getBitsAt(byteCount << 3, bitsInLastByte);
+                bytes[byteCount] = (byte)(lsbFirst ? lastBits :
+                        lastBits << (8 - bitsInLastByte));
+            }
+            return bytes;
+        }
+        if(bitsInLastByte == 0) {
+            return copyBytes(byteCount);
+        }
+        byte[] bytes = copyBytes(byteCount + 1);
+        bytes[byteCount] = (byte)(bytes[byteCount] & coverOfFirstBits(bitsInLastByte));
+        return bytes;
+    }
+
+    private byte[] copyBytes(int byteCount) {
+        byte[] bytes = new byte[byteCount];
+        if(buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + (bitOffset >>> 3), bytes,
+                    0, byteCount);
+        } else {
+            ByteBuffer source = buffer.duplicate();
+            source.clear();
+            source.position(bitOffset >>> 3);
+            source.get(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Same position in byte, copy head bits and tail bits, whole bytes between them
+     * copy directly.
+     */
+    private void copyBitsAligned(BitBuffer src, int srcBitIndex, int putBitPosition,
+                                 int bitLength) {
+        int headBitLength =
+                Math.min((8 - ((putBitPosition + bitOffset) & 0x07)) & 0x07, bitLength);
+        if(headBitLength > 0) {
+            putBitsAt(putBitPosition, src.getBitsAt(srcBitIndex, headBitLength),
+                    headBitLength);
+            srcBitIndex += headBitLength;
+            putBitPosition += headBitLength;
+            bitLength -= headBitLength;
+        }
+        int srcByteIndex = (srcBitIndex + src.bitOffset) >>> 3;
+        int byteIndex = (putBitPosition + bitOffset) >>> 3;
+        int byteLength = bitLength >>> 3;
+        if(src.buffer.hasArray() && buffer.hasArray()) {
+            System.arraycopy(src.buffer.array(), src.buffer.arrayOffset() + srcByteIndex,
+                    buffer.array(), buffer.arrayOffset() + byteIndex, byteLength);
+        } else {
+            ByteBuffer source = src.buffer.duplicate();
+            source.clear();
+            source.limit(srcByteIndex + byteLength);
+            source.position(srcByteIndex);
+            ByteBuffer target = buffer.duplicate();
+            target.clear();
+            target.position(byteIndex);
+            target.put(source);
+        }
+        int tailBitLength = bitLength & 0x07;
+        if(tailBitLength > 0) {
+            int tailBitIndex = bitLength - tailBitLength;
+            putBitsAt(putBitPosition + tailBitIndex,
+                    src.getBitsAt(srcBitIndex + tailBitIndex, tailBitLength), tailBitLength);
+        }
+    }
+
+    /**
+     * Different position in byte, put head bits to make put position aligned with byte,
+     * then get 64 bits from src and put whole word one time.
+     */
+    private void copyBitsShifted(BitBuffer src, int srcBitIndex, int putBitPosition,
+                                 int bitLength) {
+        int headBitLength =
+                Math.min((8 - ((putBitPosition + bitOffset) & 0x07)) & 0x07, bitLength);
+        if(headBitLength > 0) {
+            putBitsAt(putBitPosition, getBitsFrom(src, srcBitIndex, headBitLength),
+                    headBitLength);
+            srcBitIndex += headBitLength;
+            putBitPosition += headBitLength;
+            bitLength -= headBitLength;
+        }
+        int limit = buffer.limit();
+        while(bitLength >= 64) {
+            long word = getBitsFrom(src, srcBitIndex, 64);
+            int byteIndex = (putBitPosition + bitOffset) >>> 3;
+            if(byteIndex + 8 <= limit) {
+                buffer.putLong(byteIndex, word);
+            } else {
+                putBitsAt(putBitPosition, word, 64);
+            }
+            srcBitIndex += 64;
+            putBitPosition += 64;
+            bitLength -= 64;
+        }
+        if(bitLength > 0) {
+            putBitsAt(putBitPosition, getBitsFrom(src, srcBitIndex, bitLength), bitLength);
+        }
+    }
+
+    /**
+     * Get bits from src in order of this buffer, first bit is reversed to last bit if
+     * orders are different.
+     */
+    private long getBitsFrom(BitBuffer src, int srcBitIndex, int bitLength) {
+        long bits = src.getBitsAt(srcBitIndex, bitLength);
+        return src.lsbFirst == lsbFirst ? bits : Long.reverse(bits) >>> (64 - bitLength);
+    }
+
+    /**
+     * Overlap in this buffer and put position after src index, copy from end to
+     * beginning, so src bits are got before covered.
+     */
+    private void copyBitsBackward(int srcBitIndex, int putBitPosition, int bitLength) {
+        while(bitLength > 0) {
+            int partBitLength = Math.min(bitLength, 64);
+            bitLength -= partBitLength;
+            putBitsAt(putBitPosition + bitLength,
+                    getBitsAt(srcBitIndex + bitLength, partBitLength), partBitLength);
+        }
+    }
+
+    /**
+     * Get bitLength bits from bitIndex into bytes, like {@link #getBytes(int, int)}.
+     */
+    private byte[] getBytesAt(int bitIndex, int bitLength) {
+        byte[] bytes = new byte[(bitLength + 7) >>> 3];
+        int wholeByteLength = bitLength >>> 3;
+        int partBitLength = bitLength & 0x07;
+        if(lsbFirst) {
+            getWholeBytesAt(bitIndex, bytes, 0, wholeByteLength);
+            if(partBitLength > 0) {
+                bytes[wholeByteLength] = (byte)getBitsAt(bitIndex + (wholeByteLength << 3),
+                        partBitLength);
+            }
+        } else if(partBitLength > 0) {
+            bytes[0] = (byte)getBitsAt(bitIndex, partBitLength);
+            getWholeBytesAt(bitIndex + partBitLength, bytes, 1, wholeByteLength);
+        } else {
+            getWholeBytesAt(bitIndex, bytes, 0, wholeByteLength);
+        }
+        return bytes;
+    }
+
+    /**
+     * Get byteLength whole bytes from bitIndex into bytes from offset. Aligned bytes are
+     * copied directly, otherwise 64 bits are got and split one time.
+     */
+    private void getWholeBytesAt(int bitIndex, byte[] bytes, int offset, int byteLength) {
+        if(((bitIndex + bitOffset) & 0x07) == 0) {
+            ByteBuffer source = buffer.duplicate();
+            source.clear();
+            source.position((bitIndex + bitOffset) >>> 3);
+            source.get(bytes, offset, byteLength);
+            return;
+        }
+        int end = offset + byteLength;
+        for(; offset + 8 <= end; offset += 8) {
+            long word = getBitsAt(bitIndex, 64);
+            for(int i = 0; i < 8; i++) {
+                int rightMove = lsbFirst ? i << 3 : 56 - (i << 3);
+                bytes[offset + i] = (byte)(word >>> rightMove);
+            }
+            bitIndex += 64;
+        }
+        for(; offset < end; offset++) {
+            bytes[offset] = (byte)getBitsAt(bitIndex, 8);
+            bitIndex += 8;
+        }
+    }
+
+    /**
+     * Put first bitLength bits of data from bitIndex, like {@link #put(byte[], int, int)}.
+     */
+    private void putBytesAt(int bitIndex, byte[] data, int bitLength) {
+        int wholeByteLength = bitLength >>> 3;
+        int partBitLength = bitLength & 0x07;
+        putWholeBytesAt(bitIndex, data, 0, wholeByteLength);
+        if(partBitLength > 0) {
+            int lastByte = data[wholeByteLength] & 0xff;
+            putBitsAt(bitIndex + (wholeByteLength << 3),
+                    lsbFirst ? lastByte : lastByte >>> (8 - partBitLength), partBitLength);
+        }
+    }
+
+    /**
+     * Put byteLength bytes of data from offset into bitIndex. Aligned bytes are copied
+     * directly, otherwise 8 bytes are combined and put one time.
+     */
+    private void putWholeBytesAt(int bitIndex, byte[] data, int offset, int byteLength) {
+        if(((bitIndex + bitOffset) & 0x07) == 0) {
+            ByteBuffer target = buffer.duplicate();
+            target.clear();
+            target.position((bitIndex + bitOffset) >>> 3);
+            target.put(data, offset, byteLength);
+            return;
+        }
+        int end = offset + byteLength;
+        for(; offset + 8 <= end; offset += 8) {
+            long word = 0;
+            for(int i = 0; i < 8; i++) {
+                word = (word << 8) | (data[lsbFirst ? offset + 7 - i : offset + i] & 0xff);
+            }
+            putBitsAt(bitIndex, word, 64);
+            bitIndex += 64;
+        }
+        for(; offset < end; offset++) {
+            putBitsAt(bitIndex, data[offset], 8);
+            bitIndex += 8;
+        }
+    }
+
+    /**
+     * Read bitLength(1~64) bits from bitIndex, right aligned in a long.
+     * Load one word covering the bits, then shift once. Bits cross 8 bytes
+     * boundary only when bitIndex not aligned and bitLength larger than 56,
+     * then need one more byte.
+     * <br/> In LSB_FIRST order the word is little-endian, first bit is the lowest bit of
+     * returned value.
+     */
+    long getBitsAt(int bitIndex, int bitLength) {
+        bitIndex += bitOffset;
+        int byteIndex = bitIndex >>> 3;
+        int bitOffset = bitIndex & 0x07;
+        if(lsbFirst) {
+            long word = loadWord(byteIndex) >>> bitOffset;
+            if(bitOffset + bitLength > 64) {
+                word |= (long)(buffer.get(byteIndex + 8) & 0xff) << (64 - bitOffset);
+            }
+            return word & (-1L >>> (64 - bitLength));
+        }
+        long word = loadWord(byteIndex) << bitOffset;
+        if(bitOffset + bitLength > 64) {
+            word |= (buffer.get(byteIndex + 8) & 0xff) >>> (8 - bitOffset);
+        }
+        return word >>> (64 - bitLength);
+    }
+
+    /**
+     * Write right bitLength(1~64) bits of data from bitIndex.
+     * Merge the bits into one loaded word and store the word back,
+     * near the limit fall back to merge byte by byte.
+     */
+    void putBitsAt(int bitIndex, long data, int bitLength) {
+        if(lsbFirst) {
+            putBitsAtLsbFirst(bitIndex + bitOffset, data, bitLength);
+        } else {
+            putBitsAtMsbFirst(bitIndex + bitOffset, data, bitLength);
+        }
+    }
+
+    /**
+     * Like {@link #putBitsAt(int, long, int)}, bitIndex counts from first bit of byte
+     * buffer, not from bitOffset.
+     */
+    private void putBitsAtMsbFirst(int bitIndex, long data, int bitLength) {
+        int byteIndex = bitIndex >>> 3;
+        int bitOffset = bitIndex & 0x07;
+        int tailBitLength = bitOffset + bitLength - 64;
+        if(tailBitLength > 0) {// last bits in the 9th byte
+            putBitsAtMsbFirst(bitIndex, data >>> tailBitLength, bitLength - tailBitLength);
+            putBitsAtMsbFirst(bitIndex + bitLength - tailBitLength, data, tailBitLength);
+            return;
+        }
+        if(byteIndex + 8 <= buffer.limit()) {
+            int leftMove = 64 - bitOffset - bitLength;
+            long cover = (-1L >>> (64 - bitLength)) << leftMove;
+            long word = buffer.getLong(byteIndex);
+            buffer.putLong(byteIndex, (word & ~cover) | ((data << leftMove) & cover));
+            return;
+        }
+        while(bitLength > 0) {
+            int partBitLength = Math.min(8 - bitOffset, bitLength);
+            int leftMove = 8 - bitOffset - partBitLength;
+            int cover = ~(0xff << partBitLength) << leftMove;
+            int partBits = (int)(data >>> (bitLength - partBitLength)) << leftMove;
+            byte currentByte = buffer.get(byteIndex);
+            buffer.put(byteIndex, (byte)((currentByte & ~cover) | (partBits & cover)));
+            bitLength -= partBitLength;
+            bitOffset = 0;
+            byteIndex++;
         }
-        byte[] usedArray = Arrays.copyOfRange(buffer.array(), 0, bytePosition + 1);
-        usedArray[usedArray.length - 1] = (byte)(usedArray[usedArray.length - 1] &
-                PickBitsHelper.getCoverToPickBitsInByteLeft(positionInByte));
-        return usedArray;
     }
 
-    private int remainingBits(int fromBitPosition) {
-        int bytePosition = fromBitPosition >>> 3;
-        int remainingBytes = buffer.limit() - bytePosition;
-        return (remainingBytes << 3) - (fromBitPosition & 0x07) - voidBitsInLastByte;
+    /**
+     * Like {@link #putBitsAtMsbFirst(int, long, int)}, word is little-endian, right bit
+     * of data is put first.
+     */
+    private void putBitsAtLsbFirst(int bitIndex, long data, int bitLength) {
+        int byteIndex = bitIndex >>> 3;
+        int bitOffset = bitIndex & 0x07;
+        int tailBitLength = bitOffset + bitLength - 64;
+        if(tailBitLength > 0) {// last bits in the 9th byte
+            int headBitLength = bitLength - tailBitLength;
+            putBitsAtLsbFirst(bitIndex, data, headBitLength);
+            putBitsAtLsbFirst(bitIndex + headBitLength, data >>> headBitLength,
+                    tailBitLength);
+            return;
+        }
+        if(byteIndex + 8 <= buffer.limit()) {
+            long cover = (-1L >>> (64 - bitLength)) << bitOffset;
+            long word = buffer.getLong(byteIndex);
+            buffer.putLong(byteIndex, (word & ~cover) | ((data << bitOffset) & cover));
+            return;
+        }
+        while(bitLength > 0) {
+            int partBitLength = Math.min(8 - bitOffset, bitLength);
+            int cover = ~(0xff << partBitLength) << bitOffset;
+            int partBits = (int)data << bitOffset;
+            byte currentByte = buffer.get(byteIndex);
+            buffer.put(byteIndex, (byte)((currentByte & ~cover) | (partBits & cover)));
+            data >>>= partBitLength;
+            bitLength -= partBitLength;
+            bitOffset = 0;
+            byteIndex++;
+        }
+    }
+
+    /**
+     * Load 8 bytes from byteIndex in order of buffer, bytes after limit are 0.
+     */
+    private long loadWord(int byteIndex) {
+        int limit = buffer.limit();
+        if(byteIndex + 8 <= limit) {
+            return buffer.getLong(byteIndex);
+        }
+        long word = 0;
+        for(int i = 0; i < 8; i++) {
+            if(byteIndex + i < limit) {
+                long byteBits = buffer.get(byteIndex + i) & 0xff;
+                word |= lsbFirst ? byteBits << (i << 3) : byteBits << (56 - (i << 3));
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Expand growable buffer if have not enough bits from fromBitPosition.
+     */
+    void ensureRemaining(int fromBitPosition, int bitLength) {
+        if(!growable || remainingBits(fromBitPosition) >= bitLength) {
+            return;
+        }
+        long requiredBitLength = (long)fromBitPosition + bitLength;
+        long newBitLength = Math.max(requiredBitLength, (long)bitTotalLength << 1);
+        if(newBitLength > MAX_BIT_LENGTH) {
+            if(requiredBitLength > MAX_BIT_LENGTH) {
+                throw new BufferOverflowException();
+            }
+            newBitLength = MAX_BIT_LENGTH;
+        }
+        resize((int)((newBitLength + 7) >>> 3));
+        bitTotalLength = buffer.capacity() << 3;
+        voidBitsInLastByte = 0;
+    }
+
+    /**
+     * Copy content into a new buffer in byteLength, keep position and limit.
+     */
+    private void resize(int byteLength) {
+        ByteBuffer newBuffer = buffer.isDirect() ? ByteBuffer.allocateDirect(byteLength) :
+                ByteBuffer.allocate(byteLength);
+        newBuffer.order(buffer.order());
+        int position = buffer.position();
+        int limit = buffer.limit() == buffer.capacity() ? byteLength : buffer.limit();
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        source.limit(Math.min(source.capacity(), byteLength));
+        newBuffer.put(source);
+        newBuffer.limit(limit);
+        newBuffer.position(position);
+        buffer = newBuffer;
+    }
+
+    private int bitLimit() {
+        return (buffer.limit() << 3) - voidBitsInLastByte - bitOffset;
+    }
+
+    int bitPosition() {
+        return (buffer.position() << 3) + positionInByte - bitOffset;
+    }
+
+    void setBitPosition(int bitPosition) {
+        bitPosition += bitOffset;
+        buffer.position(bitPosition >>> 3);
+        positionInByte = bitPosition & 0x07;
+    }
+
+    int remainingBits(int fromBitPosition) {
+        return bitLimit() - fromBitPosition;
+    }
+
+    /**
+     * Bits got are kept in word, first bit is lowest bit, 1 bits are cleared from lowest
+     * bit when return.
+     */
+    private final class SetBitIterator implements PrimitiveIterator.OfInt {
+
+        private final int bitLimit;
+
+        private int wordBitIndex;
+
+        private int nextWordBitIndex;
+
+        private long word;
+
+        SetBitIterator(int fromBitIndex, int bitLimit) {
+            this.bitLimit = bitLimit;
+            this.nextWordBitIndex = fromBitIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(word == 0) {
+                if(nextWordBitIndex >= bitLimit) {
+                    return false;
+                }
+                int bitLength = Math.min(64, bitLimit - nextWordBitIndex);
+                long bits = getBitsAt(nextWordBitIndex, bitLength);
+                word = lsbFirst ? bits : Long.reverse(bits) >>> (64 - bitLength);
+                wordBitIndex = nextWordBitIndex;
+                nextWordBitIndex += bitLength;
+            }
+            return true;
+        }
+
+        @Override
+        public int nextInt() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int bitIndex = wordBitIndex + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return bitIndex;
+        }
+
     }
 
 }
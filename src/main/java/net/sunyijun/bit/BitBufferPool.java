@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Pool of writable {@link BitBuffer}s in one bit length, to reuse buffers instead of
+ * allocate one for every message.<br/>
+ * Every thread has its own buffers, at most maxPooledPerThread, so acquire and release
+ * need no lock. When a thread has no pooled buffer, a new one is allocated, counted as
+ * a miss.
+ * <p/>
+ * Example:<br/>
+ * BitBuffer buffer = pool.acquire();<br/>
+ * ...put bits and send...<br/>
+ * pool.release(buffer);
+ * <p/>
+ * A released buffer should not be used any more. Only buffers acquired from this pool
+ * and not released yet are kept, others are dropped and not changed, like views
+ * ({@link BitBuffer#slice(int, int)}, {@link BitBuffer#duplicate()}) of pooled buffers,
+ * buffers rewrapped by {@link BitBuffer#rewrap(byte[], int, int)} and buffers released
+ * twice.
+ *
+ * @author SunYiJun
+ */
+public final class BitBufferPool {
+
+    private final int bitLength;
+
+    private final BitOrder bitOrder;
+
+    private final int maxPooledPerThread;
+
+    private final ThreadLocal<PooledBuffers> pooledBuffers;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private BitBufferPool(int bitLength, BitOrder bitOrder, final int maxPooledPerThread) {
+        this.bitLength = bitLength;
+        this.bitOrder = bitOrder;
+        this.maxPooledPerThread = maxPooledPerThread;
+        this.pooledBuffers = new ThreadLocal<PooledBuffers>() {
+            @Override
+            protected PooledBuffers initialValue() {
+                return new PooledBuffers(maxPooledPerThread);
+            }
+        };
+    }
+
+    /**
+     * Create a pool of buffers in fixed bit length.
+     *
+     * @param bitLength          not byte count,1 byte have 8 bit length.
+     * @param maxPooledPerThread at most buffers kept for one thread.
+     */
+    public static BitBufferPool create(int bitLength, int maxPooledPerThread) {
+        return create(bitLength, maxPooledPerThread, BitOrder.MSB_FIRST);
+    }
+
+    /**
+     * Like {@link #create(int, int)}, bits are in bitOrder.
+     */
+    public static BitBufferPool create(int bitLength, int maxPooledPerThread,
+                                       BitOrder bitOrder) {
+        if(bitLength <= 0) {
+            throw new IllegalArgumentException("bitLength must larger than 0.");
+        }
+        if(maxPooledPerThread < 0) {
+            throw new IllegalArgumentException("maxPooledPerThread can't be negative.");
+        }
+        if(bitOrder == null) {
+            throw new IllegalArgumentException("bitOrder should not be null.");
+        }
+        return new BitBufferPool(bitLength, bitOrder, maxPooledPerThread);
+    }
+
+    /**
+     * Get a buffer pooled by current thread, or allocate a new one if have none.
+     * Position is 0, limit is bitLength, bits may be left by last user.
+     */
+    public BitBuffer acquire() {
+        PooledBuffers pooled = pooledBuffers.get();
+        if(pooled.count > 0) {
+            BitBuffer buffer = pooled.buffers[--pooled.count];
+            pooled.buffers[pooled.count] = null;
+            buffer.owner = this;
+            hitCount.increment();
+            return buffer;
+        }
+        missCount.increment();
+        BitBuffer buffer = BitBuffer.allocate(bitLength, bitOrder);
+        buffer.owner = this;
+        return buffer;
+    }
+
+    /**
+     * Clear buffer and keep it for current thread. If buffer is not acquired from this
+     * pool, or is rewrapped or released already, it is dropped and not changed. If current
+     * thread already keeps maxPooledPerThread buffers, it is dropped.
+     *
+     * @throws IllegalArgumentException buffer is null.
+     */
+    public void release(BitBuffer buffer) {
+        if(buffer == null) {
+            throw new IllegalArgumentException("buffer should not be null.");
+        }
+        if(buffer.owner != this) {
+            return;
+        }
+        buffer.owner = null;
+        PooledBuffers pooled = pooledBuffers.get();
+        if(pooled.count < maxPooledPerThread) {
+            pooled.buffers[pooled.count++] = buffer.clear();
+        }
+    }
+
+    /**
+     * Count of {@link #acquire()} got a pooled buffer.
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Count of {@link #acquire()} allocated a new buffer.
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public int bitLength() {
+        return bitLength;
+    }
+
+    /**
+     * Buffers kept for one thread, used as a stack.
+     */
+    private static final class PooledBuffers {
+
+        private final BitBuffer[] buffers;
+
+        private int count;
+
+        private PooledBuffers(int maxCount) {
+            buffers = new BitBuffer[maxCount];
+        }
+
+    }
+
+}
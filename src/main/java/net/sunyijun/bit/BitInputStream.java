@@ -0,0 +1,302 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+
+
+/**
+ * Read bits from an {@link InputStream} or a {@link ReadableByteChannel}.
+ * Get operate like {@link BitBuffer}, but have no capacity, bytes are read block by
+ * block into an internal buffer, so memory is constant however long the stream is.
+ * <p/>
+ * If stream have not enough bits to get, will throw {@link EOFException}, and no bit
+ * is got. Channel must be in blocking mode.
+ * <p/>
+ * {@link #getBytes(int)} of more bits than one block holds grows the block, so that
+ * all bits are read before any is got.
+ *
+ * @author SunYiJun
+ */
+public class BitInputStream extends InputStream {
+
+    static final int DEFAULT_BLOCK_SIZE = 8192;
+
+    private final InputStream in;
+
+    private final ReadableByteChannel channel;
+
+    private byte[] block;
+
+    private ByteBuffer blockBuffer;
+
+    private int blockPosition;
+
+    private int blockLimit;
+
+    /**
+     * Bits read from block but not got, right aligned.
+     */
+    private long cache;
+
+    private int cacheBitLength;
+
+    public BitInputStream(InputStream in) {
+        this(in, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize byte count read from stream one time.
+     */
+    public BitInputStream(InputStream in, int blockSize) {
+        this(in, null, blockSize);
+    }
+
+    /**
+     * @throws IllegalArgumentException channel is in non-blocking mode.
+     */
+    public BitInputStream(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize byte count read from channel one time.
+     * @throws IllegalArgumentException channel is in non-blocking mode.
+     */
+    public BitInputStream(ReadableByteChannel channel, int blockSize) {
+        this(null, channel, blockSize);
+    }
+
+    private BitInputStream(InputStream in, ReadableByteChannel channel, int blockSize) {
+        if(in == null && channel == null) {
+            throw new IllegalArgumentException("Source should not be null.");
+        }
+        if(channel instanceof SelectableChannel &&
+                !((SelectableChannel)channel).isBlocking()) {
+            throw new IllegalArgumentException(
+                    "Channel in non-blocking mode is not supported.");
+        }
+        if(blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must larger than 0.");
+        }
+        this.in = in;
+        this.channel = channel;
+        this.block = new byte[blockSize];
+        this.blockBuffer = channel == null ? null : ByteBuffer.wrap(block);
+    }
+
+    /**
+     * Get one byte(8 bits) from beginning.
+     *
+     * @throws EOFException have not enough bit to get.
+     */
+    public byte getByte() throws IOException {
+        return (byte)getBits(8);
+    }
+
+    /**
+     * Like {@link BitBuffer#getByte(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws EOFException             have not enough bit to get.
+     */
+    public byte getByte(int bitLength) throws IOException {
+        if(bitLength > 8) {
+            throw new IllegalArgumentException(
+                    "One byte have 8 bit, bitLength must not larger than 8.");
+        }
+        return (byte)getBits(bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getInt(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws EOFException             have not enough bit to get.
+     */
+    public int getInt(int bitLength) throws IOException {
+        if(bitLength > 32) {
+            throw new IllegalArgumentException(
+                    "One int have 32 bit, bitLength must not larger than 32.");
+        }
+        return (int)getBits(bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getLong(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws EOFException             have not enough bit to get.
+     */
+    public long getLong(int bitLength) throws IOException {
+        if(bitLength > 64) {
+            throw new IllegalArgumentException(
+                    "One long have 64 bit, bitLength must not larger than 64.");
+        }
+        if(bitLength > 56) {// cache can't hold 64 bits with not aligned bits
+            if(!hasBits(bitLength)) {
+                throw new EOFException();
+            }
+            long highPart = getBits(bitLength - 32);
+            return (highPart << 32) | (getBits(32) & 0xffffffffL);
+        }
+        return getBits(bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getBytes(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't be negative.
+     * @throws EOFException             have not enough bit to get.
+     */
+    public byte[] getBytes(int bitLength) throws IOException {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        byte[] bytes = new byte[(bitLength + 7) >>> 3];
+        if(bitLength == 0) {
+            return bytes;
+        }
+        if(!hasBits(bitLength)) {
+            throw new EOFException();
+        }
+        int bitLengthInFirstByte = (bitLength & 0x07) == 0 ? 8 : (bitLength & 0x07);
+        bytes[0] = (byte)getBits(bitLengthInFirstByte);
+        for(int i = 1; i < bytes.length; i++) {
+            bytes[i] = (byte)getBits(8);
+        }
+        return bytes;
+    }
+
+    /**
+     * Read next 8 bits, maybe not aligned with bytes in source.
+     *
+     * @return Next 8 bits, or -1 if have not enough bits.
+     */
+    @Override
+    public int read() throws IOException {
+        if(cacheBitLength < 8 && !fillCache(8)) {
+            return -1;
+        }
+        cacheBitLength -= 8;
+        return (int)(cache >>> cacheBitLength) & 0xff;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(in != null) {
+            in.close();
+        } else {
+            channel.close();
+        }
+    }
+
+    private long getBits(int bitLength) throws IOException {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(bitLength == 0) {
+            return 0;
+        }
+        if(cacheBitLength < bitLength && !fillCache(bitLength)) {
+            throw new EOFException();
+        }
+        cacheBitLength -= bitLength;
+        return (cache >>> cacheBitLength) & (-1L >>> (64 - bitLength));
+    }
+
+    /**
+     * Move bytes from block into cache until cache have more than 56 bits,
+     * read next block from source if block is used up.
+     *
+     * @return Whether cache have bitLength bits.
+     */
+    private boolean fillCache(int bitLength) throws IOException {
+        while(cacheBitLength <= 56) {
+            if(blockPosition == blockLimit && !readBlock()) {
+                break;
+            }
+            cache = (cache << 8) | (block[blockPosition++] & 0xff);
+            cacheBitLength += 8;
+        }
+        return cacheBitLength >= bitLength;
+    }
+
+    /**
+     * Whether cache and block have bitLength bits, bits are not got. Bytes not got are
+     * moved to beginning of block, block grows if it is full of them.
+     */
+    private boolean hasBits(int bitLength) throws IOException {
+        while(cacheBitLength + ((long)(blockLimit - blockPosition) << 3) < bitLength) {
+            if(blockLimit == block.length) {
+                int remaining = blockLimit - blockPosition;
+                byte[] source = block;
+                if(blockPosition == 0) {
+                    int needBytes = (bitLength - cacheBitLength + 7) >>> 3;
+                    block = new byte[Math.max(block.length << 1, needBytes)];
+                    blockBuffer = channel == null ? null : ByteBuffer.wrap(block);
+                }
+                System.arraycopy(source, blockPosition, block, 0, remaining);
+                blockPosition = 0;
+                blockLimit = remaining;
+            }
+            if(!readBlock()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read bytes from source after blockLimit, block is reused from beginning if all
+     * bytes in it are got.
+     *
+     * @return false if source is ended.
+     */
+    private boolean readBlock() throws IOException {
+        if(blockPosition == blockLimit) {
+            blockPosition = 0;
+            blockLimit = 0;
+        }
+        int readCount;
+        if(in != null) {
+            do {
+                readCount = in.read(block, blockLimit, block.length - blockLimit);
+            } while(readCount == 0);
+        } else {
+            blockBuffer.clear();
+            blockBuffer.position(blockLimit);
+            readCount = channel.read(blockBuffer);
+            if(readCount == 0) {
+                throw new IOException(
+                        "Channel read no byte, non-blocking mode is not supported.");
+            }
+        }
+        if(readCount < 0) {
+            return false;
+        }
+        blockLimit += readCount;
+        return true;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Bulk operations on whole bytes of arrays, used by {@link BitBuffer} when bits are
+ * aligned with bytes. This class is the scalar way for every JVM.
+ * <p/>
+ * On Java 17 or later, multi-release jar have a kernel in jdk.incubator.vector, it is
+ * used when JVM is started with "--add-modules jdk.incubator.vector". Start with
+ * "-Dnet.sunyijun.bit.vector=false" to always use scalar way.
+ *
+ * @author SunYiJun
+ */
+class BitKernel {
+
+    static final BitKernel SCALAR = new BitKernel();
+
+    static final BitKernel VECTOR = loadVectorKernel();
+
+    static final BitKernel INSTANCE = VECTOR != null &&
+            !"false".equals(System.getProperty("net.sunyijun.bit.vector")) ? VECTOR : SCALAR;
+
+    /**
+     * Put operation(in {@link BitBuffer#AND} and others) of length bytes of left and right
+     * into dest, right is not used by NOT. Dest can be same bytes of left or right.
+     */
+    void combine(int operation, byte[] left, int leftOffset, byte[] right, int rightOffset,
+                 byte[] dest, int destOffset, int length) {
+        switch(operation) {
+            case BitBuffer.AND:
+                for(int i = 0; i < length; i++) {
+                    dest[destOffset + i] = (byte)(left[leftOffset + i] & right[rightOffset + i]);
+                }
+                break;
+            case BitBuffer.OR:
+                for(int i = 0; i < length; i++) {
+                    dest[destOffset + i] = (byte)(left[leftOffset + i] | right[rightOffset + i]);
+                }
+                break;
+            case BitBuffer.XOR:
+                for(int i = 0; i < length; i++) {
+                    dest[destOffset + i] = (byte)(left[leftOffset + i] ^ right[rightOffset + i]);
+                }
+                break;
+            case BitBuffer.AND_NOT:
+                for(int i = 0; i < length; i++) {
+                    dest[destOffset + i] =
+                            (byte)(left[leftOffset + i] & ~right[rightOffset + i]);
+                }
+                break;
+            default:
+                for(int i = 0; i < length; i++) {
+                    dest[destOffset + i] = (byte)~left[leftOffset + i];
+                }
+        }
+    }
+
+    /**
+     * Count of 1 bits in length bytes from offset, 8 bytes are combined into one long and
+     * counted one time.
+     */
+    long bitCount(byte[] bytes, int offset, int length) {
+        long count = 0;
+        int end = offset + length;
+        for(; offset + 8 <= end; offset += 8) {
+            long word = 0;
+            for(int i = 0; i < 8; i++) {
+                word = (word << 8) | (bytes[offset + i] & 0xff);
+            }
+            count += Long.bitCount(word);
+        }
+        for(; offset < end; offset++) {
+            count += Integer.bitCount(bytes[offset] & 0xff);
+        }
+        return count;
+    }
+
+    /**
+     * Kernel class is only in versions/17 of multi-release jar, on old JVM it is not
+     * found. Without the module, or API of module is changed, check will fail.
+     *
+     * @return null if can't use.
+     */
+    private static BitKernel loadVectorKernel() {
+        try {
+            Class<?> kernelClass = Class.forName("net.sunyijun.bit.VectorBitKernel");
+            BitKernel kernel = (BitKernel)kernelClass.getDeclaredConstructor().newInstance();
+            return isSameAsScalar(kernel) ? kernel : null;
+        } catch(ReflectiveOperationException e) {
+            return null;
+        } catch(LinkageError e) {
+            return null;
+        } catch(RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isSameAsScalar(BitKernel kernel) {
+        byte[] left = new byte[200];
+        byte[] right = new byte[200];
+        for(int i = 0; i < left.length; i++) {
+            left[i] = (byte)(i * 31 + 7);
+            right[i] = (byte)(i * 17 + 3);
+        }
+        for(int operation = BitBuffer.AND; operation <= BitBuffer.NOT; operation++) {
+            byte[] expected = new byte[199];
+            byte[] actual = new byte[199];
+            SCALAR.combine(operation, left, 1, right, 0, expected, 0, 199);
+            kernel.combine(operation, left, 1, right, 0, actual, 0, 199);
+            if(!Arrays.equals(expected, actual)) {
+                return false;
+            }
+        }
+        return SCALAR.bitCount(left, 3, 197) == kernel.bitCount(left, 3, 197);
+    }
+
+}
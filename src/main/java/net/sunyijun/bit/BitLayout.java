@@ -0,0 +1,386 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Layout of fixed length records, every record is named bit fields one by one.
+ * <p/>
+ * Example:<br/>
+ * BitLayout layout = BitLayout.builder().field("version", 3).field("id", 13)
+ * .signedField("delta", 20).build();<br/>
+ * Record "010 0000000000101 11111111111111111110" is version 2, id 5, delta -2.
+ * <p/>
+ * When built, fields are planned into words, every word is at most 64 bits and got
+ * (or put) by one operate, then fields are split from word by precomputed shifts and
+ * covers. {@link #decode(BitBuffer, long[][], int, int)} get many records into one array
+ * for every field(columns), {@link #encode(long[][], int, int, BitBuffer)} put columns
+ * back.
+ * <p/>
+ * In {@link BitOrder#LSB_FIRST} buffer, every field is got and put like
+ * {@link BitBuffer#getLong(int)} in that order.
+ *
+ * @author SunYiJun
+ */
+public final class BitLayout {
+
+    private final String[] names;
+
+    private final int[] bitWidths;
+
+    private final boolean[] signed;
+
+    private final int recordBitLength;
+
+    private final long[] covers;
+
+    private final int[] msbShifts;
+
+    private final int[] lsbShifts;
+
+    private final int[] wordOffsets;
+
+    private final int[] wordBitLengths;
+
+    /**
+     * Fields of word i are from wordFieldStarts[i] to wordFieldStarts[i+1], word of
+     * skipped bits only have none.
+     */
+    private final int[] wordFieldStarts;
+
+    private BitLayout(List<String> nameList, List<Integer> bitWidthList,
+                      List<Boolean> signedList, List<Integer> offsetList,
+                      int recordBitLength) {
+        int fieldCount = nameList.size();
+        this.names = new String[fieldCount];
+        this.bitWidths = new int[fieldCount];
+        this.signed = new boolean[fieldCount];
+        this.recordBitLength = recordBitLength;
+        this.covers = new long[fieldCount];
+        this.msbShifts = new int[fieldCount];
+        this.lsbShifts = new int[fieldCount];
+        List<Integer> wordOffsetList = new ArrayList<Integer>();
+        List<Integer> wordBitLengthList = new ArrayList<Integer>();
+        List<Integer> wordFieldStartList = new ArrayList<Integer>();
+        int[] fieldWords = new int[fieldCount];
+        int wordOffset = 0;
+        int wordEnd = 0;
+        for(int i = 0; i < fieldCount; i++) {
+            names[i] = nameList.get(i);
+            bitWidths[i] = bitWidthList.get(i);
+            signed[i] = signedList.get(i);
+            covers[i] = -1L >>> (64 - bitWidths[i]);
+            int fieldEnd = offsetList.get(i) + bitWidths[i];
+            if(wordOffsetList.isEmpty() || fieldEnd - wordOffset > 64) {
+                if(!wordOffsetList.isEmpty()) {
+                    wordBitLengthList.add(wordEnd - wordOffset);
+                }
+                wordOffset = wordEnd;
+                while(fieldEnd - wordOffset > 64) {// skipped bits can't be in word of field
+                    int skipLength = Math.min(64, offsetList.get(i) - wordOffset);
+                    wordOffsetList.add(wordOffset);
+                    wordBitLengthList.add(skipLength);
+                    wordFieldStartList.add(i);
+                    wordOffset += skipLength;
+                }
+                wordOffsetList.add(wordOffset);
+                wordFieldStartList.add(i);
+            }
+            fieldWords[i] = wordOffsetList.size() - 1;
+            wordEnd = fieldEnd;
+        }
+        if(recordBitLength - wordOffset <= 64) {// skipped bits at end are in last word
+            wordEnd = recordBitLength;
+        }
+        wordBitLengthList.add(wordEnd - wordOffset);
+        for(; wordEnd < recordBitLength; wordEnd += 64) {
+            wordOffsetList.add(wordEnd);
+            wordBitLengthList.add(Math.min(64, recordBitLength - wordEnd));
+            wordFieldStartList.add(fieldCount);
+        }
+        wordFieldStartList.add(fieldCount);
+        this.wordOffsets = toArray(wordOffsetList);
+        this.wordBitLengths = toArray(wordBitLengthList);
+        this.wordFieldStarts = toArray(wordFieldStartList);
+        for(int i = 0; i < fieldCount; i++) {
+            int word = fieldWords[i];
+            int offsetInWord = offsetList.get(i) - wordOffsets[word];
+            msbShifts[i] = wordBitLengths[word] - offsetInWord - bitWidths[i];
+            lsbShifts[i] = offsetInWord;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Bit length of one record, include skipped bits.
+     */
+    public int recordBitLength() {
+        return recordBitLength;
+    }
+
+    public int fieldCount() {
+        return names.length;
+    }
+
+    /**
+     * Index of field named name, also index of its column. -1 if no such field.
+     */
+    public int fieldIndex(String name) {
+        for(int i = 0; i < names.length; i++) {
+            if(names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String fieldName(int fieldIndex) {
+        return names[fieldIndex];
+    }
+
+    public int fieldBitWidth(int fieldIndex) {
+        return bitWidths[fieldIndex];
+    }
+
+    /**
+     * Get recordCount records from buffer, field i of every record is put into
+     * columns[i] from offset. Column is null means field is not needed, words only
+     * have such fields are not got. Position of buffer increase
+     * recordCount*recordBitLength.
+     *
+     * @param columns one array for every field, in order of fields.
+     * @throws IllegalArgumentException count of columns is not count of fields.
+     * @throws IndexOutOfBoundsException a column have not enough length from offset.
+     * @throws BufferOverflowException  have not enough bits to get, position not change.
+     */
+    public void decode(BitBuffer buffer, long[][] columns, int offset, int recordCount) {
+        checkColumns(columns, offset, recordCount, false);
+        int bitPosition = buffer.bitPosition();
+        if(buffer.remainingBits() < (long)recordCount * recordBitLength) {
+            throw new BufferOverflowException();
+        }
+        int[] shifts = buffer.bitOrder() == BitOrder.LSB_FIRST ? lsbShifts : msbShifts;
+        boolean[] wordsUsed = new boolean[wordOffsets.length];
+        for(int word = 0; word < wordOffsets.length; word++) {
+            for(int i = wordFieldStarts[word]; i < wordFieldStarts[word + 1]; i++) {
+                wordsUsed[word] |= columns[i] != null;
+            }
+        }
+        int end = offset + recordCount;
+        for(int record = offset; record < end; record++) {
+            for(int word = 0; word < wordOffsets.length; word++) {
+                if(!wordsUsed[word]) {
+                    continue;
+                }
+                long bits = buffer.getBitsAt(bitPosition + wordOffsets[word],
+                        wordBitLengths[word]);
+                for(int i = wordFieldStarts[word]; i < wordFieldStarts[word + 1]; i++) {
+                    if(columns[i] == null) {
+                        continue;
+                    }
+                    long value = (bits >>> shifts[i]) & covers[i];
+                    if(signed[i]) {
+                        value = (value << (64 - bitWidths[i])) >> (64 - bitWidths[i]);
+                    }
+                    columns[i][record] = value;
+                }
+            }
+            bitPosition += recordBitLength;
+        }
+        buffer.setBitPosition(bitPosition);
+    }
+
+    /**
+     * Like {@link #decode(BitBuffer, long[][], int, int)}, columns of all fields are
+     * created.
+     */
+    public long[][] decode(BitBuffer buffer, int recordCount) {
+        if(recordCount < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        long[][] columns = new long[names.length][recordCount];
+        decode(buffer, columns, 0, recordCount);
+        return columns;
+    }
+
+    /**
+     * Put recordCount records into buffer, field i of every record is from columns[i]
+     * from offset. Only right bitWidth bits of value are put, skipped bits are put as 0.
+     * Position of buffer increase recordCount*recordBitLength.
+     *
+     * @param columns one array for every field, in order of fields.
+     * @throws IllegalArgumentException count of columns is not count of fields, or a
+     *                                  column is null.
+     * @throws IndexOutOfBoundsException a column have not enough length from offset.
+     * @throws BufferOverflowException  have not enough bits to put, position not change.
+     */
+    public void encode(long[][] columns, int offset, int recordCount, BitBuffer buffer) {
+        checkColumns(columns, offset, recordCount, true);
+        long bitLength = (long)recordCount * recordBitLength;
+        if(bitLength > Integer.MAX_VALUE) {
+            throw new BufferOverflowException();
+        }
+        int bitPosition = buffer.bitPosition();
+        buffer.ensureRemaining(bitPosition, (int)bitLength);
+        if(buffer.remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+        int[] shifts = buffer.bitOrder() == BitOrder.LSB_FIRST ? lsbShifts : msbShifts;
+        int end = offset + recordCount;
+        for(int record = offset; record < end; record++) {
+            for(int word = 0; word < wordOffsets.length; word++) {
+                long bits = 0;
+                for(int i = wordFieldStarts[word]; i < wordFieldStarts[word + 1]; i++) {
+                    bits |= (columns[i][record] & covers[i]) << shifts[i];
+                }
+                buffer.putBitsAt(bitPosition + wordOffsets[word], bits,
+                        wordBitLengths[word]);
+            }
+            bitPosition += recordBitLength;
+        }
+        buffer.setBitPosition(bitPosition);
+    }
+
+    private void checkColumns(long[][] columns, int offset, int recordCount,
+                              boolean allRequired) {
+        if(columns.length != names.length) {
+            throw new IllegalArgumentException(
+                    "Layout have " + names.length + " fields, columns must be same count.");
+        }
+        if(recordCount < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        for(int i = 0; i < columns.length; i++) {
+            if(columns[i] == null) {
+                if(allRequired) {
+                    throw new IllegalArgumentException(
+                            "Column of " + names[i] + " should not be null.");
+                }
+                continue;
+            }
+            if(offset < 0 || offset + recordCount > columns[i].length) {
+                throw new IndexOutOfBoundsException(
+                        "offset " + offset + ", length " + recordCount +
+                                " out of column " + names[i] + ".");
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for(int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Declare fields of a {@link BitLayout} in order of record.
+     */
+    public static final class Builder {
+
+        private final List<String> names = new ArrayList<String>();
+
+        private final List<Integer> bitWidths = new ArrayList<Integer>();
+
+        private final List<Boolean> signed = new ArrayList<Boolean>();
+
+        private final List<Integer> offsets = new ArrayList<Integer>();
+
+        private long recordBitLength;
+
+        private Builder() {
+        }
+
+        /**
+         * Add an unsigned field after last field.
+         *
+         * @param bitWidth 1~64.
+         * @throws IllegalArgumentException name is null or used, or bitWidth not in 1~64.
+         */
+        public Builder field(String name, int bitWidth) {
+            return addField(name, bitWidth, false);
+        }
+
+        /**
+         * Like {@link #field(String, int)}, but value is signed, highest bit of field is
+         * sign bit, like {@link BitBuffer#getSignedLong(int)}.
+         */
+        public Builder signedField(String name, int bitWidth) {
+            return addField(name, bitWidth, true);
+        }
+
+        /**
+         * Skip bitLength bits after last field, like reserved bits of a format.
+         *
+         * @throws IllegalArgumentException bitLength is negative.
+         */
+        public Builder skip(int bitLength) {
+            if(bitLength < 0) {
+                throw new IllegalArgumentException("Length can't be negative.");
+            }
+            return addBits(bitLength);
+        }
+
+        /**
+         * @throws IllegalArgumentException have no field.
+         */
+        public BitLayout build() {
+            if(names.isEmpty()) {
+                throw new IllegalArgumentException("Layout must have at least one field.");
+            }
+            return new BitLayout(names, bitWidths, signed, offsets, (int)recordBitLength);
+        }
+
+        private Builder addField(String name, int bitWidth, boolean isSigned) {
+            if(name == null) {
+                throw new IllegalArgumentException("name should not be null.");
+            }
+            if(names.contains(name)) {
+                throw new IllegalArgumentException("Field " + name + " is already added.");
+            }
+            if(bitWidth <= 0 || bitWidth > 64) {
+                throw new IllegalArgumentException("bitWidth must between 1 and 64.");
+            }
+            int offset = (int)recordBitLength;
+            addBits(bitWidth);
+            names.add(name);
+            bitWidths.add(bitWidth);
+            signed.add(isSigned);
+            offsets.add(offset);
+            return this;
+        }
+
+        private Builder addBits(int bitLength) {
+            if(recordBitLength + bitLength > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Record bit length is too large.");
+            }
+            recordBitLength += bitLength;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.nio.BufferOverflowException;
+
+
+/**
+ * Logical operations of bits from position to limit of buffers, result is put into a new
+ * buffer and sources not change. To operate in place, use {@link BitBuffer#and(BitBuffer)}
+ * and others. To operate part of bits, use {@link BitBuffer#slice(int, int)}.
+ * <p/>
+ * Result have same bit order as left, position is 0 and limit is bit count of left.
+ * Right can be in different bit order, its bits are got in order.
+ *
+ * @author SunYiJun
+ */
+public final class BitLogicHelper {
+
+    private BitLogicHelper() {
+    }
+
+    /**
+     * @throws IllegalArgumentException left have no remaining bits.
+     * @throws BufferOverflowException  right have less remaining bits than left.
+     */
+    public static BitBuffer and(BitBuffer left, BitBuffer right) {
+        return combine(BitBuffer.AND, left, right);
+    }
+
+    /**
+     * @throws IllegalArgumentException left have no remaining bits.
+     * @throws BufferOverflowException  right have less remaining bits than left.
+     */
+    public static BitBuffer or(BitBuffer left, BitBuffer right) {
+        return combine(BitBuffer.OR, left, right);
+    }
+
+    /**
+     * @throws IllegalArgumentException left have no remaining bits.
+     * @throws BufferOverflowException  right have less remaining bits than left.
+     */
+    public static BitBuffer xor(BitBuffer left, BitBuffer right) {
+        return combine(BitBuffer.XOR, left, right);
+    }
+
+    /**
+     * Bits of left, but bits which are 1 in right are 0.
+     *
+     * @throws IllegalArgumentException left have no remaining bits.
+     * @throws BufferOverflowException  right have less remaining bits than left.
+     */
+    public static BitBuffer andNot(BitBuffer left, BitBuffer right) {
+        return combine(BitBuffer.AND_NOT, left, right);
+    }
+
+    /**
+     * @throws IllegalArgumentException src have no remaining bits.
+     */
+    public static BitBuffer not(BitBuffer src) {
+        return combine(BitBuffer.NOT, src, src);
+    }
+
+    private static BitBuffer combine(int operation, BitBuffer left, BitBuffer right) {
+        int bitLength = left.remainingBits();
+        if(right.remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+        BitBuffer result = BitBuffer.allocate(bitLength, left.bitOrder());
+        result.combineBitsAt(operation, left, left.bitPosition(), right, right.bitPosition(),
+                0, bitLength);
+        return result;
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+/**
+ * Order of bits in a {@link BitBuffer}.
+ * <p/>
+ * Example:<br/>
+ * byte is "10001101", get 3 bits then 5 bits.
+ * In MSB_FIRST will get 100(4) and 01101(13).
+ * In LSB_FIRST will get 101(5) and 10001(17).
+ *
+ * @author SunYiJun
+ */
+public enum BitOrder {
+
+    /**
+     * First bit is the highest bit of byte, value is put from its highest bit.
+     * Default order.
+     */
+    MSB_FIRST,
+
+    /**
+     * First bit is the lowest bit of byte, value is put from its lowest bit.
+     * Order of DEFLATE and many bitmap formats.
+     */
+    LSB_FIRST
+
+}
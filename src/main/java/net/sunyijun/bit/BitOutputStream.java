@@ -0,0 +1,307 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+
+
+/**
+ * Write bits to an {@link OutputStream} or a {@link WritableByteChannel}.
+ * Put operate like {@link BitBuffer}, but have no capacity, bytes are collected in an
+ * internal block and written block by block, so memory is constant however long the
+ * stream is.
+ * <p/>
+ * {@link #flush()} only write whole bytes, bits not fill a byte are kept.
+ * {@link #close()} fill last byte with 0 bits and write it. Channel must be in blocking
+ * mode.
+ *
+ * @author SunYiJun
+ */
+public class BitOutputStream extends OutputStream {
+
+    private final OutputStream out;
+
+    private final WritableByteChannel channel;
+
+    private final byte[] block;
+
+    private final ByteBuffer blockBuffer;
+
+    private int blockPosition;
+
+    /**
+     * Bits not fill a byte, right aligned.
+     */
+    private long cache;
+
+    private int cacheBitLength;
+
+    public BitOutputStream(OutputStream out) {
+        this(out, BitInputStream.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize byte count written to stream one time.
+     */
+    public BitOutputStream(OutputStream out, int blockSize) {
+        this(out, null, blockSize);
+    }
+
+    /**
+     * @throws IllegalArgumentException channel is in non-blocking mode.
+     */
+    public BitOutputStream(WritableByteChannel channel) {
+        this(channel, BitInputStream.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize byte count written to channel one time.
+     * @throws IllegalArgumentException channel is in non-blocking mode.
+     */
+    public BitOutputStream(WritableByteChannel channel, int blockSize) {
+        this(null, channel, blockSize);
+    }
+
+    private BitOutputStream(OutputStream out, WritableByteChannel channel, int blockSize) {
+        if(out == null && channel == null) {
+            throw new IllegalArgumentException("Target should not be null.");
+        }
+        if(channel instanceof SelectableChannel &&
+                !((SelectableChannel)channel).isBlocking()) {
+            throw new IllegalArgumentException(
+                    "Channel in non-blocking mode is not supported.");
+        }
+        if(blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must larger than 0.");
+        }
+        this.out = out;
+        this.channel = channel;
+        this.block = new byte[blockSize];
+        this.blockBuffer = channel == null ? null : ByteBuffer.wrap(block);
+    }
+
+    /**
+     * Put one byte into stream.
+     *
+     * @return Current stream.
+     */
+    public BitOutputStream put(byte data) throws IOException {
+        putBits(data, 8);
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#put(byte, int)}.
+     *
+     * @return Current stream.
+     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     */
+    public BitOutputStream put(byte data, int bitLength) throws IOException {
+        if(bitLength > 8) {
+            throw new IllegalArgumentException(
+                    "One byte have 8 bit, bitLength must not larger than 8.");
+        }
+        putBits(data, bitLength);
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#put(short, int)}.
+     *
+     * @return Current stream.
+     * @throws IllegalArgumentException bitLength can't lager than 16 or be negative.
+     */
+    public BitOutputStream put(short data, int bitLength) throws IOException {
+        if(bitLength > 16) {
+            throw new IllegalArgumentException(
+                    "One short have 16 bit, bitLength must not larger than 16.");
+        }
+        putBits(data, bitLength);
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#put(int, int)}.
+     *
+     * @return Current stream.
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     */
+    public BitOutputStream put(int data, int bitLength) throws IOException {
+        if(bitLength > 32) {
+            throw new IllegalArgumentException(
+                    "One int have 32 bit, bitLength must not larger than 32.");
+        }
+        putBits(data, bitLength);
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#put(long, int)}.
+     *
+     * @return Current stream.
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     */
+    public BitOutputStream put(long data, int bitLength) throws IOException {
+        if(bitLength > 64) {
+            throw new IllegalArgumentException(
+                    "One long have 64 bit, bitLength must not larger than 64.");
+        }
+        if(bitLength > 56) {// cache can't hold 64 bits with not aligned bits
+            putBits(data >>> 32, bitLength - 32);
+            putBits(data, 32);
+        } else {
+            putBits(data, bitLength);
+        }
+        return this;
+    }
+
+    /**
+     * Put bits with byte array into stream.
+     *
+     * @return Current stream.
+     */
+    public BitOutputStream put(byte[] data) throws IOException {
+        write(data, 0, data.length);
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#put(byte[], int)}, from bytes left part bits.
+     *
+     * @return Current stream.
+     * @throws IllegalArgumentException bitLength can't lager than 8*data.length or be negative.
+     */
+    public BitOutputStream put(byte[] data, int bitLength) throws IOException {
+        if(bitLength > data.length << 3) {
+            throw new IllegalArgumentException(
+                    "Bytes have " + (data.length << 3) + " bits, " +
+                            "bitLength must not larger than that.");
+        }
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        int fullUsedByteLength = bitLength >>> 3;
+        write(data, 0, fullUsedByteLength);
+        int lastByteUsedBitLength = bitLength & 0x07;
+        if(lastByteUsedBitLength > 0) {
+            putBits((data[fullUsedByteLength] & 0xff) >>> (8 - lastByteUsedBitLength),
+                    lastByteUsedBitLength);
+        }
+        return this;
+    }
+
+    /**
+     * Write 8 bits, maybe not aligned with bytes in target.
+     */
+    @Override
+    public void write(int b) throws IOException {
+        putBits(b, 8);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if(cacheBitLength != 0) {
+            for(int i = off; i < off + len; i++) {
+                putBits(b[i], 8);
+            }
+            return;
+        }
+        while(len > 0) {// aligned, copy into block directly
+            int copyLength = Math.min(len, block.length - blockPosition);
+            System.arraycopy(b, off, block, blockPosition, copyLength);
+            blockPosition += copyLength;
+            off += copyLength;
+            len -= copyLength;
+            if(blockPosition == block.length) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * Write all whole bytes into target, bits not fill a byte are kept.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        if(out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Fill last byte with 0 bits, write all bytes and close target.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if(cacheBitLength > 0) {
+                putBits(0, 8 - cacheBitLength);
+            }
+            flush();
+        } finally {
+            if(out != null) {
+                out.close();
+            } else {
+                channel.close();
+            }
+        }
+    }
+
+    private void putBits(long data, int bitLength) throws IOException {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(bitLength == 0) {
+            return;
+        }
+        cache = (cache << bitLength) | (data & (-1L >>> (64 - bitLength)));
+        cacheBitLength += bitLength;
+        while(cacheBitLength >= 8) {
+            cacheBitLength -= 8;
+            block[blockPosition++] = (byte)(cache >>> cacheBitLength);
+            if(blockPosition == block.length) {
+                writeBlock();
+            }
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if(blockPosition == 0) {
+            return;
+        }
+        if(out != null) {
+            out.write(block, 0, blockPosition);
+        } else {
+            blockBuffer.clear();
+            blockBuffer.limit(blockPosition);
+            while(blockBuffer.hasRemaining()) {
+                if(channel.write(blockBuffer) == 0) {
+                    throw new IOException(
+                            "Channel wrote no byte, non-blocking mode is not supported.");
+                }
+            }
+        }
+        blockPosition = 0;
+    }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Fixed length bit array can be changed by many threads at the same time without lock.
+ * Bits are in longs of an {@link AtomicLongArray}, every change is a compare-and-set
+ * loop on one long, so changes of different bits in same long are never lost.
+ * <p/>
+ * Bit 0 is the highest bit of first long, same order as {@link BitBuffer} in
+ * {@link BitOrder#MSB_FIRST}, so a long is exported by one put.
+ * <p/>
+ * Field of bits is changed atomically when it is in one long(not cross index of
+ * multiple of 64), e.g. width 1,2,4,8,16,32 at index of multiple of width.
+ *
+ * @author SunYiJun
+ */
+public final class ConcurrentBitArray {
+
+    private final AtomicLongArray words;
+
+    private final int bitLength;
+
+    private ConcurrentBitArray(int bitLength) {
+        this.bitLength = bitLength;
+        this.words = new AtomicLongArray((int)(((long)bitLength + 63) >>> 6));
+    }
+
+    /**
+     * Create an array, all bits are 0.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     */
+    public static ConcurrentBitArray allocate(int bitLength) {
+        if(bitLength <= 0) {
+            throw new IllegalArgumentException("bitLength must larger than 0.");
+        }
+        return new ConcurrentBitArray(bitLength);
+    }
+
+    /**
+     * Create an array with bits of buffer from position to limit, position not change.
+     *
+     * @throws IllegalArgumentException buffer have no remaining bits.
+     */
+    public static ConcurrentBitArray copyOf(BitBuffer buffer) {
+        int bitPosition = buffer.bitPosition();
+        int bitLength = buffer.remainingBits();
+        ConcurrentBitArray array = allocate(bitLength);
+        boolean lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        for(int i = 0; i < array.words.length(); i++) {
+            int wordBitLength = Math.min(64, bitLength - (i << 6));
+            long bits = buffer.getBitsAt(bitPosition + (i << 6), wordBitLength);
+            array.words.set(i, lsbFirst ? Long.reverse(bits) :
+                    bits << (64 - wordBitLength));
+        }
+        return array;
+    }
+
+    public int bitLength() {
+        return bitLength;
+    }
+
+    /**
+     * @return Whether bit at bitIndex is 1.
+     * @throws IndexOutOfBoundsException bitIndex out of array.
+     */
+    public boolean get(int bitIndex) {
+        checkIndex(bitIndex);
+        return (words.get(bitIndex >>> 6) & (Long.MIN_VALUE >>> bitIndex)) != 0;
+    }
+
+    /**
+     * Set bit at bitIndex to 1.
+     *
+     * @return Whether bit is changed, false means bit is already 1.
+     * @throws IndexOutOfBoundsException bitIndex out of array.
+     */
+    public boolean set(int bitIndex) {
+        return !getAndSet(bitIndex, true);
+    }
+
+    /**
+     * Set bit at bitIndex to 0.
+     *
+     * @return Whether bit is changed, false means bit is already 0.
+     * @throws IndexOutOfBoundsException bitIndex out of array.
+     */
+    public boolean clear(int bitIndex) {
+        return getAndSet(bitIndex, false);
+    }
+
+    /**
+     * Set bit at bitIndex to value, like a test-and-set.
+     *
+     * @return Bit before set.
+     * @throws IndexOutOfBoundsException bitIndex out of array.
+     */
+    public boolean getAndSet(int bitIndex, boolean value) {
+        checkIndex(bitIndex);
+        long cover = Long.MIN_VALUE >>> bitIndex;
+        long oldWord = update(bitIndex >>> 6, cover, value ? cover : 0);
+        return (oldWord & cover) != 0;
+    }
+
+    /**
+     * Change bit at bitIndex, 0 to 1 and 1 to 0.
+     *
+     * @return Bit after flip.
+     * @throws IndexOutOfBoundsException bitIndex out of array.
+     */
+    public boolean flip(int bitIndex) {
+        checkIndex(bitIndex);
+        int wordIndex = bitIndex >>> 6;
+        long cover = Long.MIN_VALUE >>> bitIndex;
+        long oldWord;
+        do {
+            oldWord = words.get(wordIndex);
+        } while(!words.compareAndSet(wordIndex, oldWord, oldWord ^ cover));
+        return (oldWord & cover) == 0;
+    }
+
+    /**
+     * Get bitLength(1~64) bits from bitIndex, right aligned.
+     *
+     * @throws IllegalArgumentException  bitLength not in 1~64.
+     * @throws IndexOutOfBoundsException bits out of array.
+     */
+    public long getField(int bitIndex, int bitLength) {
+        checkField(bitIndex, bitLength);
+        int wordIndex = bitIndex >>> 6;
+        int bitOffset = bitIndex & 0x3f;
+        long bits = words.get(wordIndex) << bitOffset;
+        if(bitOffset + bitLength > 64) {
+            bits |= words.get(wordIndex + 1) >>> (64 - bitOffset);
+        }
+        return bits >>> (64 - bitLength);
+    }
+
+    /**
+     * Set bitLength(1~64) bits from bitIndex to right bits of value. Other bits in same
+     * long are not changed. If the bits cross two longs, every long is changed atomically
+     * but not both at the same time.
+     *
+     * @throws IllegalArgumentException  bitLength not in 1~64.
+     * @throws IndexOutOfBoundsException bits out of array.
+     */
+    public void putField(int bitIndex, long value, int bitLength) {
+        checkField(bitIndex, bitLength);
+        int wordIndex = bitIndex >>> 6;
+        int bitOffset = bitIndex & 0x3f;
+        int tailBitLength = bitOffset + bitLength - 64;
+        if(tailBitLength > 0) {
+            putField(bitIndex, value >>> tailBitLength, bitLength - tailBitLength);
+            putField(bitIndex + bitLength - tailBitLength, value, tailBitLength);
+            return;
+        }
+        int leftMove = 64 - bitOffset - bitLength;
+        long cover = (-1L >>> (64 - bitLength)) << leftMove;
+        update(wordIndex, cover, (value << leftMove) & cover);
+    }
+
+    /**
+     * Set bitLength bits from bitIndex to right bits of update, only if they are equal to
+     * right bits of expect now. The bits must be in one long.
+     *
+     * @return Whether bits are set.
+     * @throws IllegalArgumentException  bitLength not in 1~64, or bits cross two longs.
+     * @throws IndexOutOfBoundsException bits out of array.
+     */
+    public boolean compareAndSetField(int bitIndex, long expect, long update,
+                                      int bitLength) {
+        checkField(bitIndex, bitLength);
+        int wordIndex = bitIndex >>> 6;
+        int leftMove = 64 - (bitIndex & 0x3f) - bitLength;
+        if(leftMove < 0) {
+            throw new IllegalArgumentException("Bits cross two longs, can't set atomically.");
+        }
+        long cover = (-1L >>> (64 - bitLength)) << leftMove;
+        long expectBits = (expect << leftMove) & cover;
+        long updateBits = (update << leftMove) & cover;
+        long oldWord;
+        do {
+            oldWord = words.get(wordIndex);
+            if((oldWord & cover) != expectBits) {
+                return false;
+            }
+        } while(!words.compareAndSet(wordIndex, oldWord, (oldWord & ~cover) | updateBits));
+        return true;
+    }
+
+    /**
+     * Count of 1 bits. Longs are read one by one, not a snapshot of all bits when other
+     * threads are changing.
+     */
+    public int cardinality() {
+        int count = 0;
+        for(int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * Like {@link #toBitBuffer(BitOrder)}, in {@link BitOrder#MSB_FIRST}.
+     */
+    public BitBuffer toBitBuffer() {
+        return toBitBuffer(BitOrder.MSB_FIRST);
+    }
+
+    /**
+     * Copy all bits into a new buffer, position is 0 and limit is bitLength.
+     * Every long is read atomically and put one time, bits of different longs may be
+     * changed by other threads when copying.
+     */
+    public BitBuffer toBitBuffer(BitOrder bitOrder) {
+        BitBuffer buffer = BitBuffer.allocate(bitLength, bitOrder);
+        boolean lsbFirst = bitOrder == BitOrder.LSB_FIRST;
+        for(int i = 0; i < words.length(); i++) {
+            int wordBitLength = Math.min(64, bitLength - (i << 6));
+            long word = words.get(i);
+            buffer.putBitsAt(i << 6, lsbFirst ? Long.reverse(word) :
+                    word >>> (64 - wordBitLength), wordBitLength);
+        }
+        return buffer;
+    }
+
+    /**
+     * CAS loop to set covered bits of a long to bits, not write if they are already same.
+     *
+     * @return Long before change.
+     */
+    private long update(int wordIndex, long cover, long bits) {
+        long oldWord;
+        do {
+            oldWord = words.get(wordIndex);
+            if((oldWord & cover) == bits) {
+                return oldWord;
+            }
+        } while(!words.compareAndSet(wordIndex, oldWord, (oldWord & ~cover) | bits));
+        return oldWord;
+    }
+
+    private void checkIndex(int bitIndex) {
+        if(bitIndex < 0 || bitIndex >= bitLength) {
+            throw new IndexOutOfBoundsException(
+                    "Bit index " + bitIndex + " out of length " + bitLength + ".");
+        }
+    }
+
+    private void checkField(int bitIndex, int bitLength) {
+        if(bitLength <= 0 || bitLength > 64) {
+            throw new IllegalArgumentException("bitLength must between 1 and 64.");
+        }
+        if(bitIndex < 0 || (long)bitIndex + bitLength > this.bitLength) {
+            throw new IndexOutOfBoundsException(
+                    "Bit index " + bitIndex + ", length " + bitLength + " out of length " +
+                            this.bitLength + ".");
+        }
+    }
+
+}
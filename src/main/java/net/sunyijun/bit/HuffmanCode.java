@@ -0,0 +1,486 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.nio.BufferOverflowException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * Canonical Huffman code, symbols are 0 to symbolCount-1.
+ * Codes are assigned like DEFLATE(RFC 1951): shorter code first, same length in
+ * symbol order, so a code is defined by code length of every symbol.
+ * <p/>
+ * Example:<br/>
+ * code lengths {3,3,3,3,3,2,4,4} get codes
+ * {010,011,100,101,110,00,1110,1111}.
+ * <p/>
+ * Decode peek next bits of buffer in one time and look up a table of first 10 bits,
+ * longer codes look up one more sub table. So a symbol is got with one or two look up
+ * and one skip, not bit by bit.
+ * <p/>
+ * In {@link BitOrder#LSB_FIRST} buffer, first bit of code is still put first, like
+ * DEFLATE.
+ *
+ * @author SunYiJun
+ */
+public final class HuffmanCode {
+
+    /**
+     * Max code length, so codes of a symbol can be peeked in one time.
+     */
+    public static final int MAX_CODE_LENGTH = 24;
+
+    private static final int ROOT_TABLE_BITS = 10;
+
+    private static final int LENGTH_BITS = 6;
+
+    private static final int LENGTH_COVER = (1 << LENGTH_BITS) - 1;
+
+    private final int[] codeLengths;
+
+    private final int[] codes;
+
+    private final int[] reversedCodes;
+
+    private final int maxCodeLength;
+
+    private final int rootBits;
+
+    /**
+     * Root table then sub tables. Entry is symbol<<6|codeLength, or ~(subTableOffset<<6
+     * |subTableBits) to link a sub table, 0 means no code.
+     */
+    private final int[] table;
+
+    private HuffmanCode(int[] codeLengths) {
+        this.codeLengths = codeLengths;
+        this.codes = new int[codeLengths.length];
+        this.reversedCodes = new int[codeLengths.length];
+        int maxCodeLength = 0;
+        for(int codeLength : codeLengths) {
+            maxCodeLength = Math.max(maxCodeLength, codeLength);
+        }
+        this.maxCodeLength = maxCodeLength;
+        this.rootBits = Math.min(ROOT_TABLE_BITS, maxCodeLength);
+        assignCodes();
+        this.table = buildTable();
+    }
+
+    /**
+     * Create code by code length of every symbol, 0 means symbol have no code.
+     *
+     * @throws IllegalArgumentException code length not in 0~24, no symbol have code,
+     *                                  or too many short codes(not a prefix code).
+     */
+    public static HuffmanCode fromCodeLengths(int[] codeLengths) {
+        boolean hasCode = false;
+        for(int codeLength : codeLengths) {
+            if(codeLength < 0 || codeLength > MAX_CODE_LENGTH) {
+                throw new IllegalArgumentException(
+                        "Code length must between 0 and " + MAX_CODE_LENGTH + ".");
+            }
+            hasCode |= codeLength > 0;
+        }
+        if(!hasCode) {
+            throw new IllegalArgumentException("No symbol have code.");
+        }
+        return new HuffmanCode(codeLengths.clone());
+    }
+
+    /**
+     * Like {@link #fromFrequencies(long[], int)}, max code length is 24.
+     */
+    public static HuffmanCode fromFrequencies(long[] frequencies) {
+        return fromFrequencies(frequencies, MAX_CODE_LENGTH);
+    }
+
+    /**
+     * Create Huffman code by frequency of every symbol, symbol with frequency 0 have
+     * no code. If some code longer than maxCodeLength, long codes are moved up and some
+     * short codes are moved down, code is still optimal for lengths not larger than
+     * maxCodeLength in most case.
+     *
+     * @param maxCodeLength 1~24.
+     * @throws IllegalArgumentException frequency is negative, no symbol have frequency, or
+     *                                  symbols are too many for maxCodeLength.
+     */
+    public static HuffmanCode fromFrequencies(final long[] frequencies, int maxCodeLength) {
+        if(maxCodeLength <= 0 || maxCodeLength > MAX_CODE_LENGTH) {
+            throw new IllegalArgumentException(
+                    "maxCodeLength must between 1 and " + MAX_CODE_LENGTH + ".");
+        }
+        int leafCount = 0;
+        for(long frequency : frequencies) {
+            if(frequency < 0) {
+                throw new IllegalArgumentException("Frequency can't be negative.");
+            }
+            if(frequency > 0) {
+                leafCount++;
+            }
+        }
+        if(leafCount == 0) {
+            throw new IllegalArgumentException("No symbol have frequency.");
+        }
+        if(leafCount > 1L << maxCodeLength) {
+            throw new IllegalArgumentException(
+                    "Too many symbols for max code length " + maxCodeLength + ".");
+        }
+        Integer[] leaves = new Integer[leafCount];
+        for(int symbol = 0, i = 0; symbol < frequencies.length; symbol++) {
+            if(frequencies[symbol] > 0) {
+                leaves[i++] = symbol;
+            }
+        }
+        Arrays.sort(leaves, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer symbol1, Integer symbol2) {
+                int result = Long.compare(frequencies[symbol1], frequencies[symbol2]);
+                return result != 0 ? result : symbol1.compareTo(symbol2);
+            }
+        });
+        int[] codeLengths = new int[frequencies.length];
+        if(leafCount == 1) {
+            codeLengths[leaves[0]] = 1;
+            return new HuffmanCode(codeLengths);
+        }
+        int[] depths = buildDepths(frequencies, leaves);
+        int maxDepth = 0;
+        for(int depth : depths) {
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        int[] lengthCounts = new int[maxDepth + 1];
+        for(int depth : depths) {
+            lengthCounts[depth]++;
+        }
+        limitLengths(lengthCounts, maxCodeLength);
+        // most frequent symbols get shortest lengths
+        int length = 1;
+        for(int i = leafCount - 1; i >= 0; i--) {
+            while(lengthCounts[length] == 0) {
+                length++;
+            }
+            lengthCounts[length]--;
+            codeLengths[leaves[i]] = length;
+        }
+        return new HuffmanCode(codeLengths);
+    }
+
+    public int symbolCount() {
+        return codeLengths.length;
+    }
+
+    /**
+     * Returns code length of symbol, 0 means symbol have no code.
+     */
+    public int codeLength(int symbol) {
+        return codeLengths[symbol];
+    }
+
+    /**
+     * Returns code of symbol, right aligned, first bit of code is the highest bit.
+     */
+    public int code(int symbol) {
+        return codes[symbol];
+    }
+
+    public int[] codeLengths() {
+        return codeLengths.clone();
+    }
+
+    /**
+     * Put code of symbol into buffer.
+     *
+     * @throws IllegalArgumentException symbol have no code.
+     * @throws BufferOverflowException  have not enough bits to put.
+     */
+    public void encode(BitBuffer buffer, int symbol) {
+        int codeLength = checkSymbol(symbol);
+        buffer.put(buffer.bitOrder() == BitOrder.LSB_FIRST ? reversedCodes[symbol] :
+                codes[symbol], codeLength);
+    }
+
+    /**
+     * Put codes of length symbols from offset into buffer, codes are collected in a long
+     * and put 64 bits one time.
+     *
+     * @throws IllegalArgumentException some symbol have no code.
+     * @throws BufferOverflowException  have not enough bits to put, nothing is put.
+     */
+    public void encode(BitBuffer buffer, int[] symbols, int offset, int length) {
+        checkArrayRange(symbols.length, offset, length);
+        long bitLength = 0;
+        for(int i = offset; i < offset + length; i++) {
+            bitLength += checkSymbol(symbols[i]);
+        }
+        if(bitLength > Integer.MAX_VALUE) {
+            throw new BufferOverflowException();
+        }
+        int bitPosition = buffer.bitPosition();
+        buffer.ensureRemaining(bitPosition, (int)bitLength);
+        if(buffer.remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+        boolean lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        long bits = 0;
+        int bitCount = 0;
+        for(int i = offset; i < offset + length; i++) {
+            int symbol = symbols[i];
+            int codeLength = codeLengths[symbol];
+            if(bitCount + codeLength > 64) {
+                buffer.putBitsAt(bitPosition, bits, bitCount);
+                bitPosition += bitCount;
+                bits = 0;
+                bitCount = 0;
+            }
+            if(lsbFirst) {
+                bits |= (long)reversedCodes[symbol] << bitCount;
+            } else {
+                bits = (bits << codeLength) | codes[symbol];
+            }
+            bitCount += codeLength;
+        }
+        if(bitCount > 0) {
+            buffer.putBitsAt(bitPosition, bits, bitCount);
+            bitPosition += bitCount;
+        }
+        buffer.setBitPosition(bitPosition);
+    }
+
+    /**
+     * Get one symbol from buffer.
+     *
+     * @throws IllegalArgumentException bits are not a code.
+     * @throws BufferOverflowException  have not enough bits for a code, position not
+     *                                  change.
+     */
+    public int decode(BitBuffer buffer) {
+        int bitPosition = buffer.bitPosition();
+        int entry = lookUp(buffer, bitPosition, buffer.remainingBits());
+        buffer.setBitPosition(bitPosition + (entry & LENGTH_COVER));
+        return entry >>> LENGTH_BITS;
+    }
+
+    /**
+     * Get length symbols from buffer into symbols from offset.
+     *
+     * @throws IllegalArgumentException bits are not a code.
+     * @throws BufferOverflowException  have not enough bits for a code, position is after
+     *                                  last got symbol.
+     */
+    public void decode(BitBuffer buffer, int[] symbols, int offset, int length) {
+        checkArrayRange(symbols.length, offset, length);
+        int bitPosition = buffer.bitPosition();
+        int remainingBits = buffer.remainingBits();
+        try {
+            for(int i = offset; i < offset + length; i++) {
+                int entry = lookUp(buffer, bitPosition, remainingBits);
+                int codeLength = entry & LENGTH_COVER;
+                bitPosition += codeLength;
+                remainingBits -= codeLength;
+                symbols[i] = entry >>> LENGTH_BITS;
+            }
+        } finally {
+            buffer.setBitPosition(bitPosition);
+        }
+    }
+
+    /**
+     * Peek maxCodeLength bits from bitPosition, look up root table by first bits, then
+     * sub table if linked.
+     *
+     * @return table entry of the code.
+     */
+    private int lookUp(BitBuffer buffer, int bitPosition, int remainingBits) {
+        int windowBitLength = Math.min(remainingBits, maxCodeLength);
+        if(windowBitLength <= 0) {
+            throw new BufferOverflowException();
+        }
+        int window = (int)buffer.getBitsAt(bitPosition, windowBitLength);
+        if(buffer.bitOrder() == BitOrder.LSB_FIRST) {
+            window = Integer.reverse(window) >>> (32 - windowBitLength);
+        }
+        window <<= maxCodeLength - windowBitLength;
+        int entry = table[window >>> (maxCodeLength - rootBits)];
+        if(entry < 0) {
+            int link = ~entry;
+            int subTableBits = link & LENGTH_COVER;
+            int subIndex = (window >>> (maxCodeLength - rootBits - subTableBits)) &
+                    ((1 << subTableBits) - 1);
+            entry = table[(link >>> LENGTH_BITS) + subIndex];
+        }
+        int codeLength = entry & LENGTH_COVER;
+        if(codeLength > windowBitLength ||
+                (codeLength == 0 && windowBitLength < maxCodeLength)) {
+            throw new BufferOverflowException();
+        }
+        if(codeLength == 0) {
+            throw new IllegalArgumentException("Invalid code.");
+        }
+        return entry;
+    }
+
+    /**
+     * Build Huffman tree by merging two smallest nodes, leaves are sorted by frequency,
+     * merged nodes are created in frequency order too, so smallest is the head of leaves
+     * or head of merged nodes.
+     *
+     * @return depth of every leaf.
+     */
+    private static int[] buildDepths(long[] frequencies, Integer[] leaves) {
+        int leafCount = leaves.length;
+        int nodeCount = 2 * leafCount - 1;
+        long[] weights = new long[nodeCount];
+        int[] parents = new int[nodeCount];
+        for(int i = 0; i < leafCount; i++) {
+            weights[i] = frequencies[leaves[i]];
+        }
+        int leafIndex = 0;
+        int mergedIndex = leafCount;
+        for(int next = leafCount; next < nodeCount; next++) {
+            for(int child = 0; child < 2; child++) {
+                int smallest;
+                if(leafIndex < leafCount &&
+                        (mergedIndex >= next || weights[leafIndex] <= weights[mergedIndex])) {
+                    smallest = leafIndex++;
+                } else {
+                    smallest = mergedIndex++;
+                }
+                weights[next] += weights[smallest];
+                parents[smallest] = next;
+            }
+        }
+        int[] depths = new int[nodeCount];
+        for(int i = nodeCount - 2; i >= 0; i--) {
+            depths[i] = depths[parents[i]] + 1;
+        }
+        return Arrays.copyOf(depths, leafCount);
+    }
+
+    /**
+     * Move codes longer than maxCodeLength up. Two longest codes are replaced by one code
+     * one bit shorter, and a shorter code is split into two codes one bit longer
+     * (like JPEG Annex K.3).
+     */
+    private static void limitLengths(int[] lengthCounts, int maxCodeLength) {
+        for(int i = lengthCounts.length - 1; i > maxCodeLength; i--) {
+            while(lengthCounts[i] > 0) {
+                int j = i - 2;
+                while(lengthCounts[j] == 0) {
+                    j--;
+                }
+                lengthCounts[i] -= 2;
+                lengthCounts[i - 1]++;
+                lengthCounts[j + 1] += 2;
+                lengthCounts[j]--;
+            }
+        }
+    }
+
+    private void assignCodes() {
+        int[] lengthCounts = new int[maxCodeLength + 1];
+        for(int codeLength : codeLengths) {
+            lengthCounts[codeLength]++;
+        }
+        lengthCounts[0] = 0;
+        int[] nextCodes = new int[maxCodeLength + 1];
+        int code = 0;
+        long left = 1;
+        for(int length = 1; length <= maxCodeLength; length++) {
+            code = (code + lengthCounts[length - 1]) << 1;
+            nextCodes[length] = code;
+            left = (left << 1) - lengthCounts[length];
+            if(left < 0) {
+                throw new IllegalArgumentException(
+                        "Too many codes of length " + length + ", not a prefix code.");
+            }
+        }
+        for(int symbol = 0; symbol < codeLengths.length; symbol++) {
+            int codeLength = codeLengths[symbol];
+            if(codeLength > 0) {
+                codes[symbol] = nextCodes[codeLength]++;
+                reversedCodes[symbol] =
+                        Integer.reverse(codes[symbol]) >>> (32 - codeLength);
+            }
+        }
+    }
+
+    private int[] buildTable() {
+        int rootSize = 1 << rootBits;
+        // bit count of sub table for every root index
+        int[] subTableBits = new int[rootSize];
+        for(int symbol = 0; symbol < codeLengths.length; symbol++) {
+            int codeLength = codeLengths[symbol];
+            if(codeLength > rootBits) {
+                int rootIndex = codes[symbol] >>> (codeLength - rootBits);
+                subTableBits[rootIndex] =
+                        Math.max(subTableBits[rootIndex], codeLength - rootBits);
+            }
+        }
+        int tableSize = rootSize;
+        int[] subTableOffsets = new int[rootSize];
+        for(int i = 0; i < rootSize; i++) {
+            if(subTableBits[i] > 0) {
+                subTableOffsets[i] = tableSize;
+                tableSize += 1 << subTableBits[i];
+            }
+        }
+        int[] table = new int[tableSize];
+        for(int i = 0; i < rootSize; i++) {
+            if(subTableBits[i] > 0) {
+                table[i] = ~((subTableOffsets[i] << LENGTH_BITS) | subTableBits[i]);
+            }
+        }
+        for(int symbol = 0; symbol < codeLengths.length; symbol++) {
+            int codeLength = codeLengths[symbol];
+            if(codeLength == 0) {
+                continue;
+            }
+            int entry = (symbol << LENGTH_BITS) | codeLength;
+            int code = codes[symbol];
+            if(codeLength <= rootBits) {
+                int fillBits = rootBits - codeLength;
+                Arrays.fill(table, code << fillBits, (code + 1) << fillBits, entry);
+            } else {
+                int rootIndex = code >>> (codeLength - rootBits);
+                int subCode = code & ((1 << (codeLength - rootBits)) - 1);
+                int fillBits = subTableBits[rootIndex] - (codeLength - rootBits);
+                int start = subTableOffsets[rootIndex] + (subCode << fillBits);
+                Arrays.fill(table, start, start + (1 << fillBits), entry);
+            }
+        }
+        return table;
+    }
+
+    private int checkSymbol(int symbol) {
+        if(symbol < 0 || symbol >= codeLengths.length || codeLengths[symbol] == 0) {
+            throw new IllegalArgumentException("Symbol " + symbol + " have no code.");
+        }
+        return codeLengths[symbol];
+    }
+
+    private static void checkArrayRange(int arrayLength, int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > arrayLength) {
+            throw new IndexOutOfBoundsException(
+                    "offset " + offset + ", length " + length + " out of array length " +
+                            arrayLength + ".");
+        }
+    }
+
+}
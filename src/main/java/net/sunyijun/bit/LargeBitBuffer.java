@@ -0,0 +1,1178 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.InvalidMarkException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+
+/**
+ * To operate bits more than one {@link BitBuffer} can hold. All operate like
+ * {@link BitBuffer}, but bit index and length of buffer are long.<br/>
+ * Bytes are in a chain of byte buffers(chunks), 1GB every chunk. Bits in one chunk are
+ * read and written by one word like BitBuffer, bits cross chunks are read and written
+ * byte by byte like in one buffer.<br/>
+ * Use {@link #allocate(long)}, {@link #allocateDirect(long)} or
+ * {@link #wrap(ByteBuffer[])} to create buffer, {@link MappedBitBuffer} to operate a
+ * large file. Bits are in {@link BitOrder#MSB_FIRST} unless a bit order is given.
+ * <p/>
+ * Unlike BitBuffer, this buffer is not growable and have no view, bit logic is not
+ * supported.
+ *
+ * @author SunYiJun
+ */
+public class LargeBitBuffer {
+
+    static final int DEFAULT_CHUNK_SHIFT = 30;
+
+    /**
+     * Max bytes one byte array can hold in most JVM.
+     */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final ByteBuffer[] chunks;
+
+    private final int chunkShift;
+
+    private final long chunkMask;
+
+    private final long byteLength;
+
+    private final long bitCapacity;
+
+    private final boolean lsbFirst;
+
+    private long bitPosition;
+
+    private long bitLimit;
+
+    private long bitMark = -1;
+
+    LargeBitBuffer(ByteBuffer[] chunks, int chunkShift, long bitLength, BitOrder bitOrder) {
+        if(bitOrder == null) {
+            throw new IllegalArgumentException("bitOrder should not be null.");
+        }
+        this.lsbFirst = bitOrder == BitOrder.LSB_FIRST;
+        for(ByteBuffer chunk : chunks) {// words are little-endian for LSB_FIRST
+            chunk.order(lsbFirst ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        }
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.byteLength = (bitLength + 7) >>> 3;
+        this.bitCapacity = bitLength;
+        this.bitLimit = bitLength;
+    }
+
+    /**
+     * Create a buffer in fixed bit length, content is in byte arrays.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     */
+    public static LargeBitBuffer allocate(long bitLength) {
+        return allocate(bitLength, BitOrder.MSB_FIRST);
+    }
+
+    /**
+     * Like {@link #allocate(long)}, bits are in bitOrder.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     */
+    public static LargeBitBuffer allocate(long bitLength, BitOrder bitOrder) {
+        return allocate(bitLength, bitOrder, false, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Create a buffer in fixed bit length, content is in direct(off-heap) byte buffers.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     */
+    public static LargeBitBuffer allocateDirect(long bitLength) {
+        return allocateDirect(bitLength, BitOrder.MSB_FIRST);
+    }
+
+    /**
+     * Like {@link #allocateDirect(long)}, bits are in bitOrder.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     */
+    public static LargeBitBuffer allocateDirect(long bitLength, BitOrder bitOrder) {
+        return allocate(bitLength, bitOrder, true, DEFAULT_CHUNK_SHIFT);
+    }
+
+    static LargeBitBuffer allocate(long bitLength, BitOrder bitOrder, boolean direct,
+                                   int chunkShift) {
+        if(bitLength <= 0) {
+            throw new IllegalArgumentException("bitLength must larger than 0.");
+        }
+        long byteLength = (bitLength + 7) >>> 3;
+        long chunkSize = 1L << chunkShift;
+        ByteBuffer[] chunks = new ByteBuffer[(int)((byteLength + chunkSize - 1) >>> chunkShift)];
+        for(int i = 0; i < chunks.length; i++) {
+            int size = (int)Math.min(chunkSize, byteLength - ((long)i << chunkShift));
+            chunks[i] = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        }
+        return new LargeBitBuffer(chunks, chunkShift, bitLength, bitOrder);
+    }
+
+    /**
+     * Like {@link BitBuffer#wrap(ByteBuffer)}, one byte buffer is one chunk.
+     */
+    public static LargeBitBuffer wrap(ByteBuffer byteBuffer) {
+        return wrap(new ByteBuffer[]{ byteBuffer });
+    }
+
+    /**
+     * Like {@link #wrap(ByteBuffer)}, bits are in bitOrder.
+     */
+    public static LargeBitBuffer wrap(ByteBuffer byteBuffer, BitOrder bitOrder) {
+        return wrap(new ByteBuffer[]{ byteBuffer }, bitOrder);
+    }
+
+    /**
+     * Create a buffer share content with byteBuffers in turn, every one from its position
+     * to its limit. Changes of this buffer will be visible in byteBuffers, and vice versa.
+     * <br/> Every byte buffer is a chunk, so all except last must have same remaining
+     * bytes in power of 2, last one can have less.
+     */
+    public static LargeBitBuffer wrap(ByteBuffer[] byteBuffers) {
+        return wrap(byteBuffers, BitOrder.MSB_FIRST);
+    }
+
+    /**
+     * Like {@link #wrap(ByteBuffer[])}, bits are in bitOrder.
+     */
+    public static LargeBitBuffer wrap(ByteBuffer[] byteBuffers, BitOrder bitOrder) {
+        if(byteBuffers == null || byteBuffers.length == 0) {
+            throw new IllegalArgumentException("byteBuffers should not be null or empty.");
+        }
+        ByteBuffer[] chunks = new ByteBuffer[byteBuffers.length];
+        for(int i = 0; i < chunks.length; i++) {
+            if(byteBuffers[i] == null || !byteBuffers[i].hasRemaining()) {
+                throw new IllegalArgumentException("byteBuffer should not be null or empty.");
+            }
+            chunks[i] = byteBuffers[i].slice();
+        }
+        int chunkSize = chunks[0].capacity();
+        if(chunks.length == 1) {// any int size is in one chunk
+            return new LargeBitBuffer(chunks, 31, (long)chunkSize << 3, bitOrder);
+        }
+        long byteLength = 0;
+        for(int i = 0; i < chunks.length; i++) {
+            int size = chunks[i].capacity();
+            if(Integer.bitCount(chunkSize) != 1 ||
+                    (i < chunks.length - 1 ? size != chunkSize : size > chunkSize)) {
+                throw new IllegalArgumentException("Byte buffers except last should have " +
+                        "same remaining bytes in power of 2, last can have less.");
+            }
+            byteLength += size;
+        }
+        return new LargeBitBuffer(chunks, Integer.numberOfTrailingZeros(chunkSize),
+                byteLength << 3, bitOrder);
+    }
+
+    public BitOrder bitOrder() {
+        return lsbFirst ? BitOrder.LSB_FIRST : BitOrder.MSB_FIRST;
+    }
+
+    /**
+     * Like {@link BitBuffer#remainingBits()}.
+     */
+    public long remainingBits() {
+        return bitLimit - bitPosition;
+    }
+
+    /**
+     * Like {@link BitBuffer#position()}.
+     */
+    public long position() {
+        return bitPosition;
+    }
+
+    /**
+     * Like {@link BitBuffer#position(int)}, if mark is larger than newBitPosition, mark
+     * is discarded.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException newBitPosition is negative or larger than limit.
+     */
+    public LargeBitBuffer position(long newBitPosition) {
+        if(newBitPosition < 0 || newBitPosition > bitLimit) {
+            throw new IllegalArgumentException(
+                    "Bit position " + newBitPosition + " out of limit " + bitLimit + ".");
+        }
+        if(bitMark > newBitPosition) {
+            bitMark = -1;
+        }
+        bitPosition = newBitPosition;
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#mark()}.
+     *
+     * @return Current buffer.
+     */
+    public LargeBitBuffer mark() {
+        bitMark = bitPosition;
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#reset()}.
+     *
+     * @return Current buffer.
+     * @throws InvalidMarkException mark is not set.
+     */
+    public LargeBitBuffer reset() {
+        if(bitMark < 0) {
+            throw new InvalidMarkException();
+        }
+        bitPosition = bitMark;
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#skipBits(int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't be negative.
+     * @throws BufferOverflowException  have not enough bits to skip.
+     */
+    public LargeBitBuffer skipBits(long bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+        bitPosition += bitLength;
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#flip()}, mark is discarded.
+     *
+     * @return Current buffer.
+     */
+    public LargeBitBuffer flip() {
+        bitMark = -1;
+        bitLimit = bitPosition;
+        bitPosition = 0;
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#clear()}, position is 0, limit is capacity, mark is discarded.
+     * Bits are not cleared.
+     *
+     * @return Current buffer.
+     */
+    public LargeBitBuffer clear() {
+        bitMark = -1;
+        bitLimit = bitCapacity;
+        bitPosition = 0;
+        return this;
+    }
+
+    /**
+     * Get one byte(8 bits) from beginning.
+     *
+     * @throws BufferOverflowException have not enough bit to get.
+     */
+    public byte getByte() {
+        return getByte(8);
+    }
+
+    /**
+     * Like {@link BitBuffer#getByte(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public byte getByte(int bitLength) {
+        checkLength(bitLength, 8);
+        return (byte)getBits(bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getInt(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public int getInt(int bitLength) {
+        checkLength(bitLength, 32);
+        return (int)getBits(bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getLong(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public long getLong(int bitLength) {
+        checkLength(bitLength, 64);
+        return getBits(bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getSignedInt(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public int getSignedInt(int bitLength) {
+        checkLength(bitLength, 32);
+        return (int)getSignedLong(bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getSignedLong(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public long getSignedLong(int bitLength) {
+        checkLength(bitLength, 64);
+        if(bitLength == 0) {
+            return 0;
+        }
+        return (getBits(bitLength) << (64 - bitLength)) >> (64 - bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getZigZagInt(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public int getZigZagInt(int bitLength) {
+        checkLength(bitLength, 32);
+        return (int)getZigZagLong(bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getZigZagLong(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public long getZigZagLong(int bitLength) {
+        checkLength(bitLength, 64);
+        long bitData = getBits(bitLength);
+        return (bitData >>> 1) ^ -(bitData & 1);
+    }
+
+    /**
+     * Like {@link BitBuffer#peekInt(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public int peekInt(int bitLength) {
+        checkLength(bitLength, 32);
+        return (int)getBits(bitPosition, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#peekLong(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public long peekLong(int bitLength) {
+        checkLength(bitLength, 64);
+        return getBits(bitPosition, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getByte(int, int)}. This will not change position.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public byte getByte(long startBitIndex, int bitLength) {
+        checkLength(bitLength, 8);
+        return (byte)getBits(startBitIndex, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getInt(int, int)}. This will not change position.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public int getInt(long startBitIndex, int bitLength) {
+        checkLength(bitLength, 32);
+        return (int)getBits(startBitIndex, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getLong(int, int)}. This will not change position.
+     *
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public long getLong(long startBitIndex, int bitLength) {
+        checkLength(bitLength, 64);
+        return getBits(startBitIndex, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#getBytes(int)}.
+     *
+     * @throws IllegalArgumentException bitLength can't be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public byte[] getBytes(int bitLength) {
+        byte[] bytes = getBytes(bitPosition, bitLength);
+        bitPosition += bitLength;
+        return bytes;
+    }
+
+    /**
+     * Like {@link BitBuffer#getBytes(int, int)}. This will not change position.
+     * Aligned bytes are copied from chunks directly.
+     *
+     * @throws IllegalArgumentException bitLength can't be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public byte[] getBytes(long startBitIndex, int bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        checkRemaining(startBitIndex, bitLength);
+        byte[] bytes = new byte[(bitLength + 7) >>> 3];
+        if(bitLength == 0) {
+            return bytes;
+        }
+        int wholeByteLength = bitLength >>> 3;
+        int partBitLength = bitLength & 0x07;
+        if(lsbFirst) {// not whole byte bits are in right part of last byte
+            getWholeBytesAt(startBitIndex, bytes, 0, wholeByteLength);
+            if(partBitLength > 0) {
+                bytes[wholeByteLength] = (byte)getBitsAt(
+                        startBitIndex + ((long)wholeByteLength << 3), partBitLength);
+            }
+        } else if(partBitLength > 0) {
+            bytes[0] = (byte)getBitsAt(startBitIndex, partBitLength);
+            getWholeBytesAt(startBitIndex + partBitLength, bytes, 1, wholeByteLength);
+        } else {
+            getWholeBytesAt(startBitIndex, bytes, 0, wholeByteLength);
+        }
+        return bytes;
+    }
+
+    /**
+     * Like {@link BitBuffer#nextSetBit(int)}. This will not change position.
+     *
+     * @return -1 if have no 1 bit.
+     * @throws IllegalArgumentException fromBitIndex can't be negative.
+     */
+    public long nextSetBit(long fromBitIndex) {
+        return nextBit(fromBitIndex, false);
+    }
+
+    /**
+     * Like {@link #nextSetBit(long)}, find 0 bit.
+     *
+     * @return -1 if have no 0 bit.
+     * @throws IllegalArgumentException fromBitIndex can't be negative.
+     */
+    public long nextClearBit(long fromBitIndex) {
+        return nextBit(fromBitIndex, true);
+    }
+
+    private long nextBit(long fromBitIndex, boolean clear) {
+        if(fromBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        while(fromBitIndex < bitLimit) {
+            int bitLength = (int)Math.min(64, bitLimit - fromBitIndex);
+            long bits = getBitsAt(fromBitIndex, bitLength);
+            if(clear) {
+                bits = ~bits & (-1L >>> (64 - bitLength));
+            }
+            if(bits != 0) {
+                return fromBitIndex + (lsbFirst ? Long.numberOfTrailingZeros(bits) :
+                        Long.numberOfLeadingZeros(bits) - (64 - bitLength));
+            }
+            fromBitIndex += bitLength;
+        }
+        return -1;
+    }
+
+    /**
+     * Like {@link BitBuffer#previousSetBit(int)}. This will not change position.
+     *
+     * @return -1 if have no 1 bit, or fromBitIndex is -1.
+     * @throws IllegalArgumentException fromBitIndex less than -1.
+     */
+    public long previousSetBit(long fromBitIndex) {
+        if(fromBitIndex < -1) {
+            throw new IllegalArgumentException("Bit position can't less than -1.");
+        }
+        fromBitIndex = Math.min(fromBitIndex, bitLimit - 1);
+        while(fromBitIndex >= 0) {
+            int bitLength = (int)Math.min(64, fromBitIndex + 1);
+            long bits = getBitsAt(fromBitIndex + 1 - bitLength, bitLength);
+            if(bits != 0) {
+                return fromBitIndex - (lsbFirst ?
+                        Long.numberOfLeadingZeros(bits) - (64 - bitLength) :
+                        Long.numberOfTrailingZeros(bits));
+            }
+            fromBitIndex -= bitLength;
+        }
+        return -1;
+    }
+
+    /**
+     * Like {@link BitBuffer#cardinality(int, int)}. Whole bytes in heap chunks are counted
+     * by BitKernel, in direct chunks 8 bytes are counted one time.
+     *
+     * @throws IllegalArgumentException fromBitIndex can't be negative or larger than
+     *                                  toBitIndex.
+     * @throws BufferOverflowException  toBitIndex larger than limit.
+     */
+    public long cardinality(long fromBitIndex, long toBitIndex) {
+        if(fromBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(toBitIndex < fromBitIndex) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(toBitIndex > bitLimit) {
+            throw new BufferOverflowException();
+        }
+        long count = 0;
+        int headBitLength = (int)Math.min((8 - (fromBitIndex & 0x07)) & 0x07,
+                toBitIndex - fromBitIndex);
+        if(headBitLength > 0) {
+            count += Long.bitCount(getBitsAt(fromBitIndex, headBitLength));
+            fromBitIndex += headBitLength;
+        }
+        while(toBitIndex - fromBitIndex >= 8) {// whole bytes, chunk by chunk
+            long byteIndex = fromBitIndex >>> 3;
+            ByteBuffer chunk = chunks[(int)(byteIndex >>> chunkShift)];
+            int indexInChunk = (int)(byteIndex & chunkMask);
+            int byteCount = (int)Math.min(chunk.limit() - indexInChunk,
+                    (toBitIndex - fromBitIndex) >>> 3);
+            if(chunk.hasArray()) {
+                count += BitKernel.INSTANCE.bitCount(chunk.array(),
+                        chunk.arrayOffset() + indexInChunk, byteCount);
+            } else {
+                int end = indexInChunk + byteCount;
+                for(; indexInChunk + 8 <= end; indexInChunk += 8) {
+                    count += Long.bitCount(chunk.getLong(indexInChunk));
+                }
+                for(; indexInChunk < end; indexInChunk++) {
+                    count += Integer.bitCount(chunk.get(indexInChunk) & 0xff);
+                }
+            }
+            fromBitIndex += (long)byteCount << 3;
+        }
+        if(fromBitIndex < toBitIndex) {
+            count += Long.bitCount(getBitsAt(fromBitIndex, (int)(toBitIndex - fromBitIndex)));
+        }
+        return count;
+    }
+
+    /**
+     * Like {@link BitBuffer#setBitIterator(int)}, iterate long indexes of 1 bits.
+     * This will not change position.
+     *
+     * @throws IllegalArgumentException fromBitIndex can't be negative.
+     */
+    public PrimitiveIterator.OfLong setBitIterator(long fromBitIndex) {
+        if(fromBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        return new SetBitIterator(fromBitIndex, bitLimit);
+    }
+
+    /**
+     * Put one byte into buffer.
+     *
+     * @return Current buffer.
+     * @throws BufferOverflowException have not enough bit to get.
+     */
+    public LargeBitBuffer put(byte data) {
+        return put(data, 8);
+    }
+
+    /**
+     * Like {@link BitBuffer#put(byte, int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public LargeBitBuffer put(byte data, int bitLength) {
+        checkLength(bitLength, 8);
+        return putBits(data, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#put(short, int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 16 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public LargeBitBuffer put(short data, int bitLength) {
+        checkLength(bitLength, 16);
+        return putBits(data, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#put(int, int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 32 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public LargeBitBuffer put(int data, int bitLength) {
+        checkLength(bitLength, 32);
+        return putBits(data, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#put(long, int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public LargeBitBuffer put(long data, int bitLength) {
+        checkLength(bitLength, 64);
+        return putBits(data, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#put(byte, int, int)}. This will not change position.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 8 or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public LargeBitBuffer put(byte data, long putBitPosition, int bitLength) {
+        checkLength(bitLength, 8);
+        checkRemaining(putBitPosition, bitLength);
+        if(bitLength > 0) {
+            putBitsAt(putBitPosition, data, bitLength);
+        }
+        return this;
+    }
+
+    /**
+     * Put bits with byte array into buffer, from bytes left part bits.
+     *
+     * @return Current buffer.
+     * @throws BufferOverflowException have not enough bit to get.
+     */
+    public LargeBitBuffer put(byte[] data) {
+        return put(data, data.length << 3);
+    }
+
+    /**
+     * Like {@link BitBuffer#put(byte[], int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 8*data.length or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public LargeBitBuffer put(byte[] data, int bitLength) {
+        put(data, bitPosition, bitLength);
+        bitPosition += bitLength;
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#put(byte[], int, int)}. This will not change position.
+     * Aligned bytes are copied into chunks directly.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 8*data.length or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public LargeBitBuffer put(byte[] data, long putBitPosition, int bitLength) {
+        checkLength(data, bitLength);
+        checkRemaining(putBitPosition, bitLength);
+        int fullUsedByteLength = bitLength >>> 3;
+        putWholeBytesAt(putBitPosition, data, 0, fullUsedByteLength);
+        int lastByteUsedBitLength = bitLength & 0x07;
+        if(lastByteUsedBitLength > 0) {
+            int lastByte = data[fullUsedByteLength] & 0xff;
+            putBitsAt(putBitPosition + ((long)fullUsedByteLength << 3),
+                    lsbFirst ? lastByte : lastByte >>> (8 - lastByteUsedBitLength),
+                    lastByteUsedBitLength);
+        }
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#putRightPart(byte[], int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 8*data.length or be negative.
+     * @throws BufferOverflowException  have not enough bit to get.
+     */
+    public LargeBitBuffer putRightPart(byte[] data, int bitLength) {
+        checkLength(data, bitLength);
+        checkRemaining(bitPosition, bitLength);
+        long bitIndex = bitPosition;
+        int notFullUsedByteLength = data.length - (bitLength >>> 3);
+        int firstByteUsedBitLength = bitLength & 0x07;
+        if(lsbFirst) {
+            for(int i = data.length - 1; i >= notFullUsedByteLength; i--) {
+                putBitsAt(bitIndex, data[i], 8);
+                bitIndex += 8;
+            }
+            if(firstByteUsedBitLength != 0) {
+                putBitsAt(bitIndex, data[notFullUsedByteLength - 1], firstByteUsedBitLength);
+                bitIndex += firstByteUsedBitLength;
+            }
+        } else {
+            if(firstByteUsedBitLength != 0) {
+                putBitsAt(bitIndex, data[notFullUsedByteLength - 1], firstByteUsedBitLength);
+                bitIndex += firstByteUsedBitLength;
+            }
+            putWholeBytesAt(bitIndex, data, notFullUsedByteLength,
+                    data.length - notFullUsedByteLength);
+            bitIndex += (long)(data.length - notFullUsedByteLength) << 3;
+        }
+        bitPosition = bitIndex;
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#putSigned(long, int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative, data
+     *                                  not in range of bitLength bits signed integer.
+     * @throws BufferOverflowException  have not enough bit to put.
+     */
+    public LargeBitBuffer putSigned(long data, int bitLength) {
+        checkLength(bitLength, 64);
+        if(bitLength < 64 && bitLength > 0 && (data >> (bitLength - 1)) != (data >> 63)) {
+            throw new IllegalArgumentException(
+                    "Value " + data + " out of range of " + bitLength + " bits signed.");
+        }
+        if(bitLength == 0 && data != 0) {
+            throw new IllegalArgumentException("Value " + data + " out of range of 0 bits.");
+        }
+        return putBits(data, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#putZigZag(long, int)}.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't lager than 64 or be negative, zig-zag
+     *                                  encoded data have more than bitLength bits.
+     * @throws BufferOverflowException  have not enough bit to put.
+     */
+    public LargeBitBuffer putZigZag(long data, int bitLength) {
+        checkLength(bitLength, 64);
+        long zigZag = (data << 1) ^ (data >> 63);
+        if(bitLength < 64 && (zigZag >>> bitLength) != 0) {
+            throw new IllegalArgumentException(
+                    "Value " + data + " out of range of " + bitLength + " bits zig-zag.");
+        }
+        return putBits(zigZag, bitLength);
+    }
+
+    /**
+     * Like {@link BitBuffer#put(BitBuffer, int)}, position of src and this buffer both
+     * increase bitLength.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength can't be negative.
+     * @throws BufferOverflowException  src have not enough bits to get, or have not enough
+     *                                  bits to put.
+     */
+    public LargeBitBuffer put(BitBuffer src, int bitLength) {
+        int srcBitPosition = src.bitPosition();
+        put(src, srcBitPosition, bitPosition, bitLength);
+        src.setBitPosition(srcBitPosition + bitLength);
+        bitPosition += bitLength;
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#put(BitBuffer, int, int, int)}, 64 bits are got from src and
+     * put one time. If src have different bit order, bits are copied one by one in order.
+     * This will not change position of src and this buffer.
+     *
+     * @return Current buffer.
+     * @throws IllegalArgumentException bitLength or bit position can't be negative.
+     * @throws BufferOverflowException  src have not enough bits to get, or have not enough
+     *                                  bits to put.
+     */
+    public LargeBitBuffer put(BitBuffer src, int srcBitIndex, long putBitPosition,
+                              int bitLength) {
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(srcBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        checkRemaining(putBitPosition, bitLength);
+        if(src.remainingBits(srcBitIndex) < bitLength) {
+            throw new BufferOverflowException();
+        }
+        boolean reverse = src.bitOrder() != bitOrder();
+        while(bitLength > 0) {
+            int partBitLength = Math.min(64, bitLength);
+            long bits = src.getBitsAt(srcBitIndex, partBitLength);
+            if(reverse) {
+                bits = Long.reverse(bits) >>> (64 - partBitLength);
+            }
+            putBitsAt(putBitPosition, bits, partBitLength);
+            srcBitIndex += partBitLength;
+            putBitPosition += partBitLength;
+            bitLength -= partBitLength;
+        }
+        return this;
+    }
+
+    /**
+     * Like {@link BitBuffer#array()}, all bits in capacity are copied.
+     *
+     * @throws BufferOverflowException bits more than one byte array can hold.
+     */
+    public byte[] array() {
+        return copyFirstBits(bitCapacity);
+    }
+
+    /**
+     * Like {@link BitBuffer#getUsedArray()}, bits from 0 to position are copied.
+     *
+     * @throws BufferOverflowException bits more than one byte array can hold.
+     */
+    public byte[] getUsedArray() {
+        return copyFirstBits(bitPosition);
+    }
+
+    private byte[] copyFirstBits(long bitLength) {
+        if((bitLength + 7) >>> 3 > MAX_ARRAY_LENGTH) {
+            throw new BufferOverflowException();
+        }
+        int byteCount = (int)(bitLength >>> 3);
+        int bitsInLastByte = (int)(bitLength & 0x07);
+        byte[] bytes = new byte[(int)((bitLength + 7) >>> 3)];
+        getWholeBytesAt(0, bytes, 0, byteCount);
+        if(bitsInLastByte > 0) {
+            long lastBits = getBitsAt((long)byteCount << 3, bitsInLastByte);
+            bytes[byteCount] = (byte)(lsbFirst ? lastBits : lastBits << (8 - bitsInLastByte));
+        }
+        return bytes;
+    }
+
+    private long getBits(int bitLength) {
+        long bitData = getBits(bitPosition, bitLength);
+        bitPosition += bitLength;
+        return bitData;
+    }
+
+    private long getBits(long startBitIndex, int bitLength) {
+        checkRemaining(startBitIndex, bitLength);
+        if(bitLength == 0) {
+            return 0;
+        }
+        return getBitsAt(startBitIndex, bitLength);
+    }
+
+    private LargeBitBuffer putBits(long data, int bitLength) {
+        checkRemaining(bitPosition, bitLength);
+        if(bitLength > 0) {
+            putBitsAt(bitPosition, data, bitLength);
+            bitPosition += bitLength;
+        }
+        return this;
+    }
+
+    private static void checkLength(int bitLength, int maxBitLength) {
+        if(bitLength > maxBitLength) {
+            throw new IllegalArgumentException(
+                    "bitLength must not larger than " + maxBitLength + ".");
+        }
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+    }
+
+    private static void checkLength(byte[] data, int bitLength) {
+        if(bitLength > data.length << 3) {
+            throw new IllegalArgumentException(
+                    "Bytes have " + (data.length << 3) + " bits, " +
+                            "bitLength must not larger than that.");
+        }
+        if(bitLength < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+    }
+
+    private void checkRemaining(long startBitIndex, int bitLength) {
+        if(startBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(bitLimit - startBitIndex < bitLength) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    /**
+     * Get byteLength whole bytes from bitIndex into bytes from offset. Aligned bytes are
+     * copied from chunks, otherwise 64 bits are got and split one time.
+     */
+    private void getWholeBytesAt(long bitIndex, byte[] bytes, int offset, int byteLength) {
+        if((bitIndex & 0x07) == 0) {
+            long byteIndex = bitIndex >>> 3;
+            int end = offset + byteLength;
+            while(offset < end) {
+                ByteBuffer chunk = chunks[(int)(byteIndex >>> chunkShift)].duplicate();
+                chunk.position((int)(byteIndex & chunkMask));
+                int partLength = Math.min(chunk.remaining(), end - offset);
+                chunk.get(bytes, offset, partLength);
+                offset += partLength;
+                byteIndex += partLength;
+            }
+            return;
+        }
+        int end = offset + byteLength;
+        for(; offset + 8 <= end; offset += 8) {
+            long word = getBitsAt(bitIndex, 64);
+            for(int i = 0; i < 8; i++) {
+                int rightMove = lsbFirst ? i << 3 : 56 - (i << 3);
+                bytes[offset + i] = (byte)(word >>> rightMove);
+            }
+            bitIndex += 64;
+        }
+        for(; offset < end; offset++) {
+            bytes[offset] = (byte)getBitsAt(bitIndex, 8);
+            bitIndex += 8;
+        }
+    }
+
+    /**
+     * Put byteLength bytes of data from offset into bitIndex. Aligned bytes are copied
+     * into chunks, otherwise 8 bytes are combined and put one time.
+     */
+    private void putWholeBytesAt(long bitIndex, byte[] data, int offset, int byteLength) {
+        int end = offset + byteLength;
+        if((bitIndex & 0x07) == 0) {
+            long byteIndex = bitIndex >>> 3;
+            while(offset < end) {
+                ByteBuffer chunk = chunks[(int)(byteIndex >>> chunkShift)].duplicate();
+                chunk.position((int)(byteIndex & chunkMask));
+                int partLength = Math.min(chunk.remaining(), end - offset);
+                chunk.put(data, offset, partLength);
+                offset += partLength;
+                byteIndex += partLength;
+            }
+            return;
+        }
+        for(; offset + 8 <= end; offset += 8) {
+            long word = 0;
+            for(int i = 0; i < 8; i++) {
+                word = (word << 8) | (data[lsbFirst ? offset + 7 - i : offset + i] & 0xff);
+            }
+            putBitsAt(bitIndex, word, 64);
+            bitIndex += 64;
+        }
+        for(; offset < end; offset++) {
+            putBitsAt(bitIndex, data[offset], 8);
+            bitIndex += 8;
+        }
+    }
+
+    /**
+     * Like BitBuffer, read bitLength(1~64) bits from bitIndex, right aligned in a long.
+     */
+    private long getBitsAt(long bitIndex, int bitLength) {
+        long byteIndex = bitIndex >>> 3;
+        int bitOffset = (int)(bitIndex & 0x07);
+        if(lsbFirst) {
+            long word = loadWord(byteIndex) >>> bitOffset;
+            if(bitOffset + bitLength > 64) {
+                word |= (long)(getByteAt(byteIndex + 8) & 0xff) << (64 - bitOffset);
+            }
+            return word & (-1L >>> (64 - bitLength));
+        }
+        long word = loadWord(byteIndex) << bitOffset;
+        if(bitOffset + bitLength > 64) {
+            word |= (getByteAt(byteIndex + 8) & 0xff) >>> (8 - bitOffset);
+        }
+        return word >>> (64 - bitLength);
+    }
+
+    /**
+     * Like BitBuffer, write right bitLength(1~64) bits of data from bitIndex.
+     */
+    private void putBitsAt(long bitIndex, long data, int bitLength) {
+        if(lsbFirst) {
+            putBitsAtLsbFirst(bitIndex, data, bitLength);
+        } else {
+            putBitsAtMsbFirst(bitIndex, data, bitLength);
+        }
+    }
+
+    private void putBitsAtMsbFirst(long bitIndex, long data, int bitLength) {
+        long byteIndex = bitIndex >>> 3;
+        int bitOffset = (int)(bitIndex & 0x07);
+        int tailBitLength = bitOffset + bitLength - 64;
+        if(tailBitLength > 0) {// last bits in the 9th byte
+            putBitsAtMsbFirst(bitIndex, data >>> tailBitLength, bitLength - tailBitLength);
+            putBitsAtMsbFirst(bitIndex + bitLength - tailBitLength, data, tailBitLength);
+            return;
+        }
+        ByteBuffer chunk = chunks[(int)(byteIndex >>> chunkShift)];
+        int indexInChunk = (int)(byteIndex & chunkMask);
+        if(indexInChunk + 8 <= chunk.limit()) {
+            int leftMove = 64 - bitOffset - bitLength;
+            long cover = (-1L >>> (64 - bitLength)) << leftMove;
+            long word = chunk.getLong(indexInChunk);
+            chunk.putLong(indexInChunk, (word & ~cover) | ((data << leftMove) & cover));
+            return;
+        }
+        while(bitLength > 0) {// near chunk end, maybe cross chunks
+            int partBitLength = Math.min(8 - bitOffset, bitLength);
+            int leftMove = 8 - bitOffset - partBitLength;
+            int cover = ~(0xff << partBitLength) << leftMove;
+            int partBits = (int)(data >>> (bitLength - partBitLength)) << leftMove;
+            byte currentByte = getByteAt(byteIndex);
+            putByteAt(byteIndex, (byte)((currentByte & ~cover) | (partBits & cover)));
+            bitLength -= partBitLength;
+            bitOffset = 0;
+            byteIndex++;
+        }
+    }
+
+    private void putBitsAtLsbFirst(long bitIndex, long data, int bitLength) {
+        long byteIndex = bitIndex >>> 3;
+        int bitOffset = (int)(bitIndex & 0x07);
+        int tailBitLength = bitOffset + bitLength - 64;
+        if(tailBitLength > 0) {// last bits in the 9th byte
+            int headBitLength = bitLength - tailBitLength;
+            putBitsAtLsbFirst(bitIndex, data, headBitLength);
+            putBitsAtLsbFirst(bitIndex + headBitLength, data >>> headBitLength,
+                    tailBitLength);
+            return;
+        }
+        ByteBuffer chunk = chunks[(int)(byteIndex >>> chunkShift)];
+        int indexInChunk = (int)(byteIndex & chunkMask);
+        if(indexInChunk + 8 <= chunk.limit()) {
+            long cover = (-1L >>> (64 - bitLength)) << bitOffset;
+            long word = chunk.getLong(indexInChunk);
+            chunk.putLong(indexInChunk, (word & ~cover) | ((data << bitOffset) & cover));
+            return;
+        }
+        while(bitLength > 0) {// near chunk end, maybe cross chunks
+            int partBitLength = Math.min(8 - bitOffset, bitLength);
+            int cover = ~(0xff << partBitLength) << bitOffset;
+            int partBits = (int)data << bitOffset;
+            byte currentByte = getByteAt(byteIndex);
+            putByteAt(byteIndex, (byte)((currentByte & ~cover) | (partBits & cover)));
+            data >>>= partBitLength;
+            bitLength -= partBitLength;
+            bitOffset = 0;
+            byteIndex++;
+        }
+    }
+
+    /**
+     * Load 8 bytes from byteIndex in order of chunks, bytes after end are 0.
+     */
+    private long loadWord(long byteIndex) {
+        ByteBuffer chunk = chunks[(int)(byteIndex >>> chunkShift)];
+        int indexInChunk = (int)(byteIndex & chunkMask);
+        if(indexInChunk + 8 <= chunk.limit()) {
+            return chunk.getLong(indexInChunk);
+        }
+        long word = 0;
+        for(int i = 0; i < 8; i++) {// near chunk end, maybe cross chunks
+            if(byteIndex + i < byteLength) {
+                long byteBits = getByteAt(byteIndex + i) & 0xff;
+                word |= lsbFirst ? byteBits << (i << 3) : byteBits << (56 - (i << 3));
+            }
+        }
+        return word;
+    }
+
+    private byte getByteAt(long byteIndex) {
+        return chunks[(int)(byteIndex >>> chunkShift)].get((int)(byteIndex & chunkMask));
+    }
+
+    private void putByteAt(long byteIndex, byte data) {
+        chunks[(int)(byteIndex >>> chunkShift)].put((int)(byteIndex & chunkMask), data);
+    }
+
+    /**
+     * Like iterator of BitBuffer, 64 bits are got one time, lowest bit of word is first.
+     */
+    private final class SetBitIterator implements PrimitiveIterator.OfLong {
+
+        private final long bitLimit;
+
+        private long wordBitIndex;
+
+        private long nextWordBitIndex;
+
+        private long word;
+
+        SetBitIterator(long fromBitIndex, long bitLimit) {
+            this.bitLimit = bitLimit;
+            this.nextWordBitIndex = fromBitIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(word == 0) {
+                if(nextWordBitIndex >= bitLimit) {
+                    return false;
+                }
+                int bitLength = (int)Math.min(64, bitLimit - nextWordBitIndex);
+                long bits = getBitsAt(nextWordBitIndex, bitLength);
+                word = lsbFirst ? bits : Long.reverse(bits) >>> (64 - bitLength);
+                wordBitIndex = nextWordBitIndex;
+                nextWordBitIndex += bitLength;
+            }
+            return true;
+        }
+
+        @Override
+        public long nextLong() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long bitIndex = wordBitIndex + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return bitIndex;
+        }
+
+    }
+
+}
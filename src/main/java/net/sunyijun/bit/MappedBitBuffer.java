@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * To operate a file in binary, file is mapped into memory by {@link FileChannel#map}.
+ * All operate like {@link LargeBitBuffer}, so file can larger than 256MB.<br/>
+ * One mapped region can't larger than 2GB, so the file is mapped as a chain of regions,
+ * every region is a chunk of LargeBitBuffer.<br/>
+ * Use {@link #map(File)}, {@link #create(File, long)} or
+ * {@link #map(FileChannel, FileChannel.MapMode, long, long)} to create buffer.
+ * Bits are in {@link BitOrder#MSB_FIRST}.
+ *
+ * @author SunYiJun
+ */
+public class MappedBitBuffer extends LargeBitBuffer {
+
+    static final int DEFAULT_REGION_SHIFT = DEFAULT_CHUNK_SHIFT;
+
+    private final MappedByteBuffer[] regions;
+
+    private MappedBitBuffer(MappedByteBuffer[] regions, int regionShift, long bitLength) {
+        super(regions, regionShift, bitLength, BitOrder.MSB_FIRST);
+        this.regions = regions;
+    }
+
+    /**
+     * Map whole file in read only mode.
+     */
+    public static MappedBitBuffer map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return map(channel, FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Create(or truncate) file in fixed bit length, and map it in read write mode.
+     * Bits put in buffer will be written into file by operating system,
+     * call {@link #force()} to write immediately.
+     *
+     * @param bitLength not byte count,1 byte have 8 bit length.
+     */
+    public static MappedBitBuffer create(File file, long bitLength) throws IOException {
+        if(bitLength <= 0) {
+            throw new IllegalArgumentException("bitLength must larger than 0.");
+        }
+        long byteLength = (bitLength + 7) >>> 3;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(byteLength);
+            return map(randomAccessFile.getChannel(), FileChannel.MapMode.READ_WRITE, 0,
+                    byteLength, DEFAULT_REGION_SHIFT, bitLength);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Map byteSize bytes of file from position. Channel can be closed after mapped.
+     *
+     * @see FileChannel#map(FileChannel.MapMode, long, long)
+     */
+    public static MappedBitBuffer map(FileChannel channel, FileChannel.MapMode mode,
+                                      long position, long byteSize) throws IOException {
+        return map(channel, mode, position, byteSize, DEFAULT_REGION_SHIFT);
+    }
+
+    static MappedBitBuffer map(FileChannel channel, FileChannel.MapMode mode, long position,
+                               long byteSize, int regionShift) throws IOException {
+        return map(channel, mode, position, byteSize, regionShift, byteSize << 3);
+    }
+
+    private static MappedBitBuffer map(FileChannel channel, FileChannel.MapMode mode,
+                                       long position, long byteSize, int regionShift,
+                                       long bitLength) throws IOException {
+        if(byteSize <= 0) {
+            throw new IllegalArgumentException("byteSize must larger than 0.");
+        }
+        if(position < 0) {
+            throw new IllegalArgumentException("Position can't be negative.");
+        }
+        long regionSize = 1L << regionShift;
+        int regionCount = (int)((byteSize + regionSize - 1) >>> regionShift);
+        MappedByteBuffer[] regions = new MappedByteBuffer[regionCount];
+        for(int i = 0; i < regionCount; i++) {
+            long regionStart = (long)i << regionShift;
+            regions[i] = channel.map(mode, position + regionStart,
+                    Math.min(regionSize, byteSize - regionStart));
+        }
+        return new MappedBitBuffer(regions, regionShift, bitLength);
+    }
+
+    /**
+     * Write changed content into file.
+     *
+     * @see MappedByteBuffer#force()
+     */
+    public void force() {
+        for(MappedByteBuffer region : regions) {
+            region.force();
+        }
+    }
+
+    @Override
+    public MappedBitBuffer position(long newBitPosition) {
+        super.position(newBitPosition);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer skipBits(long bitLength) {
+        super.skipBits(bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer mark() {
+        super.mark();
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer reset() {
+        super.reset();
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer flip() {
+        super.flip();
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer clear() {
+        super.clear();
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(byte data) {
+        super.put(data);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(byte data, int bitLength) {
+        super.put(data, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(short data, int bitLength) {
+        super.put(data, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(int data, int bitLength) {
+        super.put(data, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(long data, int bitLength) {
+        super.put(data, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(byte data, long putBitPosition, int bitLength) {
+        super.put(data, putBitPosition, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(byte[] data) {
+        super.put(data);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(byte[] data, int bitLength) {
+        super.put(data, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(byte[] data, long putBitPosition, int bitLength) {
+        super.put(data, putBitPosition, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer putRightPart(byte[] data, int bitLength) {
+        super.putRightPart(data, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer putSigned(long data, int bitLength) {
+        super.putSigned(data, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer putZigZag(long data, int bitLength) {
+        super.putZigZag(data, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(BitBuffer src, int bitLength) {
+        super.put(src, bitLength);
+        return this;
+    }
+
+    @Override
+    public MappedBitBuffer put(BitBuffer src, int srcBitIndex, long putBitPosition,
+                               int bitLength) {
+        super.put(src, srcBitIndex, putBitPosition, bitLength);
+        return this;
+    }
+
+}
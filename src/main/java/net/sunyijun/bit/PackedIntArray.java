@@ -0,0 +1,854 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.nio.BufferOverflowException;
+
+
+/**
+ * Array of unsigned integers, every integer use fixed bit width, stored one by one in a
+ * {@link BitBuffer}.
+ * <p/>
+ * Example:<br/>
+ * bitWidth is 3, values {1, 6, 3} stored as "001 110 011".
+ * <p/>
+ * Static encode and decode methods put and get many values in a bit buffer one time.
+ * As many values as one long can hold are packed into one word, then the word is put
+ * (or got) by one operate. So width divide 64 (1,2,4,8,16,32) use all bits of word,
+ * these widths have their own kernels with constant shifts.
+ * Values larger than width are truncated, only right bitWidth bits are put.
+ * <p/>
+ * In {@link BitOrder#LSB_FIRST} buffer, first value is in right bits of word.
+ *
+ * @author SunYiJun
+ */
+public final class PackedIntArray {
+
+    private final BitBuffer buffer;
+
+    private final int startBitIndex;
+
+    private final int length;
+
+    private final int bitWidth;
+
+    private PackedIntArray(BitBuffer buffer, int startBitIndex, int length, int bitWidth) {
+        this.buffer = buffer;
+        this.startBitIndex = startBitIndex;
+        this.length = length;
+        this.bitWidth = bitWidth;
+    }
+
+    /**
+     * Create an array, all values are 0.
+     *
+     * @param bitWidth bit count of every value, 1~64.
+     */
+    public static PackedIntArray allocate(int length, int bitWidth) {
+        checkBitWidth(bitWidth, 64);
+        if(length <= 0) {
+            throw new IllegalArgumentException("length must larger than 0.");
+        }
+        long bitLength = (long)length * bitWidth;
+        if(bitLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Total bit length is too large.");
+        }
+        return new PackedIntArray(BitBuffer.allocate((int)bitLength), 0, length, bitWidth);
+    }
+
+    /**
+     * Create an array share content with buffer, values start from startBitIndex.
+     *
+     * @param bitWidth bit count of every value, 1~64.
+     * @throws BufferOverflowException buffer have not enough bits for length values.
+     */
+    public static PackedIntArray wrap(BitBuffer buffer, int startBitIndex, int length,
+                                      int bitWidth) {
+        checkBitWidth(bitWidth, 64);
+        if(length < 0) {
+            throw new IllegalArgumentException("Length can't be negative.");
+        }
+        if(startBitIndex < 0) {
+            throw new IllegalArgumentException("Bit position can't be negative.");
+        }
+        if(buffer.remainingBits(startBitIndex) < (long)length * bitWidth) {
+            throw new BufferOverflowException();
+        }
+        return new PackedIntArray(buffer, startBitIndex, length, bitWidth);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int bitWidth() {
+        return bitWidth;
+    }
+
+    /**
+     * Returns the buffer that backs this array.
+     */
+    public BitBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Get value at index.
+     *
+     * @throws IndexOutOfBoundsException index is negative or not less than length.
+     */
+    public long get(int index) {
+        checkIndex(index);
+        return buffer.getBitsAt(startBitIndex + index * bitWidth, bitWidth);
+    }
+
+    /**
+     * Set value at index, only right bitWidth bits of value are used.
+     *
+     * @throws IndexOutOfBoundsException index is negative or not less than length.
+     */
+    public void set(int index, long value) {
+        checkIndex(index);
+        buffer.putBitsAt(startBitIndex + index * bitWidth, value, bitWidth);
+    }
+
+    /**
+     * Get length values from index into values, from offset.
+     *
+     * @throws IndexOutOfBoundsException index range out of this array.
+     */
+    public void get(int index, long[] values, int offset, int length) {
+        checkRange(index, length);
+        decodeAt(buffer, startBitIndex + index * bitWidth, bitWidth, values, offset, length);
+    }
+
+    /**
+     * Set length values from offset of values into this array from index.
+     *
+     * @throws IndexOutOfBoundsException index range out of this array.
+     */
+    public void set(int index, long[] values, int offset, int length) {
+        checkRange(index, length);
+        encodeAt(values, offset, length, bitWidth, buffer, startBitIndex + index * bitWidth);
+    }
+
+    /**
+     * Put length values from offset of values into buffer, every value use bitWidth bits.
+     * Position of buffer increase length*bitWidth.
+     *
+     * @param bitWidth bit count of every value, 1~32.
+     * @throws IllegalArgumentException bitWidth not in 1~32, or length is negative.
+     * @throws BufferOverflowException  have not enough bits to put.
+     */
+    public static void encode(int[] values, int offset, int length, int bitWidth,
+                              BitBuffer buffer) {
+        checkBitWidth(bitWidth, 32);
+        checkArrayRange(values.length, offset, length);
+        int bitPosition = reserve(buffer, length, bitWidth);
+        encodeAt(values, offset, length, bitWidth, buffer, bitPosition);
+        buffer.setBitPosition(bitPosition + length * bitWidth);
+    }
+
+    /**
+     * Like {@link #encode(int[], int, int, int, BitBuffer)}, but bitWidth can be 1~64.
+     */
+    public static void encode(long[] values, int offset, int length, int bitWidth,
+                              BitBuffer buffer) {
+        checkBitWidth(bitWidth, 64);
+        checkArrayRange(values.length, offset, length);
+        int bitPosition = reserve(buffer, length, bitWidth);
+        encodeAt(values, offset, length, bitWidth, buffer, bitPosition);
+        buffer.setBitPosition(bitPosition + length * bitWidth);
+    }
+
+    /**
+     * Get length values from buffer into values from offset, every value use bitWidth bits.
+     * Position of buffer increase length*bitWidth.
+     *
+     * @param bitWidth bit count of every value, 1~32.
+     * @throws IllegalArgumentException bitWidth not in 1~32, or length is negative.
+     * @throws BufferOverflowException  have not enough bits to get.
+     */
+    public static void decode(BitBuffer buffer, int bitWidth, int[] values, int offset,
+                              int length) {
+        checkBitWidth(bitWidth, 32);
+        checkArrayRange(values.length, offset, length);
+        int bitPosition = buffer.bitPosition();
+        if(buffer.remainingBits() < (long)length * bitWidth) {
+            throw new BufferOverflowException();
+        }
+        decodeAt(buffer, bitPosition, bitWidth, values, offset, length);
+        buffer.setBitPosition(bitPosition + length * bitWidth);
+    }
+
+    /**
+     * Like {@link #decode(BitBuffer, int, int[], int, int)}, but bitWidth can be 1~64.
+     */
+    public static void decode(BitBuffer buffer, int bitWidth, long[] values, int offset,
+                              int length) {
+        checkBitWidth(bitWidth, 64);
+        checkArrayRange(values.length, offset, length);
+        int bitPosition = buffer.bitPosition();
+        if(buffer.remainingBits() < (long)length * bitWidth) {
+            throw new BufferOverflowException();
+        }
+        decodeAt(buffer, bitPosition, bitWidth, values, offset, length);
+        buffer.setBitPosition(bitPosition + length * bitWidth);
+    }
+
+    /**
+     * Put whole words by the kernel of bitWidth, then put tail values one by one.
+     */
+    private static void encodeAt(long[] values, int offset, int length, int bitWidth,
+                                 BitBuffer buffer, int bitPosition) {
+        boolean lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        int end = offset + length;
+        int i;
+        switch(bitWidth) {
+            case 1:
+                i = encodeWords1(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 2:
+                i = encodeWords2(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 4:
+                i = encodeWords4(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 8:
+                i = encodeWords8(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 16:
+                i = encodeWords16(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 32:
+                i = encodeWords32(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            default:
+                i = encodeWords(values, offset, end, bitWidth, buffer, bitPosition, lsbFirst);
+        }
+        bitPosition += (i - offset) * bitWidth;
+        for(; i < end; i++) {
+            buffer.putBitsAt(bitPosition, values[i], bitWidth);
+            bitPosition += bitWidth;
+        }
+    }
+
+    /**
+     * Get whole words by the kernel of bitWidth, then get tail values one by one.
+     */
+    private static void decodeAt(BitBuffer buffer, int bitPosition, int bitWidth,
+                                 long[] values, int offset, int length) {
+        boolean lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        int end = offset + length;
+        int i;
+        switch(bitWidth) {
+            case 1:
+                i = decodeWords1(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 2:
+                i = decodeWords2(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 4:
+                i = decodeWords4(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 8:
+                i = decodeWords8(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 16:
+                i = decodeWords16(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 32:
+                i = decodeWords32(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            default:
+                i = decodeWords(buffer, bitPosition, bitWidth, values, offset, end, lsbFirst);
+        }
+        bitPosition += (i - offset) * bitWidth;
+        for(; i < end; i++) {
+            values[i] = buffer.getBitsAt(bitPosition, bitWidth);
+            bitPosition += bitWidth;
+        }
+    }
+
+    /**
+     * Like {@link #encodeAt(long[], int, int, int, BitBuffer, int)}, for int values.
+     */
+    private static void encodeAt(int[] values, int offset, int length, int bitWidth,
+                                 BitBuffer buffer, int bitPosition) {
+        boolean lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        int end = offset + length;
+        int i;
+        switch(bitWidth) {
+            case 1:
+                i = encodeWords1(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 2:
+                i = encodeWords2(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 4:
+                i = encodeWords4(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 8:
+                i = encodeWords8(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 16:
+                i = encodeWords16(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            case 32:
+                i = encodeWords32(values, offset, end, buffer, bitPosition, lsbFirst);
+                break;
+            default:
+                i = encodeWords(values, offset, end, bitWidth, buffer, bitPosition, lsbFirst);
+        }
+        bitPosition += (i - offset) * bitWidth;
+        for(; i < end; i++) {
+            buffer.putBitsAt(bitPosition, values[i], bitWidth);
+            bitPosition += bitWidth;
+        }
+    }
+
+    /**
+     * Like {@link #decodeAt(BitBuffer, int, int, long[], int, int)}, for int values.
+     */
+    private static void decodeAt(BitBuffer buffer, int bitPosition, int bitWidth,
+                                 int[] values, int offset, int length) {
+        boolean lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        int end = offset + length;
+        int i;
+        switch(bitWidth) {
+            case 1:
+                i = decodeWords1(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 2:
+                i = decodeWords2(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 4:
+                i = decodeWords4(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 8:
+                i = decodeWords8(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 16:
+                i = decodeWords16(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            case 32:
+                i = decodeWords32(buffer, bitPosition, values, offset, end, lsbFirst);
+                break;
+            default:
+                i = decodeWords(buffer, bitPosition, bitWidth, values, offset, end, lsbFirst);
+        }
+        bitPosition += (i - offset) * bitWidth;
+        for(; i < end; i++) {
+            values[i] = (int)buffer.getBitsAt(bitPosition, bitWidth);
+            bitPosition += bitWidth;
+        }
+    }
+
+    /**
+     * Put values from i in whole words, return index of first value not put.
+     * <p/>
+     * Slot j of word is bits from j*bitWidth, counted from lowest bit. In LSB_FIRST
+     * value i+j is in slot j, in MSB_FIRST it is in slot valuesPerWord-1-j, so values are
+     * walked from first index by step, order is not checked for every value.
+     * Kernels encodeWords1~32 and decodeWords1~32 are same but have constant count and
+     * shifts. Every kernel has an int[] overload, so int values are not copied into longs.
+     */
+    private static int encodeWords(long[] values, int i, int end, int bitWidth,
+                                   BitBuffer buffer, int bitPosition, boolean lsbFirst) {
+        int valuesPerWord = 64 / bitWidth;
+        int wordBitLength = valuesPerWord * bitWidth;
+        long cover = -1L >>> (64 - bitWidth);
+        int first = lsbFirst ? 0 : valuesPerWord - 1;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + valuesPerWord <= end; i += valuesPerWord) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < valuesPerWord; j++, index += step) {
+                word |= (values[index] & cover) << (j * bitWidth);
+            }
+            buffer.putBitsAt(bitPosition, word, wordBitLength);
+            bitPosition += wordBitLength;
+        }
+        return i;
+    }
+
+    /**
+     * Like encodeWords, get values from i in whole words.
+     */
+    private static int decodeWords(BitBuffer buffer, int bitPosition, int bitWidth,
+                                   long[] values, int i, int end, boolean lsbFirst) {
+        int valuesPerWord = 64 / bitWidth;
+        int wordBitLength = valuesPerWord * bitWidth;
+        long cover = -1L >>> (64 - bitWidth);
+        int first = lsbFirst ? 0 : valuesPerWord - 1;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + valuesPerWord <= end; i += valuesPerWord) {
+            long word = buffer.getBitsAt(bitPosition, wordBitLength);
+            for(int j = 0, index = i + first; j < valuesPerWord; j++, index += step) {
+                values[index] = word & cover;
+                word >>>= bitWidth;
+            }
+            bitPosition += wordBitLength;
+        }
+        return i;
+    }
+
+    private static int encodeWords(int[] values, int i, int end, int bitWidth,
+                                   BitBuffer buffer, int bitPosition, boolean lsbFirst) {
+        int valuesPerWord = 64 / bitWidth;
+        int wordBitLength = valuesPerWord * bitWidth;
+        long cover = -1L >>> (64 - bitWidth);
+        int first = lsbFirst ? 0 : valuesPerWord - 1;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + valuesPerWord <= end; i += valuesPerWord) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < valuesPerWord; j++, index += step) {
+                word |= (values[index] & cover) << (j * bitWidth);
+            }
+            buffer.putBitsAt(bitPosition, word, wordBitLength);
+            bitPosition += wordBitLength;
+        }
+        return i;
+    }
+
+    private static int decodeWords(BitBuffer buffer, int bitPosition, int bitWidth,
+                                   int[] values, int i, int end, boolean lsbFirst) {
+        int valuesPerWord = 64 / bitWidth;
+        int wordBitLength = valuesPerWord * bitWidth;
+        int cover = (int)(-1L >>> (64 - bitWidth));
+        int first = lsbFirst ? 0 : valuesPerWord - 1;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + valuesPerWord <= end; i += valuesPerWord) {
+            long word = buffer.getBitsAt(bitPosition, wordBitLength);
+            for(int j = 0, index = i + first; j < valuesPerWord; j++, index += step) {
+                values[index] = (int)word & cover;
+                word >>>= bitWidth;
+            }
+            bitPosition += wordBitLength;
+        }
+        return i;
+    }
+
+    private static int encodeWords1(long[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 63;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 64 <= end; i += 64) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 64; j++, index += step) {
+                word |= (values[index] & 1L) << (j);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords1(BitBuffer buffer, int bitPosition, long[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 63;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 64 <= end; i += 64) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 64; j++, index += step) {
+                values[index] = word & 1L;
+                word >>>= 1;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords1(int[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 63;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 64 <= end; i += 64) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 64; j++, index += step) {
+                word |= (values[index] & 1L) << (j);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords1(BitBuffer buffer, int bitPosition, int[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 63;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 64 <= end; i += 64) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 64; j++, index += step) {
+                values[index] = (int)word & 1;
+                word >>>= 1;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords2(long[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 31;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 32 <= end; i += 32) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 32; j++, index += step) {
+                word |= (values[index] & 3L) << (j << 1);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords2(BitBuffer buffer, int bitPosition, long[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 31;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 32 <= end; i += 32) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 32; j++, index += step) {
+                values[index] = word & 3L;
+                word >>>= 2;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords2(int[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 31;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 32 <= end; i += 32) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 32; j++, index += step) {
+                word |= (values[index] & 3L) << (j << 1);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords2(BitBuffer buffer, int bitPosition, int[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 31;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 32 <= end; i += 32) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 32; j++, index += step) {
+                values[index] = (int)word & 3;
+                word >>>= 2;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords4(long[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 15;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 16 <= end; i += 16) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 16; j++, index += step) {
+                word |= (values[index] & 0xfL) << (j << 2);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords4(BitBuffer buffer, int bitPosition, long[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 15;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 16 <= end; i += 16) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 16; j++, index += step) {
+                values[index] = word & 0xfL;
+                word >>>= 4;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords4(int[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 15;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 16 <= end; i += 16) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 16; j++, index += step) {
+                word |= (values[index] & 0xfL) << (j << 2);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords4(BitBuffer buffer, int bitPosition, int[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 15;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 16 <= end; i += 16) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 16; j++, index += step) {
+                values[index] = (int)word & 0xf;
+                word >>>= 4;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords8(long[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 7;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 8 <= end; i += 8) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 8; j++, index += step) {
+                word |= (values[index] & 0xffL) << (j << 3);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords8(BitBuffer buffer, int bitPosition, long[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 7;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 8 <= end; i += 8) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 8; j++, index += step) {
+                values[index] = word & 0xffL;
+                word >>>= 8;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords8(int[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 7;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 8 <= end; i += 8) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 8; j++, index += step) {
+                word |= (values[index] & 0xffL) << (j << 3);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords8(BitBuffer buffer, int bitPosition, int[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 7;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 8 <= end; i += 8) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 8; j++, index += step) {
+                values[index] = (int)word & 0xff;
+                word >>>= 8;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords16(long[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 3;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 4 <= end; i += 4) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 4; j++, index += step) {
+                word |= (values[index] & 0xffffL) << (j << 4);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords16(BitBuffer buffer, int bitPosition, long[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 3;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 4 <= end; i += 4) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 4; j++, index += step) {
+                values[index] = word & 0xffffL;
+                word >>>= 16;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords16(int[] values, int i, int end, BitBuffer buffer,
+                                     int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 3;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 4 <= end; i += 4) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 4; j++, index += step) {
+                word |= (values[index] & 0xffffL) << (j << 4);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords16(BitBuffer buffer, int bitPosition, int[] values,
+                                     int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 3;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 4 <= end; i += 4) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 4; j++, index += step) {
+                values[index] = (int)word & 0xffff;
+                word >>>= 16;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords32(long[] values, int i, int end, BitBuffer buffer,
+                                    int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 1;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 2 <= end; i += 2) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 2; j++, index += step) {
+                word |= (values[index] & 0xffffffffL) << (j << 5);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords32(BitBuffer buffer, int bitPosition, long[] values,
+                                    int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 1;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 2 <= end; i += 2) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 2; j++, index += step) {
+                values[index] = word & 0xffffffffL;
+                word >>>= 32;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int encodeWords32(int[] values, int i, int end, BitBuffer buffer,
+                                     int bitPosition, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 1;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 2 <= end; i += 2) {
+            long word = 0;
+            for(int j = 0, index = i + first; j < 2; j++, index += step) {
+                word |= (values[index] & 0xffffffffL) << (j << 5);
+            }
+            buffer.putBitsAt(bitPosition, word, 64);
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    private static int decodeWords32(BitBuffer buffer, int bitPosition, int[] values,
+                                     int i, int end, boolean lsbFirst) {
+        int first = lsbFirst ? 0 : 1;
+        int step = lsbFirst ? 1 : -1;
+        for(; i + 2 <= end; i += 2) {
+            long word = buffer.getBitsAt(bitPosition, 64);
+            for(int j = 0, index = i + first; j < 2; j++, index += step) {
+                values[index] = (int)word;
+                word >>>= 32;
+            }
+            bitPosition += 64;
+        }
+        return i;
+    }
+
+    /**
+     * Check buffer have enough bits to put values, expand if buffer is growable.
+     *
+     * @return Current bit position of buffer.
+     */
+    private static int reserve(BitBuffer buffer, int length, int bitWidth) {
+        long bitLength = (long)length * bitWidth;
+        if(bitLength > Integer.MAX_VALUE) {
+            throw new BufferOverflowException();
+        }
+        int bitPosition = buffer.bitPosition();
+        buffer.ensureRemaining(bitPosition, (int)bitLength);
+        if(buffer.remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+        return bitPosition;
+    }
+
+    private static void checkBitWidth(int bitWidth, int maxBitWidth) {
+        if(bitWidth <= 0 || bitWidth > maxBitWidth) {
+            throw new IllegalArgumentException(
+                    "bitWidth must between 1 and " + maxBitWidth + ".");
+        }
+    }
+
+    private static void checkArrayRange(int arrayLength, int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > arrayLength) {
+            throw new IndexOutOfBoundsException(
+                    "offset " + offset + ", length " + length + " out of array length " +
+                            arrayLength + ".");
+        }
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(
+                    "Index " + index + " out of length " + length + ".");
+        }
+    }
+
+    private void checkRange(int index, int rangeLength) {
+        if(index < 0 || rangeLength < 0 || index + rangeLength > length) {
+            throw new IndexOutOfBoundsException(
+                    "Index " + index + ", length " + rangeLength + " out of length " +
+                            length + ".");
+        }
+    }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+/**
+ * Index over bits of a {@link BitBuffer} to count 1 bits before a position(rank) and find
+ * position of the k-th 1 bit(select) without scanning.
+ * <p/>
+ * Every 512 bits have an int of 1 bits before them, and a long of seven 9 bits counts
+ * of 1 bits before every 64 bits in them, so rank is one {@link Long#bitCount(long)}.
+ * Block of every 4096-th 1 bit and 0 bit is kept, select searches blocks between them,
+ * then finds bit in 64 bits by byte counts in a long. Space of index is about 20% of
+ * the bits.
+ * <p/>
+ * Bits are not copied, index is wrong if bits of buffer are changed after build.
+ *
+ * @author SunYiJun
+ */
+public final class RankSelectIndex {
+
+    private static final int BLOCK_BITS = 9;
+
+    private static final int SELECT_SAMPLE_BITS = 12;
+
+    private static final long ONES_IN_BYTES = 0x0101010101010101L;
+
+    private static final long HIGHS_IN_BYTES = 0x8080808080808080L;
+
+    /**
+     * Position of r-th(0~7) 1 bit in byte b is at [b << 3 | r].
+     */
+    private static final byte[] SELECT_IN_BYTE = new byte[256 << 3];
+
+    static {
+        for(int b = 0; b < 256; b++) {
+            int r = 0;
+            for(int i = 0; i < 8; i++) {
+                if((b & (1 << i)) != 0) {
+                    SELECT_IN_BYTE[b << 3 | r++] = (byte)i;
+                }
+            }
+        }
+    }
+
+    private final BitBuffer bits;
+
+    private final boolean lsbFirst;
+
+    private final int bitLength;
+
+    private final int blockCount;
+
+    /**
+     * 1 bits before every block, one more for all 1 bits.
+     */
+    private final int[] blockRanks;
+
+    /**
+     * 1 bits in block before word 1~7 of block, 9 bits for every word from lowest bits.
+     */
+    private final long[] wordRanks;
+
+    private final int[] selectSamples1;
+
+    private final int[] selectSamples0;
+
+    private RankSelectIndex(BitBuffer bits) {
+        this.bits = bits;
+        this.lsbFirst = bits.bitOrder() == BitOrder.LSB_FIRST;
+        this.bitLength = bits.remainingBits();
+        this.blockCount = (int)(((long)bitLength + (1 << BLOCK_BITS) - 1) >>> BLOCK_BITS);
+        this.blockRanks = new int[blockCount + 1];
+        this.wordRanks = new long[blockCount];
+        int rank = 0;
+        for(int block = 0; block < blockCount; block++) {
+            blockRanks[block] = rank;
+            int rankInBlock = 0;
+            long packedRanks = 0;
+            for(int i = 0; i < 8; i++) {
+                if(i > 0) {
+                    packedRanks |= (long)rankInBlock << (BLOCK_BITS * (i - 1));
+                }
+                rankInBlock += Long.bitCount(word((block << 3) + i));
+            }
+            wordRanks[block] = packedRanks;
+            rank += rankInBlock;
+        }
+        blockRanks[blockCount] = rank;
+        this.selectSamples1 = sampleBlocks(true);
+        this.selectSamples0 = sampleBlocks(false);
+    }
+
+    /**
+     * Build index over bits of buffer from position to limit, bit at position is index 0.
+     * Position of buffer not change.
+     */
+    public static RankSelectIndex build(BitBuffer buffer) {
+        return new RankSelectIndex(buffer.slice(buffer.position(), buffer.remainingBits()));
+    }
+
+    public int bitLength() {
+        return bitLength;
+    }
+
+    /**
+     * Count of all 1 bits.
+     */
+    public int cardinality() {
+        return blockRanks[blockCount];
+    }
+
+    /**
+     * Count of 1 bits before bitIndex.
+     *
+     * @param bitIndex 0~bitLength.
+     * @throws IndexOutOfBoundsException bitIndex out of bits.
+     */
+    public int rank1(int bitIndex) {
+        if(bitIndex < 0 || bitIndex > bitLength) {
+            throw new IndexOutOfBoundsException(
+                    "Bit index " + bitIndex + " out of length " + bitLength + ".");
+        }
+        int block = bitIndex >>> BLOCK_BITS;
+        int rank = blockRanks[block] + rankOfWordInBlock(block, (bitIndex >>> 6) & 7);
+        int bitsInWord = bitIndex & 0x3f;
+        if(bitsInWord > 0) {
+            rank += Long.bitCount(word(bitIndex >>> 6) & ~(-1L << bitsInWord));
+        }
+        return rank;
+    }
+
+    /**
+     * Count of 0 bits before bitIndex.
+     *
+     * @param bitIndex 0~bitLength.
+     * @throws IndexOutOfBoundsException bitIndex out of bits.
+     */
+    public int rank0(int bitIndex) {
+        return bitIndex - rank1(bitIndex);
+    }
+
+    /**
+     * Index of the rank-th 1 bit, rank counts from 0.
+     *
+     * @throws IndexOutOfBoundsException rank is negative or not less than count of 1 bits.
+     */
+    public int select1(int rank) {
+        if(rank < 0 || rank >= cardinality()) {
+            throw new IndexOutOfBoundsException(
+                    "Rank " + rank + " out of count of 1 bits " + cardinality() + ".");
+        }
+        int sample = rank >>> SELECT_SAMPLE_BITS;
+        int low = selectSamples1[sample];
+        int high = sample + 1 < selectSamples1.length ? selectSamples1[sample + 1] + 1 :
+                blockCount;
+        while(low + 1 < high) {// last block have not more 1 bits before it than rank
+            int middle = (low + high) >>> 1;
+            if(blockRanks[middle] <= rank) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        int block = low;
+        rank -= blockRanks[block];
+        int wordInBlock = 0;
+        while(wordInBlock < 7 && rankOfWordInBlock(block, wordInBlock + 1) <= rank) {
+            wordInBlock++;
+        }
+        rank -= rankOfWordInBlock(block, wordInBlock);
+        int wordIndex = (block << 3) + wordInBlock;
+        return (wordIndex << 6) + selectInWord(word(wordIndex), rank);
+    }
+
+    /**
+     * Index of the rank-th 0 bit, rank counts from 0.
+     *
+     * @throws IndexOutOfBoundsException rank is negative or not less than count of 0 bits.
+     */
+    public int select0(int rank) {
+        int zeroCount = bitLength - cardinality();
+        if(rank < 0 || rank >= zeroCount) {
+            throw new IndexOutOfBoundsException(
+                    "Rank " + rank + " out of count of 0 bits " + zeroCount + ".");
+        }
+        int sample = rank >>> SELECT_SAMPLE_BITS;
+        int low = selectSamples0[sample];
+        int high = sample + 1 < selectSamples0.length ? selectSamples0[sample + 1] + 1 :
+                blockCount;
+        while(low + 1 < high) {
+            int middle = (low + high) >>> 1;
+            if((middle << BLOCK_BITS) - blockRanks[middle] <= rank) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        int block = low;
+        rank -= (block << BLOCK_BITS) - blockRanks[block];
+        int wordInBlock = 0;
+        while(wordInBlock < 7 &&
+                ((wordInBlock + 1) << 6) - rankOfWordInBlock(block, wordInBlock + 1) <= rank) {
+            wordInBlock++;
+        }
+        rank -= (wordInBlock << 6) - rankOfWordInBlock(block, wordInBlock);
+        int wordIndex = (block << 3) + wordInBlock;
+        return (wordIndex << 6) + selectInWord(~word(wordIndex), rank);
+    }
+
+    /**
+     * Block of every 4096-th 1 bit(or 0 bit).
+     */
+    private int[] sampleBlocks(boolean one) {
+        int count = one ? cardinality() : bitLength - cardinality();
+        int[] samples = new int[(count + (1 << SELECT_SAMPLE_BITS) - 1) >>> SELECT_SAMPLE_BITS];
+        int sample = 0;
+        for(int block = 0; block < blockCount; block++) {
+            int end = one ? blockRanks[block + 1] :
+                    Math.min((block + 1) << BLOCK_BITS, bitLength) - blockRanks[block + 1];
+            while(sample < samples.length && (sample << SELECT_SAMPLE_BITS) < end) {
+                samples[sample++] = block;
+            }
+        }
+        return samples;
+    }
+
+    private int rankOfWordInBlock(int block, int wordInBlock) {
+        if(wordInBlock == 0) {
+            return 0;
+        }
+        return (int)(wordRanks[block] >>> (BLOCK_BITS * (wordInBlock - 1))) & 0x1ff;
+    }
+
+    /**
+     * 64 bits from wordIndex * 64, first bit is lowest bit. Bits after bitLength are 0.
+     */
+    private long word(int wordIndex) {
+        int wordBitLength = Math.min(64, bitLength - (wordIndex << 6));
+        if(wordBitLength <= 0) {
+            return 0;
+        }
+        long word = bits.getBitsAt(wordIndex << 6, wordBitLength);
+        return lsbFirst ? word : Long.reverse(word) >>> (64 - wordBitLength);
+    }
+
+    /**
+     * Position of rank-th 1 bit from lowest bit. Sum of 1 bits in bytes are counted in
+     * every byte of a long, then compared with rank in all bytes together.
+     */
+    static int selectInWord(long word, int rank) {
+        long counts = word - ((word >>> 1) & 0x5555555555555555L);
+        counts = (counts & 0x3333333333333333L) + ((counts >>> 2) & 0x3333333333333333L);
+        counts = (counts + (counts >>> 4)) & 0x0f0f0f0f0f0f0f0fL;
+        long sums = counts * ONES_IN_BYTES;// byte i is 1 bits in byte 0~i
+        // high bit of byte is 1 when its sum not larger than rank
+        long notLarger = ((rank * ONES_IN_BYTES | HIGHS_IN_BYTES) - sums) & HIGHS_IN_BYTES;
+        int byteIndex = Long.bitCount(notLarger);
+        int bitIndex = byteIndex << 3;
+        int rankInByte = byteIndex == 0 ? rank : rank - (int)(sums >>> (bitIndex - 8) & 0xff);
+        int b = (int)(word >>> bitIndex) & 0xff;
+        return bitIndex + SELECT_IN_BYTE[b << 3 | rankInByte];
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import java.nio.BufferOverflowException;
+
+
+/**
+ * Put and get integers in variable length codes, small value use less bits.
+ * Codes are Elias gamma, Elias delta, Golomb-Rice and Exp-Golomb.
+ * <p/>
+ * Example:<br/>
+ * Elias gamma of 6(110) is "00110", 2 zeros mean value have 3 bits.<br/>
+ * Golomb-Rice of 6 with k=1 is "0001 0", 3 zeros mean quotient(6>>>1) is 3,
+ * then 1 bit remainder.<br/>
+ * Exp-Golomb of 5 is Elias gamma of 6.
+ * <p/>
+ * Zeros of code are counted by {@link Long#numberOfLeadingZeros(long)} on next 64 bits,
+ * not get one by one.
+ * <p/>
+ * In {@link BitOrder#LSB_FIRST} buffer, zeros and the 1 bit are still first, bits after
+ * them are put as one value from lowest bit, zeros are counted by
+ * {@link Long#numberOfTrailingZeros(long)}.
+ * <p/>
+ * If buffer have not enough bits for a whole code, will throw
+ * {@link BufferOverflowException} and position not change.
+ *
+ * @author SunYiJun
+ */
+public final class VariableLengthCodeHelper {
+
+    private VariableLengthCodeHelper() {
+    }
+
+    /**
+     * Put value in Elias gamma code, value is treated as unsigned and can't be 0.
+     *
+     * @throws IllegalArgumentException value is 0.
+     * @throws BufferOverflowException  have not enough bits to put.
+     */
+    public static void putEliasGamma(BitBuffer buffer, long value) {
+        if(value == 0) {
+            throw new IllegalArgumentException("Value must larger than 0.");
+        }
+        int zeroCount = 63 - Long.numberOfLeadingZeros(value);
+        putCode(buffer, zeroCount, value, zeroCount);
+    }
+
+    /**
+     * Get value in Elias gamma code, value is unsigned.
+     *
+     * @throws IllegalArgumentException code is invalid, value larger than 64 bits.
+     * @throws BufferOverflowException  have not enough bits to get.
+     */
+    public static long getEliasGamma(BitBuffer buffer) {
+        int startBitPosition = buffer.bitPosition();
+        long zeroCount = getZeroCount(buffer, startBitPosition);
+        if(zeroCount > 63) {
+            buffer.setBitPosition(startBitPosition);
+            throw new IllegalArgumentException("Invalid code, value larger than 64 bits.");
+        }
+        return (1L << zeroCount) | getBits(buffer, startBitPosition, (int)zeroCount);
+    }
+
+    /**
+     * Put value in Elias delta code, value is treated as unsigned and can't be 0.
+     * Bit count of value is put in Elias gamma code, then bits of value without
+     * highest 1.
+     *
+     * @throws IllegalArgumentException value is 0.
+     * @throws BufferOverflowException  have not enough bits to put.
+     */
+    public static void putEliasDelta(BitBuffer buffer, long value) {
+        if(value == 0) {
+            throw new IllegalArgumentException("Value must larger than 0.");
+        }
+        int bitCount = 64 - Long.numberOfLeadingZeros(value);
+        int zeroCount = 31 - Integer.numberOfLeadingZeros(bitCount);
+        int lengthBitCount = 2 * zeroCount + 1;
+        if(lengthBitCount + bitCount - 1 <= 64 && buffer.bitOrder() == BitOrder.MSB_FIRST) {
+            long code = ((long)bitCount << (bitCount - 1)) |
+                    (value & ~(1L << (bitCount - 1)));
+            buffer.put(code, lengthBitCount + bitCount - 1);
+            return;
+        }
+        checkPutRemaining(buffer, lengthBitCount + bitCount - 1);
+        putCode(buffer, zeroCount, bitCount, zeroCount);
+        buffer.put(value, bitCount - 1);
+    }
+
+    /**
+     * Get value in Elias delta code, value is unsigned.
+     *
+     * @throws IllegalArgumentException code is invalid, value larger than 64 bits.
+     * @throws BufferOverflowException  have not enough bits to get.
+     */
+    public static long getEliasDelta(BitBuffer buffer) {
+        int startBitPosition = buffer.bitPosition();
+        long zeroCount = getZeroCount(buffer, startBitPosition);
+        if(zeroCount > 6) {
+            buffer.setBitPosition(startBitPosition);
+            throw new IllegalArgumentException("Invalid code, value larger than 64 bits.");
+        }
+        int bitCount =
+                (int)((1L << zeroCount) | getBits(buffer, startBitPosition, (int)zeroCount));
+        if(bitCount > 64) {
+            buffer.setBitPosition(startBitPosition);
+            throw new IllegalArgumentException("Invalid code, value larger than 64 bits.");
+        }
+        return (1L << (bitCount - 1)) | getBits(buffer, startBitPosition, bitCount - 1);
+    }
+
+    /**
+     * Put value in Golomb-Rice code with parameter k, divisor is 2^k. Quotient
+     * (value>>>k) is put as count of 0 bits and a 1 bit, then put right k bits of
+     * value as remainder. Value is treated as unsigned.
+     *
+     * @param k 0~63.
+     * @throws IllegalArgumentException k not in 0~63.
+     * @throws BufferOverflowException  have not enough bits to put.
+     */
+    public static void putGolombRice(BitBuffer buffer, long value, int k) {
+        checkK(k);
+        long quotient = value >>> k;
+        if(quotient < 0 || quotient + 1 + k > Integer.MAX_VALUE) {
+            throw new BufferOverflowException();
+        }
+        putCode(buffer, quotient, value, k);
+    }
+
+    /**
+     * Get value in Golomb-Rice code with parameter k.
+     *
+     * @param k 0~63.
+     * @throws IllegalArgumentException k not in 0~63, or code is invalid.
+     * @throws BufferOverflowException  have not enough bits to get.
+     */
+    public static long getGolombRice(BitBuffer buffer, int k) {
+        checkK(k);
+        int startBitPosition = buffer.bitPosition();
+        long quotient = getZeroCount(buffer, startBitPosition);
+        if(k > 0 && (quotient >>> (64 - k)) != 0) {
+            buffer.setBitPosition(startBitPosition);
+            throw new IllegalArgumentException("Invalid code, value larger than 64 bits.");
+        }
+        return (quotient << k) | getBits(buffer, startBitPosition, k);
+    }
+
+    /**
+     * Put value in unsigned Exp-Golomb code(ue(v) in H.264), means Elias gamma of value+1.
+     *
+     * @throws IllegalArgumentException value is negative.
+     * @throws BufferOverflowException  have not enough bits to put.
+     */
+    public static void putExpGolomb(BitBuffer buffer, long value) {
+        if(value < 0) {
+            throw new IllegalArgumentException("Value can't be negative.");
+        }
+        putEliasGamma(buffer, value + 1);
+    }
+
+    /**
+     * Get value in unsigned Exp-Golomb code.
+     *
+     * @throws IllegalArgumentException code is invalid, value larger than 63 bits.
+     * @throws BufferOverflowException  have not enough bits to get.
+     */
+    public static long getExpGolomb(BitBuffer buffer) {
+        int startBitPosition = buffer.bitPosition();
+        long value = getEliasGamma(buffer) - 1;
+        if(value < 0) {
+            buffer.setBitPosition(startBitPosition);
+            throw new IllegalArgumentException("Invalid code, value larger than 63 bits.");
+        }
+        return value;
+    }
+
+    /**
+     * Put value in signed Exp-Golomb code(se(v) in H.264), positive value v is put as
+     * unsigned 2v-1, others are put as unsigned -2v.
+     * <p/>
+     * Example:<br/>
+     * 0 -> "1", 1 -> "010", -1 -> "011", 2 -> "00100".
+     *
+     * @throws IllegalArgumentException value is {@link Long#MIN_VALUE}.
+     * @throws BufferOverflowException  have not enough bits to put.
+     */
+    public static void putSignedExpGolomb(BitBuffer buffer, long value) {
+        if(value == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Value can't be Long.MIN_VALUE.");
+        }
+        long unsignedValue = value > 0 ? (value << 1) - 1 : -value << 1;
+        putEliasGamma(buffer, unsignedValue + 1);
+    }
+
+    /**
+     * Get value in signed Exp-Golomb code.
+     *
+     * @throws IllegalArgumentException code is invalid, value larger than 64 bits.
+     * @throws BufferOverflowException  have not enough bits to get.
+     */
+    public static long getSignedExpGolomb(BitBuffer buffer) {
+        long unsignedValue = getEliasGamma(buffer) - 1;
+        return (unsignedValue & 1) == 1 ? (unsignedValue >>> 1) + 1 : -(unsignedValue >>> 1);
+    }
+
+    /**
+     * Put zeroCount 0 bits, one 1 bit, then right restBitLength(0~63) bits of rest.
+     * If total bits not larger than 64, put in one time.
+     */
+    private static void putCode(BitBuffer buffer, long zeroCount, long rest,
+                                int restBitLength) {
+        boolean lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        rest &= ~(-1L << restBitLength);
+        long tail = lsbFirst ? (rest << 1) | 1 : (1L << restBitLength) | rest;
+        long bitLength = zeroCount + 1 + restBitLength;
+        if(bitLength <= 64) {
+            buffer.put(lsbFirst ? tail << zeroCount : tail, (int)bitLength);
+            return;
+        }
+        checkPutRemaining(buffer, (int)bitLength);
+        putZeros(buffer, zeroCount);
+        buffer.put(tail, 1 + restBitLength);
+    }
+
+    private static void putZeros(BitBuffer buffer, long zeroCount) {
+        while(zeroCount > 0) {
+            int partBitLength = (int)Math.min(zeroCount, 64);
+            buffer.put(0L, partBitLength);
+            zeroCount -= partBitLength;
+        }
+    }
+
+    private static void checkPutRemaining(BitBuffer buffer, int bitLength) {
+        buffer.ensureRemaining(buffer.bitPosition(), bitLength);
+        if(buffer.remainingBits() < bitLength) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    /**
+     * Count 0 bits from position to next 1 bit, 64 bits one time. Position move to after
+     * the 1 bit.
+     *
+     * @throws BufferOverflowException have no 1 bit, position is reset to
+     *                                 startBitPosition.
+     */
+    private static long getZeroCount(BitBuffer buffer, int startBitPosition) {
+        boolean lsbFirst = buffer.bitOrder() == BitOrder.LSB_FIRST;
+        int bitPosition = startBitPosition;
+        long zeroCount = 0;
+        while(true) {
+            int remainingBits = buffer.remainingBits(bitPosition);
+            if(remainingBits <= 0) {
+                buffer.setBitPosition(startBitPosition);
+                throw new BufferOverflowException();
+            }
+            int windowBitLength = Math.min(remainingBits, 64);
+            long window = buffer.getBitsAt(bitPosition, windowBitLength);
+            if(window != 0) {
+                int zeros = lsbFirst ? Long.numberOfTrailingZeros(window) :
+                        Long.numberOfLeadingZeros(window << (64 - windowBitLength));
+                buffer.setBitPosition(bitPosition + zeros + 1);
+                return zeroCount + zeros;
+            }
+            zeroCount += windowBitLength;
+            bitPosition += windowBitLength;
+        }
+    }
+
+    /**
+     * Get bitLength(0~64) bits from position.
+     *
+     * @throws BufferOverflowException have not enough bits, position is reset to
+     *                                 startBitPosition.
+     */
+    private static long getBits(BitBuffer buffer, int startBitPosition, int bitLength) {
+        if(bitLength == 0) {
+            return 0;
+        }
+        int bitPosition = buffer.bitPosition();
+        if(buffer.remainingBits() < bitLength) {
+            buffer.setBitPosition(startBitPosition);
+            throw new BufferOverflowException();
+        }
+        buffer.setBitPosition(bitPosition + bitLength);
+        return buffer.getBitsAt(bitPosition, bitLength);
+    }
+
+    private static void checkK(int k) {
+        if(k < 0 || k > 63) {
+            throw new IllegalArgumentException("k must between 0 and 63.");
+        }
+    }
+
+}
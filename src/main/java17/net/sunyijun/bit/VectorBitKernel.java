@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * {@link BitKernel} in jdk.incubator.vector, only in versions/17 of multi-release jar.
+ * Bytes are loaded in vectors of preferred size of CPU, bytes after last whole vector
+ * are done by scalar way. Every loop use one constant operator, so JIT can compile it
+ * into SIMD instructions.
+ *
+ * @author SunYiJun
+ */
+final class VectorBitKernel extends BitKernel {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    private static final long ONES_IN_PAIRS = 0x5555555555555555L;
+
+    private static final long ONES_IN_NIBBLE_PAIRS = 0x3333333333333333L;
+
+    private static final long LOW_NIBBLES = 0x0f0f0f0f0f0f0f0fL;
+
+    @Override
+    void combine(int operation, byte[] left, int leftOffset, byte[] right, int rightOffset,
+                 byte[] dest, int destOffset, int length) {
+        int bound = BYTES.loopBound(length);
+        int i = 0;
+        switch(operation) {
+            case BitBuffer.AND:
+                for(; i < bound; i += BYTES.length()) {
+                    ByteVector.fromArray(BYTES, left, leftOffset + i)
+                            .and(ByteVector.fromArray(BYTES, right, rightOffset + i))
+                            .intoArray(dest, destOffset + i);
+                }
+                break;
+            case BitBuffer.OR:
+                for(; i < bound; i += BYTES.length()) {
+                    ByteVector.fromArray(BYTES, left, leftOffset + i)
+                            .or(ByteVector.fromArray(BYTES, right, rightOffset + i))
+                            .intoArray(dest, destOffset + i);
+                }
+                break;
+            case BitBuffer.XOR:
+                for(; i < bound; i += BYTES.length()) {
+                    ByteVector.fromArray(BYTES, left, leftOffset + i)
+                            .lanewise(VectorOperators.XOR,
+                                    ByteVector.fromArray(BYTES, right, rightOffset + i))
+                            .intoArray(dest, destOffset + i);
+                }
+                break;
+            case BitBuffer.AND_NOT:
+                for(; i < bound; i += BYTES.length()) {
+                    ByteVector.fromArray(BYTES, left, leftOffset + i)
+                            .lanewise(VectorOperators.AND_NOT,
+                                    ByteVector.fromArray(BYTES, right, rightOffset + i))
+                            .intoArray(dest, destOffset + i);
+                }
+                break;
+            default:
+                for(; i < bound; i += BYTES.length()) {
+                    ByteVector.fromArray(BYTES, left, leftOffset + i).not()
+                            .intoArray(dest, destOffset + i);
+                }
+        }
+        super.combine(operation, left, leftOffset + i, right, rightOffset + i, dest,
+                destOffset + i, length - i);
+    }
+
+    /**
+     * Bytes are counted in longs of vector like {@link Long#bitCount(long)}, by shift and
+     * add in lanes, then lanes are added at last.
+     */
+    @Override
+    long bitCount(byte[] bytes, int offset, int length) {
+        int bound = BYTES.loopBound(length);
+        LongVector counts = LongVector.zero(LongVector.SPECIES_PREFERRED);
+        int i = 0;
+        for(; i < bound; i += BYTES.length()) {
+            LongVector words = ByteVector.fromArray(BYTES, bytes, offset + i)
+                    .reinterpretAsLongs();
+            words = words.sub(words.lanewise(VectorOperators.LSHR, 1).and(ONES_IN_PAIRS));
+            words = words.and(ONES_IN_NIBBLE_PAIRS).add(
+                    words.lanewise(VectorOperators.LSHR, 2).and(ONES_IN_NIBBLE_PAIRS));
+            words = words.add(words.lanewise(VectorOperators.LSHR, 4)).and(LOW_NIBBLES);
+            words = words.add(words.lanewise(VectorOperators.LSHR, 8));
+            words = words.add(words.lanewise(VectorOperators.LSHR, 16));
+            words = words.add(words.lanewise(VectorOperators.LSHR, 32));
+            counts = counts.add(words.and(0x7fL));
+        }
+        return counts.reduceLanes(VectorOperators.ADD) +
+                super.bitCount(bytes, offset + i, length - i);
+    }
+
+}
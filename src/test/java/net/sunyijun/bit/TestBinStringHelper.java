@@ -19,7 +19,14 @@ package net.sunyijun.bit;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.util.Random;
+
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
 
 
 /**
@@ -119,4 +126,60 @@ public class TestBinStringHelper {
         assertThat(bytes).isEqualTo(new byte[]{ 8 });
     }
 
+    @Test
+    public void test_format_into_char_array_and_appendable() throws IOException {
+        byte[] data = { (byte)210, 1, (byte)255 };
+        char[] chars = new char[30];
+        int charCount = BinStringHelper.toChars(data, 1, 2, chars, 3);
+        assertThat(charCount).isEqualTo(18);
+        assertThat(new String(chars, 3, charCount)).isEqualTo("00000001 11111111 ");
+
+        StringBuilder builder = new StringBuilder("x");
+        BinStringHelper.appendBytes(builder, data, 0, 2);
+        assertThat(builder.toString()).isEqualTo("x11010010 00000001 ");
+
+        byte[] large = new byte[3000];
+        new Random(23).nextBytes(large);
+        StringWriter writer = new StringWriter();
+        BinStringHelper.appendBytes(writer, large, 0, large.length);
+        assertThat(writer.toString()).isEqualTo(BinStringHelper.bytesToString(large));
+        assertThat(BinStringHelper.toByteArray(writer.toString())).isEqualTo(large);
+    }
+
+    @Test
+    public void test_parse_into_bit_buffer_and_bytes() throws IOException {
+        BitBuffer buffer = BitBuffer.allocate(16);
+        int bitCount = BinStringHelper.putBits(new StringBuilder("110\t1\n0010 1"), buffer);
+        assertThat(bitCount).isEqualTo(9);
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ (byte)210, (byte)128 });
+
+        byte[] bytes = { 0, 15, 15 };
+        assertThat(BinStringHelper.toBytes("110 1", bytes, 1)).isEqualTo(4);
+        //1101 1111
+        assertThat(bytes).isEqualTo(new byte[]{ 0, (byte)223, 15 });
+
+        byte[] large = new byte[2000];
+        new Random(29).nextBytes(large);
+        String binString = BinStringHelper.bytesToString(large);
+        buffer = BitBuffer.allocate(16000, BitOrder.LSB_FIRST);
+        long readCount = BinStringHelper.putBits(new StringReader(binString), buffer);
+        assertThat(readCount).isEqualTo(16000L);
+        buffer.flip();
+        for(byte aByte : large) {
+            //first char is first bit, in LSB_FIRST it is right bit of byte
+            assertThat(buffer.getByte()).isEqualTo((byte)(Integer.reverse(aByte) >>> 24));
+        }
+
+        try {
+            BinStringHelper.toByteArray("0101 2");
+            fail("Not binary char must throw exception.");
+        } catch(NumberFormatException e) {
+        }
+        try {
+            BinStringHelper.toBytes("111111111", new byte[1], 0);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
 }
@@ -19,7 +19,14 @@ package net.sunyijun.bit;
 
 import org.junit.Test;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.InvalidMarkException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
 import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
 
 
 /**
@@ -255,4 +262,224 @@ public class TestBitBufferGet {
         assertThat(bits).isEqualTo(new byte[]{ 0, 50, 72 });
     }
 
+    @Test
+    public void test_get_int_and_long_unaligned() {
+        //110 10010001 10010 0100100 0
+        byte[] data = { (byte)210, 50, 72 };
+        BitBuffer buffer = BitBuffer.wrapBytes(data);
+        assertThat(buffer.getInt(3)).isEqualTo(6);
+        //10010001
+        assertThat(buffer.getInt(8)).isEqualTo(145);
+        assertThat(buffer.remainingBits()).isEqualTo(13);
+        //10010 0100100
+        assertThat(buffer.getLong(12)).isEqualTo(2340L);
+        assertThat(buffer.remainingBits()).isEqualTo(1);
+        assertThat(buffer.getInt(1)).isEqualTo(0);
+
+        data = new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+        buffer = BitBuffer.wrapBytes(data);
+        buffer.getByte(4);
+        //0001 00000010 ... 00001000 0000
+        assertThat(buffer.getLong(64)).isEqualTo(0x1020304050607080L);
+        buffer = BitBuffer.wrapBytes(new byte[]{ -1, -1, -1, -1 });
+        assertThat(buffer.getInt(32)).isEqualTo(-1);
+    }
+
+    @Test
+    public void test_get_int_and_long_from_index_and_position_not_change() {
+        //10010101 01110001
+        byte[] data = { (byte)149, 113 };
+        BitBuffer buffer = BitBuffer.wrapBytes(data);
+        //010101 0111
+        assertThat(buffer.getInt(2, 10)).isEqualTo(343);
+        //0101 0111
+        assertThat(buffer.getLong(4, 8)).isEqualTo(87L);
+        assertThat(buffer.remainingBits()).isEqualTo(16);
+
+        data = new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+        buffer = BitBuffer.wrapBytes(data);
+        assertThat(buffer.getLong(7, 64)).isEqualTo(0x8101820283038404L);
+        assertThat(buffer.getLong(8, 64)).isEqualTo(0x0203040506070809L);
+        try {
+            buffer.getLong(9, 64);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_get_from_wrapped_direct_byte_buffer() {
+        //xxxxxxxx 11010010 00110010 01001000 xxxxxxxx
+        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(5);
+        byteBuffer.put(new byte[]{ 7, (byte)210, 50, 72, 7 });
+        byteBuffer.position(1);
+        byteBuffer.limit(4);
+        BitBuffer buffer = BitBuffer.wrap(byteBuffer);
+        assertThat(buffer.remainingBits()).isEqualTo(24);
+        assertThat(buffer.getByte(3, 8)).isEqualTo((byte)145);
+        assertThat(buffer.getByte(2)).isEqualTo((byte)3);
+        //010010 00110010 0100
+        assertThat(buffer.getInt(18)).isEqualTo(74532);
+        assertThat(buffer.array()).isEqualTo(new byte[]{ (byte)210, 50, 72 });
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ (byte)210, 50, 64 });
+        try {
+            buffer.getByte(5);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(byteBuffer.position()).isEqualTo(1);
+
+        buffer = BitBuffer.wrap(ByteBuffer.wrap(new byte[]{ 7, (byte)210, 50 }, 1, 2));
+        assertThat(buffer.array()).isEqualTo(new byte[]{ (byte)210, 50 });
+        assertThat(buffer.getInt(16)).isEqualTo(53810);
+    }
+
+    @Test
+    public void test_get_lsb_first() {
+        //10001101 00111100 00000001, bits from right of byte
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ (byte)141, 60, 1 },
+                BitOrder.LSB_FIRST);
+        assertThat(buffer.bitOrder()).isEqualTo(BitOrder.LSB_FIRST);
+        assertThat(buffer.getByte(3)).isEqualTo((byte)5);//101
+        assertThat(buffer.getByte(5)).isEqualTo((byte)17);//10001
+        assertThat(buffer.getInt(12)).isEqualTo(316);//0001 00111100
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ (byte)141, 60, 1 });
+        assertThat(buffer.getByte(4, 8)).isEqualTo((byte)200);//1100 1000
+        assertThat(buffer.getBytes(4, 12)).isEqualTo(new byte[]{ (byte)200, 3 });
+        try {
+            buffer.getByte(20, 8);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+
+        buffer = BitBuffer.wrapBytes(new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9 },
+                BitOrder.LSB_FIRST);
+        assertThat(buffer.getLong(4, 64)).isEqualTo(0x9080706050403020L);
+        assertThat(buffer.getLong(0, 64)).isEqualTo(0x0807060504030201L);
+        buffer.getByte(4);
+        assertThat(buffer.getBytes(64))
+                .isEqualTo(new byte[]{ 32, 48, 64, 80, 96, 112, (byte)128, (byte)144 });
+        assertThat(buffer.getUsedArray())
+                .isEqualTo(new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+        assertThat(buffer.getInt(4)).isEqualTo(0);
+    }
+
+    @Test
+    public void test_peek_skip_and_mark() {
+        //11010010 00110010 01001000
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ (byte)210, 50, 72 });
+        assertThat(buffer.peekInt(3)).isEqualTo(6);
+        assertThat(buffer.position()).isEqualTo(0);
+        buffer.skipBits(2);
+        assertThat(buffer.peekLong(10)).isEqualTo(291L);//0100100011
+        buffer.mark();
+        assertThat(buffer.getInt(6)).isEqualTo(18);
+        assertThat(buffer.position()).isEqualTo(8);
+        buffer.reset();
+        assertThat(buffer.position()).isEqualTo(2);
+        buffer.position(20);
+        assertThat(buffer.remainingBits()).isEqualTo(4);
+        assertThat(buffer.peekInt(4)).isEqualTo(8);
+        try {
+            buffer.skipBits(5);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        try {
+            buffer.peekLong(5);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        buffer.position(1);
+        try {
+            buffer.reset();
+            fail("Mark before position must be discarded.");
+        } catch(InvalidMarkException e) {
+        }
+        try {
+            buffer.position(25);
+            fail("Out of bounds must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void test_scan_bits() {
+        //10010101 01110001
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ (byte)149, 113 });
+        assertThat(buffer.nextSetBit(1)).isEqualTo(3);
+        assertThat(buffer.nextSetBit(12)).isEqualTo(15);
+        assertThat(buffer.nextSetBit(16)).isEqualTo(-1);
+        assertThat(buffer.nextClearBit(9)).isEqualTo(12);
+        assertThat(buffer.nextClearBit(15)).isEqualTo(-1);
+        assertThat(buffer.previousSetBit(14)).isEqualTo(11);
+        assertThat(buffer.previousSetBit(100)).isEqualTo(15);
+        assertThat(buffer.previousSetBit(-1)).isEqualTo(-1);
+        assertThat(buffer.cardinality(2, 12)).isEqualTo(6);
+        PrimitiveIterator.OfInt iterator = buffer.setBitIterator(4);
+        assertThat(iterator.nextInt()).isEqualTo(5);
+        assertThat(iterator.nextInt()).isEqualTo(7);
+        try {
+            buffer.cardinality(2, 17);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+
+        //1001 in LSB_FIRST
+        buffer = BitBuffer.allocate(4, BitOrder.LSB_FIRST);
+        buffer.put(9, 4);
+        assertThat(buffer.nextSetBit(1)).isEqualTo(3);
+        assertThat(buffer.previousSetBit(2)).isEqualTo(0);
+        assertThat(buffer.nextClearBit(0)).isEqualTo(1);
+        buffer.flip();
+        assertThat(buffer.nextSetBit(1)).isEqualTo(3);
+    }
+
+    @Test
+    public void test_scan_bits_same_as_get_in_both_orders() {
+        Random random = new Random(37);
+        for(BitOrder bitOrder : BitOrder.values()) {
+            for(int density = 0; density <= 8; density += 2) {
+                int bitLength = 1000 + random.nextInt(200);
+                boolean[] expected = new boolean[bitLength];
+                BitBuffer buffer = BitBuffer.allocate(bitLength + 7, bitOrder);
+                buffer.put(127, 7);
+                for(int i = 0; i < bitLength; i++) {
+                    expected[i] = random.nextInt(8) < density;
+                    buffer.put(expected[i] ? 1 : 0, 1);
+                }
+                BitBuffer slice = buffer.slice(7, bitLength);
+                PrimitiveIterator.OfInt iterator = slice.setBitIterator(0);
+                int count = 0;
+                for(int i = 0; i < bitLength; i++) {
+                    assertThat(slice.nextSetBit(i)).isEqualTo(next(expected, i, true));
+                    assertThat(slice.nextClearBit(i)).isEqualTo(next(expected, i, false));
+                    int previous = i;
+                    while(previous >= 0 && !expected[previous]) {
+                        previous--;
+                    }
+                    assertThat(slice.previousSetBit(i)).isEqualTo(previous);
+                    if(expected[i]) {
+                        count++;
+                        assertThat(iterator.nextInt()).isEqualTo(i);
+                    }
+                }
+                assertThat(iterator.hasNext()).isFalse();
+                assertThat(slice.cardinality(0, bitLength)).isEqualTo(count);
+                assertThat(slice.cardinality(3, bitLength - 5)).isEqualTo(
+                        count - (slice.cardinality(0, 3) + slice.cardinality(bitLength - 5,
+                                bitLength)));
+            }
+        }
+    }
+
+    private static int next(boolean[] bits, int from, boolean value) {
+        for(int i = from; i < bits.length; i++) {
+            if(bits[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
 }
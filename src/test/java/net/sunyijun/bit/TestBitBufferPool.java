@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestBitBufferPool {
+
+    @Test
+    public void test_reuse_buffers() {
+        BitBufferPool pool = BitBufferPool.create(20, 2);
+        BitBuffer first = pool.acquire();
+        BitBuffer second = pool.acquire();
+        assertThat(first).isNotSameAs(second);
+        first.put(5, 3);
+        pool.release(first);
+        pool.release(second);
+        assertThat(pool.acquire()).isSameAs(second);
+        BitBuffer buffer = pool.acquire();
+        assertThat(buffer).isSameAs(first);
+        assertThat(buffer.position()).isEqualTo(0);
+        assertThat(buffer.remainingBits()).isEqualTo(20);
+        BitBuffer third = pool.acquire();
+        assertThat(pool.hitCount()).isEqualTo(2L);
+        assertThat(pool.missCount()).isEqualTo(3L);
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        pool.release(BitBuffer.allocate(8));
+        pool.release(BitBuffer.allocate(20, BitOrder.LSB_FIRST));
+        assertThat(pool.acquire()).isSameAs(second);
+        assertThat(pool.acquire()).isSameAs(first);
+        assertThat(pool.acquire().remainingBits()).isEqualTo(20);
+        assertThat(pool.hitCount()).isEqualTo(4L);
+        assertThat(pool.missCount()).isEqualTo(4L);
+    }
+
+    @Test
+    public void test_drop_buffers_not_lent() {
+        BitBufferPool pool = BitBufferPool.create(16, 4);
+        BitBuffer other = BitBuffer.allocate(16);
+        other.put(3, 5);
+        pool.release(other);
+        assertThat(other.position()).isEqualTo(5);
+
+        BitBuffer buffer = pool.acquire();
+        buffer.put(3, 5);
+        BitBuffer duplicate = buffer.duplicate();
+        pool.release(duplicate);
+        pool.release(buffer.slice(0, 16));
+        assertThat(duplicate.position()).isEqualTo(5);
+        pool.release(buffer);
+        pool.release(buffer);
+        BitBuffer rewrapped = pool.acquire();
+        assertThat(rewrapped).isSameAs(buffer);
+        rewrapped.rewrap(new byte[2], 0, 2);
+        pool.release(rewrapped);
+        assertThat(pool.acquire()).isNotSameAs(buffer);
+        assertThat(pool.hitCount()).isEqualTo(1L);
+        assertThat(pool.missCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void test_buffers_of_each_thread() throws InterruptedException {
+        final BitBufferPool pool = BitBufferPool.create(16, 4, BitOrder.LSB_FIRST);
+        pool.release(pool.acquire());
+        final BitBuffer[] acquired = new BitBuffer[1];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                acquired[0] = pool.acquire();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertThat(acquired[0].bitOrder()).isEqualTo(BitOrder.LSB_FIRST);
+        assertThat(pool.hitCount()).isEqualTo(0L);
+        assertThat(pool.missCount()).isEqualTo(2L);
+        pool.acquire();
+        assertThat(pool.hitCount()).isEqualTo(1L);
+    }
+
+}
@@ -19,7 +19,14 @@ package net.sunyijun.bit;
 
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.Random;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.api.Assertions.fail;
@@ -312,4 +319,357 @@ public class TestBitBufferPut {
         assertThat(buffer.getByte(6)).isEqualTo((byte)28);//011100
     }
 
+    @Test
+    public void test_put_long_unaligned_in_nine_bytes() {
+        BitBuffer buffer = BitBuffer.allocate(72);
+        //101
+        buffer.put(5L, 3);
+        buffer.put(0x8101820283038404L, 64);
+        assertThat(buffer.remainingBits()).isEqualTo(5);
+        buffer.put(0x1fL, 5);
+        buffer.flip();
+        assertThat(buffer.remainingBits()).isEqualTo(72);
+        assertThat(buffer.getLong(3)).isEqualTo(5L);
+        assertThat(buffer.getLong(64)).isEqualTo(0x8101820283038404L);
+        assertThat(buffer.getInt(5)).isEqualTo(0x1f);
+
+        buffer = BitBuffer.allocate(64);
+        buffer.put(-1L, 64);
+        buffer.flip();
+        assertThat(buffer.getLong(64)).isEqualTo(-1L);
+
+        buffer = BitBuffer.allocate(20);
+        try {
+            buffer.put(1L, 21);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        try {
+            buffer.put(1L, 65);
+            fail("Out of length must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void test_put_int_fields_keep_other_bits() {
+        BitBuffer buffer = BitBuffer.allocate(100);
+        for(int i = 0; i < 5; i++) {
+            buffer.put(i * 37 + 3, 20);
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(0);
+        buffer.put((byte)7, 5, 3);// 111 at bits 5~7
+        buffer.flip();
+        assertThat(buffer.getInt(5)).isEqualTo(0);
+        assertThat(buffer.getInt(3)).isEqualTo(7);
+        assertThat(buffer.getInt(12)).isEqualTo(3);
+        for(int i = 1; i < 5; i++) {
+            assertThat(buffer.getInt(20)).isEqualTo(i * 37 + 3);
+        }
+
+        //11110000 11110000 11101001 10011100
+        buffer = BitBuffer.allocate(40);
+        buffer.put((byte)1, 1);
+        buffer.put(0xf0f0e99c, 32);
+        buffer.put((short)0xe99c, 7);
+        buffer.flip();
+        assertThat(buffer.getByte(1)).isEqualTo((byte)1);
+        assertThat(buffer.getInt(32)).isEqualTo(0xf0f0e99c);
+        assertThat(buffer.getByte(7)).isEqualTo((byte)0x1c);
+    }
+
+    @Test
+    public void test_put_in_direct_buffer_and_get_used_byte_buffer() {
+        BitBuffer buffer = BitBuffer.allocateDirect(20);
+        //101 11010010 01
+        buffer.put((byte)5, 3);
+        buffer.put((short)841, 10);
+        assertThat(buffer.remainingBits()).isEqualTo(7);
+        ByteBuffer used = buffer.getUsedByteBuffer();
+        assertThat(used.isReadOnly()).isTrue();
+        assertThat(used.remaining()).isEqualTo(2);
+        assertThat(used.get(0)).isEqualTo((byte)186);//10111010
+        assertThat(used.get(1)).isEqualTo((byte)72);//01001
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ (byte)186, 72 });
+
+        ByteBuffer target = ByteBuffer.allocateDirect(4);
+        target.position(1);
+        buffer = BitBuffer.wrap(target);
+        buffer.put(0xabcdef, 24);
+        assertThat(target.get(1)).isEqualTo((byte)0xab);
+        assertThat(target.get(3)).isEqualTo((byte)0xef);
+        assertThat(buffer.getUsedByteBuffer().remaining()).isEqualTo(3);
+
+        buffer = BitBuffer.wrap(ByteBuffer.wrap(new byte[2]).asReadOnlyBuffer());
+        try {
+            buffer.put(1, 3);
+            fail("Read only buffer must throw exception.");
+        } catch(ReadOnlyBufferException e) {
+        }
+    }
+
+    @Test
+    public void test_write_used_bytes() throws IOException {
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ -1, -1, -1 });
+        buffer.put((byte)5, 3);
+        buffer.put((short)841, 10);
+        assertWrittenBytes(buffer, new byte[]{ (byte)186, 72 });//10111010 01001
+
+        ByteBuffer dest = ByteBuffer.allocate(1);
+        try {
+            buffer.writeTo(dest);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(dest.position()).isEqualTo(0);
+
+        buffer = BitBuffer.allocateDirect(12000, BitOrder.LSB_FIRST);
+        Random random = new Random(29);
+        for(int i = 0; i < 11990; i += 10) {
+            buffer.put(random.nextInt(), 10);
+        }
+        assertWrittenBytes(buffer, buffer.getUsedArray());
+        buffer.flip();
+        buffer.getInt(5);
+        assertWrittenBytes(buffer, new byte[]{ buffer.getUsedArray()[0] });
+
+        byte[] bytes = new byte[]{ 1, (byte)0xf3, 2 };
+        buffer = BitBuffer.allocate(8).rewrap(bytes, 1, 2);
+        buffer.getInt(6);
+        assertWrittenBytes(buffer, new byte[]{ (byte)0xf0 });
+        buffer = BitBuffer.wrapBytes(bytes).slice(6, 12);
+        buffer.getInt(10);
+        assertWrittenBytes(buffer, new byte[]{ 124, (byte)192 });//01111100 11
+
+        //shifted by small buffer part by part
+        bytes = new byte[1200];
+        random.nextBytes(bytes);
+        for(BitOrder bitOrder : BitOrder.values()) {
+            buffer = BitBuffer.wrapBytes(bytes, bitOrder).slice(3, 9500);
+            buffer.skipBits(9405);
+            assertWrittenBytes(buffer, buffer.getUsedArray());
+            assertWrittenBytes(buffer, buffer.getUsedArray());
+        }
+
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.sink().configureBlocking(false);
+            try {
+                buffer.writeTo(pipe.sink());
+                fail("Non-blocking channel must throw exception.");
+            } catch(IllegalArgumentException e) {
+            }
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    private static void assertWrittenBytes(BitBuffer buffer, byte[] expected)
+            throws IOException {
+        ByteBuffer dest = ByteBuffer.allocate(expected.length + 1);
+        dest.put((byte)7);
+        assertThat(buffer.writeTo(dest)).isEqualTo(expected.length);
+        assertThat(dest.position()).isEqualTo(expected.length + 1);
+        for(int i = 0; i < expected.length; i++) {
+            assertThat(dest.get(i + 1)).isEqualTo(expected[i]);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(buffer.writeTo(out)).isEqualTo(expected.length);
+        assertThat(out.toByteArray()).isEqualTo(expected);
+
+        out = new ByteArrayOutputStream();
+        assertThat(buffer.writeTo(Channels.newChannel(out))).isEqualTo(expected.length);
+        assertThat(out.toByteArray()).isEqualTo(expected);
+        assertThat(buffer.getUsedArray()).isEqualTo(expected);
+    }
+
+    @Test
+    public void test_put_in_growable_buffer() {
+        BitBuffer buffer = BitBuffer.allocateGrowable(3);
+        for(int i = 0; i < 100; i++) {
+            buffer.put(i, 13);
+        }
+        buffer.put(0x8101820283038404L, 64);
+        buffer.put((byte)5, 0, 3);//101
+        buffer.flip();
+        assertThat(buffer.remainingBits()).isEqualTo(1364);
+        for(int i = 0; i < 100; i++) {
+            assertThat(buffer.getInt(13)).isEqualTo(i == 0 ? 5 << 10 : i);
+        }
+        assertThat(buffer.getLong(64)).isEqualTo(0x8101820283038404L);
+        try {
+            buffer.put((byte)1, 1);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+
+        buffer = BitBuffer.allocateGrowable(8, true);
+        buffer.put(new byte[]{ (byte)210, 89, (byte)210 }, 18);
+        buffer.flip();
+        assertThat(buffer.array()).isEqualTo(new byte[]{ (byte)210, 89, (byte)192 });
+        assertThat(buffer.remainingBits()).isEqualTo(18);
+    }
+
+    @Test
+    public void test_flip_after_put_whole_bytes() {
+        BitBuffer buffer = BitBuffer.allocate(10);
+        buffer.put(210, 8);
+        buffer.flip();
+        assertThat(buffer.remainingBits()).isEqualTo(8);
+        assertThat(buffer.getByte()).isEqualTo((byte)210);
+    }
+
+    @Test
+    public void test_put_bits_from_other_buffer() {
+        Random random = new Random(7);
+        byte[] data = new byte[64];
+        random.nextBytes(data);
+        int[][] ranges = { { 3, 5, 100 }, { 8, 16, 300 }, { 0, 7, 450 }, { 13, 13, 64 },
+                { 1, 0, 2 }, { 100, 33, 6 }, { 5, 9, 129 } };
+        for(int[] range : ranges) {
+            for(int direct = 0; direct < 2; direct++) {
+                BitBuffer src = BitBuffer.wrapBytes(data);
+                BitBuffer buffer = direct == 0 ? BitBuffer.allocate(500) :
+                        BitBuffer.allocateDirect(500);
+                buffer.put(-1L, 64);
+                buffer.put(src, range[0], range[1], range[2]);
+                assertBitsEqual(buffer, range[1], src, range[0], range[2]);
+                if(range[1] >= 64) {
+                    assertThat(buffer.getLong(0, 64)).isEqualTo(-1L);
+                }
+            }
+        }
+
+        //11010010 00110010 01001000
+        BitBuffer src = BitBuffer.wrapBytes(new byte[]{ (byte)210, 50, 72 });
+        src.getByte(2);
+        BitBuffer buffer = BitBuffer.allocate(20);
+        buffer.put((byte)1, 1);
+        buffer.put(src, 12);//010010 001100
+        assertThat(buffer.remainingBits()).isEqualTo(7);
+        assertThat(src.remainingBits()).isEqualTo(10);
+        buffer.flip();
+        assertThat(buffer.getInt(13)).isEqualTo(5260);//1010010 001100
+        try {
+            buffer.put(src, 0, 0, 25);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_put_overlap_bits_in_same_buffer() {
+        Random random = new Random(11);
+        byte[] data = new byte[40];
+        random.nextBytes(data);
+        int[][] ranges = { { 3, 50, 200 }, { 50, 3, 200 }, { 8, 24, 250 }, { 24, 8, 250 } };
+        for(int[] range : ranges) {
+            BitBuffer expected = BitBuffer.wrapBytes(data.clone());
+            BitBuffer buffer = BitBuffer.wrapBytes(data.clone());
+            buffer.put(buffer, range[0], range[1], range[2]);
+            assertBitsEqual(buffer, range[1], expected, range[0], range[2]);
+        }
+    }
+
+    private static void assertBitsEqual(BitBuffer buffer, int bitIndex, BitBuffer expected,
+                                        int expectedBitIndex, int bitLength) {
+        for(int i = 0; i < bitLength; i++) {
+            assertThat(buffer.getInt(bitIndex + i, 1))
+                    .isEqualTo(expected.getInt(expectedBitIndex + i, 1));
+        }
+    }
+
+    @Test
+    public void test_put_lsb_first() {
+        BitBuffer buffer = BitBuffer.allocate(40, BitOrder.LSB_FIRST);
+        buffer.put((byte)5, 3);
+        buffer.put((byte)17, 5);
+        buffer.put(new byte[]{ 60, 15 }, 12);
+        buffer.put((byte)0, 17, 2);
+        //0x1234 right 12 bits 0x234
+        buffer.putRightPart(new byte[]{ 0x12, 0x34 }, 12);
+        //11000000 in MSB_FIRST, bits keep order
+        buffer.put(BitBuffer.wrapBytes(new byte[]{ (byte)192 }), 8);
+        //10001101 00111100 01001001 00100011 00000011
+        assertThat(buffer.getUsedArray())
+                .isEqualTo(new byte[]{ (byte)141, 60, 73, 35, 3 });
+        buffer.flip();
+        assertThat(buffer.getByte(3)).isEqualTo((byte)5);
+        assertThat(buffer.getByte(5)).isEqualTo((byte)17);
+        assertThat(buffer.getBytes(12)).isEqualTo(new byte[]{ 60, 9 });
+
+        buffer = BitBuffer.allocate(14, BitOrder.LSB_FIRST);
+        buffer.put(-1, 14);
+        assertThat(buffer.array()).isEqualTo(new byte[]{ -1, 63 });
+        try {
+            buffer.put(1, 1);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_put_and_get_random_in_both_orders() {
+        for(BitOrder bitOrder : BitOrder.values()) {
+            Random random = new Random(11);
+            BitBuffer buffer = BitBuffer.allocateGrowable(8, false, bitOrder);
+            long[] values = new long[200];
+            byte[] bytes = new byte[21];
+            random.nextBytes(bytes);
+            for(int i = 0; i < values.length; i++) {
+                values[i] = random.nextLong() >>> (63 - i % 64);
+                buffer.put(values[i], i % 64 + 1);
+            }
+            buffer.put(bytes);
+            buffer.flip();
+            assertThat(buffer.bitOrder()).isEqualTo(bitOrder);
+            for(int i = 0; i < values.length; i++) {
+                assertThat(buffer.getLong(i % 64 + 1)).isEqualTo(values[i]);
+            }
+            assertThat(buffer.getBytes(168)).isEqualTo(bytes);
+        }
+    }
+
+    @Test
+    public void test_put_and_get_signed_fields() {
+        BitBuffer buffer = BitBuffer.allocate(200);
+        buffer.putSigned(-6, 5);//11010
+        buffer.putSigned(2047, 12);
+        buffer.putSigned(-2048, 12);
+        buffer.putSigned(-1, 23);
+        buffer.putSigned(Long.MIN_VALUE, 64);
+        buffer.putZigZag(-3, 3);//101
+        buffer.putZigZag(3, 3);//110
+        buffer.putZigZag(Long.MIN_VALUE, 64);
+        try {
+            buffer.putSigned(2048, 12);
+            fail("Out of range must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+        try {
+            buffer.putSigned(-17, 5);
+            fail("Out of range must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+        try {
+            buffer.putZigZag(-5, 3);
+            fail("Out of range must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+        assertThat(buffer.position()).isEqualTo(186);
+        buffer.flip();
+        assertThat(buffer.peekInt(5)).isEqualTo(26);
+        assertThat(buffer.getSignedInt(5)).isEqualTo(-6);
+        assertThat(buffer.getSignedInt(12)).isEqualTo(2047);
+        assertThat(buffer.getSignedLong(12)).isEqualTo(-2048L);
+        assertThat(buffer.getSignedInt(23)).isEqualTo(-1);
+        assertThat(buffer.getSignedLong(64)).isEqualTo(Long.MIN_VALUE);
+        assertThat(buffer.getZigZagInt(3)).isEqualTo(-3);
+        assertThat(buffer.getZigZagLong(3)).isEqualTo(3L);
+        assertThat(buffer.getZigZagLong(64)).isEqualTo(Long.MIN_VALUE);
+        assertThat(buffer.remainingBits()).isEqualTo(0);
+    }
+
 }
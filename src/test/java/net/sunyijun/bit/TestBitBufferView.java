@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ReadOnlyBufferException;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestBitBufferView {
+
+    @Test
+    public void test_duplicate_have_own_position() {
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ (byte)149, 113 });
+        buffer.getByte(3);
+        BitBuffer duplicate = buffer.duplicate();
+        assertThat(duplicate.position()).isEqualTo(3);
+        assertThat(duplicate.getInt(5)).isEqualTo(21);//10101
+        assertThat(buffer.position()).isEqualTo(3);
+        assertThat(buffer.getInt(5)).isEqualTo(21);
+
+        duplicate.put((byte)0, 0, 1);
+        assertThat(buffer.getInt(0, 8)).isEqualTo(21);//00010101
+    }
+
+    @Test
+    public void test_slice_not_aligned() {
+        //10010101 01110001
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ (byte)149, 113 });
+        BitBuffer slice = buffer.slice(5, 6);
+        assertThat(slice.position()).isEqualTo(0);
+        assertThat(slice.remainingBits()).isEqualTo(6);
+        assertThat(slice.getInt(6)).isEqualTo(43);//101011
+        try {
+            slice.getByte(1);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(slice.array()).isEqualTo(new byte[]{ (byte)172 });//10101100
+
+        slice.position(0);
+        slice.put(0, 6);
+        //10010000 00010001
+        assertThat(buffer.array()).isEqualTo(new byte[]{ (byte)144, 17 });
+        slice.put((byte)15, 1, 4);
+        assertThat(buffer.array()).isEqualTo(new byte[]{ (byte)147, (byte)209 });
+
+        BitBuffer sliceOfSlice = slice.slice(1, 4);
+        assertThat(sliceOfSlice.getInt(4)).isEqualTo(15);
+        sliceOfSlice.flip();
+        assertThat(sliceOfSlice.remainingBits()).isEqualTo(4);
+        assertThat(sliceOfSlice.getUsedByteBuffer().remaining()).isEqualTo(0);
+        try {
+            buffer.slice(10, 7);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_read_only() {
+        BitBuffer buffer = BitBuffer.allocate(20);
+        BitBuffer readOnly = buffer.asReadOnly();
+        assertThat(readOnly.isReadOnly()).isTrue();
+        assertThat(buffer.isReadOnly()).isFalse();
+        buffer.put(5, 3);
+        assertThat(readOnly.getInt(3)).isEqualTo(5);
+        try {
+            readOnly.put(1, 1);
+            fail("Put into read-only buffer must throw exception.");
+        } catch(ReadOnlyBufferException e) {
+        }
+        assertThat(readOnly.position()).isEqualTo(3);
+        assertThat(readOnly.slice(1, 2).isReadOnly()).isTrue();
+        assertThat(readOnly.duplicate().isReadOnly()).isTrue();
+    }
+
+    @Test
+    public void test_slice_same_as_buffer_in_both_orders() {
+        Random random = new Random(23);
+        byte[] bytes = new byte[40];
+        random.nextBytes(bytes);
+        for(BitOrder bitOrder : BitOrder.values()) {
+            BitBuffer buffer = BitBuffer.wrapBytes(bytes.clone(), bitOrder);
+            for(int start = 0; start < 16; start++) {
+                int bitLength = 300 - start * 7;
+                BitBuffer slice = buffer.asReadOnly().slice(start, bitLength);
+                assertThat(slice.getBytes(bitLength)).isEqualTo(
+                        buffer.getBytes(start, bitLength));
+                for(int i = 0; i + 64 <= bitLength; i += 13) {
+                    assertThat(slice.getLong(i, 64)).isEqualTo(buffer.getLong(start + i, 64));
+                }
+                slice.flip();
+                BitBuffer copy = BitBuffer.allocate(bitLength + 3, bitOrder);
+                copy.put(0, 3);
+                copy.put(slice, bitLength);
+                assertThat(copy.getBytes(3, bitLength)).isEqualTo(
+                        buffer.getBytes(start, bitLength));
+
+                // bits around the slice not change
+                long before = start == 0 ? 0 : buffer.getLong(start - 1, 1);
+                long after = buffer.getLong(start + bitLength, 5);
+                slice = buffer.slice(start, bitLength);
+                long value = random.nextLong();
+                slice.put(value, 64);
+                slice.position(bitLength - 64);
+                slice.put(value, 64);
+                assertThat(buffer.getLong(start, 64)).isEqualTo(value);
+                assertThat(buffer.getLong(start + bitLength - 64, 64)).isEqualTo(value);
+                if(start > 0) {
+                    assertThat(buffer.getLong(start - 1, 1)).isEqualTo(before);
+                }
+                assertThat(buffer.getLong(start + bitLength, 5)).isEqualTo(after);
+            }
+        }
+    }
+
+    @Test
+    public void test_rewrap_and_clear() {
+        byte[] bytes = new byte[]{ (byte)0xa5, 0x3c, (byte)0xf0, 0x0f };
+        BitBuffer buffer = BitBuffer.allocate(8);
+        buffer.rewrap(bytes, 1, 2);
+        assertThat(buffer.remainingBits()).isEqualTo(16);
+        assertThat(buffer.getByte()).isEqualTo((byte)0x3c);
+        assertThat(buffer.getInt(4)).isEqualTo(15);
+        buffer.put((byte)5, 4);
+        assertThat(bytes[2]).isEqualTo((byte)0xf5);
+        try {
+            buffer.put((byte)1, 1);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(buffer.getUsedByteBuffer().remaining()).isEqualTo(2);
+        assertThat(buffer.getUsedByteBuffer().get(0)).isEqualTo((byte)0x3c);
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ 0x3c, (byte)0xf5 });
+        buffer.flip();
+        assertThat(buffer.getInt(16)).isEqualTo(0x3cf5);
+        buffer.clear();
+        assertThat(buffer.position()).isEqualTo(0);
+        assertThat(buffer.remainingBits()).isEqualTo(16);
+
+        buffer.rewrap(bytes, 3, 1);
+        assertThat(buffer.getByte()).isEqualTo((byte)0x0f);
+        assertThat(buffer.remainingBits()).isEqualTo(0);
+        //10100101 0011[1100 1111]0101
+        assertThat(buffer.rewrap(bytes, 0, 4).slice(12, 8).getByte()).isEqualTo((byte)0xcf);
+        try {
+            buffer.rewrap(bytes, 3, 2);
+            fail("Out of bounds must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+
+        buffer = BitBuffer.allocate(8, BitOrder.LSB_FIRST).rewrap(bytes, 1, 1);
+        assertThat(buffer.getInt(4)).isEqualTo(12);
+        buffer = BitBuffer.allocateGrowable(8);
+        buffer.put(-1L, 20);
+        buffer.clear();
+        assertThat(buffer.remainingBits()).isEqualTo(buffer.array().length << 3);
+    }
+
+}
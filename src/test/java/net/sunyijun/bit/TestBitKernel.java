@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+
+/**
+ * Vector kernel is tested on Java 17 or later, with java17 profile of pom.
+ *
+ * @author SunYiJun
+ */
+public class TestBitKernel {
+
+    @Test
+    public void test_scalar_kernel() {
+        byte[] left = { (byte)149, 113, -1 };
+        byte[] right = { (byte)240, 15 };
+        byte[] dest = new byte[2];
+        BitKernel.SCALAR.combine(BitBuffer.AND_NOT, left, 1, right, 0, dest, 0, 2);
+        assertThat(dest).isEqualTo(new byte[]{ 1, (byte)240 });
+        BitKernel.SCALAR.combine(BitBuffer.NOT, left, 0, null, 0, dest, 0, 2);
+        assertThat(dest).isEqualTo(new byte[]{ 106, (byte)142 });
+        assertThat(BitKernel.SCALAR.bitCount(left, 0, 3)).isEqualTo(16L);
+    }
+
+    @Test
+    public void test_vector_kernel_same_as_scalar() {
+        String javaVersion = System.getProperty("java.specification.version");
+        Assume.assumeTrue(!javaVersion.startsWith("1.") && Integer.parseInt(javaVersion) >= 17);
+        assertThat(BitKernel.VECTOR).isNotNull();
+        assertThat(BitKernel.INSTANCE).isSameAs(BitKernel.VECTOR);
+
+        Random random = new Random(47);
+        byte[] left = new byte[2000];
+        byte[] right = new byte[2000];
+        for(int n = 0; n < 200; n++) {
+            random.nextBytes(left);
+            random.nextBytes(right);
+            int length = random.nextInt(1900);
+            int leftOffset = random.nextInt(50);
+            int rightOffset = random.nextInt(50);
+            int destOffset = random.nextInt(50);
+            for(int operation = BitBuffer.AND; operation <= BitBuffer.NOT; operation++) {
+                byte[] expected = new byte[2000];
+                byte[] actual = new byte[2000];
+                BitKernel.SCALAR.combine(operation, left, leftOffset, right, rightOffset,
+                        expected, destOffset, length);
+                BitKernel.VECTOR.combine(operation, left, leftOffset, right, rightOffset,
+                        actual, destOffset, length);
+                assertThat(actual).isEqualTo(expected);
+            }
+            assertThat(BitKernel.VECTOR.bitCount(left, leftOffset, length)).isEqualTo(
+                    BitKernel.SCALAR.bitCount(left, leftOffset, length));
+        }
+        // in place
+        byte[] expected = left.clone();
+        BitKernel.SCALAR.combine(BitBuffer.XOR, expected, 0, right, 0, expected, 0, 2000);
+        BitKernel.VECTOR.combine(BitBuffer.XOR, left, 0, right, 0, left, 0, 2000);
+        assertThat(left).isEqualTo(expected);
+    }
+
+}
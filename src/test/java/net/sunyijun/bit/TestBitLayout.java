@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestBitLayout {
+
+    @Test
+    public void test_decode_and_encode_records() {
+        BitLayout layout = BitLayout.builder().field("version", 3).field("id", 13)
+                .signedField("delta", 20).build();
+        assertThat(layout.recordBitLength()).isEqualTo(36);
+        assertThat(layout.fieldIndex("delta")).isEqualTo(2);
+        assertThat(layout.fieldIndex("none")).isEqualTo(-1);
+
+        BitBuffer buffer = BitBuffer.allocate(72);
+        //010 0000000000101 11111111111111111110
+        buffer.put(0x4005ffffeL, 36);
+        buffer.put(0xe0000000aL, 36);
+        buffer.flip();
+        long[][] columns = layout.decode(buffer, 2);
+        assertThat(buffer.remainingBits()).isEqualTo(0);
+        assertThat(columns[0]).isEqualTo(new long[]{ 2, 7 });
+        assertThat(columns[1]).isEqualTo(new long[]{ 5, 0 });
+        assertThat(columns[2]).isEqualTo(new long[]{ -2, 10 });
+
+        BitBuffer encoded = BitBuffer.allocate(72);
+        layout.encode(columns, 0, 2, encoded);
+        assertThat(encoded.getUsedArray()).isEqualTo(buffer.array());
+
+        buffer.flip();
+        buffer.skipBits(36);
+        try {
+            layout.decode(buffer, 2);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(36);
+        try {
+            layout.encode(columns, 0, 3, BitBuffer.allocate(108));
+            fail("Out of bounds must throw exception.");
+        } catch(IndexOutOfBoundsException e) {
+        }
+        try {
+            BitLayout.builder().field("id", 3).signedField("id", 5);
+            fail("Same name must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void test_same_as_get_and_put_in_both_orders() {
+        Random random = new Random(31);
+        int recordCount = 20;
+        for(int round = 0; round < 40; round++) {
+            BitLayout.Builder builder = BitLayout.builder();
+            int fieldCount = 1 + random.nextInt(8);
+            int[] skips = new int[fieldCount + 1];
+            boolean[] signed = new boolean[fieldCount];
+            for(int i = 0; i <= fieldCount; i++) {
+                skips[i] = random.nextInt(4) == 0 ? random.nextInt(150) : 0;
+                builder.skip(skips[i]);
+                if(i == fieldCount) {
+                    break;
+                }
+                signed[i] = random.nextBoolean();
+                if(signed[i]) {
+                    builder.signedField("f" + i, 1 + random.nextInt(64));
+                } else {
+                    builder.field("f" + i, 1 + random.nextInt(64));
+                }
+            }
+            BitLayout layout = builder.build();
+            int bitLength = recordCount * layout.recordBitLength();
+            for(BitOrder bitOrder : BitOrder.values()) {
+                BitBuffer buffer = BitBuffer.allocate(3 + bitLength, bitOrder);
+                buffer.put(-1, 3);
+                for(int i = 0; i < bitLength; i += 64) {
+                    buffer.put(random.nextLong(), Math.min(64, bitLength - i));
+                }
+                buffer.flip();
+                buffer.getInt(3);
+                long[][] columns = new long[fieldCount][recordCount + 1];
+                columns[0] = null;
+                layout.decode(buffer, columns, 1, recordCount);
+                assertThat(buffer.remainingBits()).isEqualTo(0);
+
+                buffer.position(3);
+                BitBuffer expected = BitBuffer.allocate(bitLength, bitOrder);
+                columns[0] = new long[recordCount + 1];
+                for(int record = 1; record <= recordCount; record++) {
+                    for(int i = 0; i <= fieldCount; i++) {
+                        buffer.skipBits(skips[i]);
+                        for(int j = 0; j < skips[i]; j += 64) {
+                            expected.put(0L, Math.min(64, skips[i] - j));
+                        }
+                        if(i == fieldCount) {
+                            break;
+                        }
+                        int bitWidth = layout.fieldBitWidth(i);
+                        long value = signed[i] ? buffer.getSignedLong(bitWidth) :
+                                buffer.getLong(bitWidth);
+                        expected.put(value, bitWidth);
+                        if(i == 0) {
+                            columns[0][record] = value;
+                        } else {
+                            assertThat(columns[i][record]).isEqualTo(value);
+                        }
+                    }
+                }
+                BitBuffer encoded = BitBuffer.allocateGrowable(8, false, bitOrder);
+                layout.encode(columns, 1, recordCount, encoded);
+                assertThat(encoded.getUsedArray()).isEqualTo(expected.getUsedArray());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestBitLogicHelper {
+
+    @Test
+    public void test_operate_in_place() {
+        //10010101
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ (byte)149 });
+        //11110000
+        BitBuffer src = BitBuffer.wrapBytes(new byte[]{ (byte)240 });
+        buffer.and(src, 2, 0, 6);
+        assertThat(buffer.getInt(0, 8)).isEqualTo(129);//10000001
+        buffer.or(src);
+        assertThat(buffer.getInt(0, 8)).isEqualTo(241);//11110001
+        buffer.xor(src, 0, 4, 4);
+        assertThat(buffer.getInt(0, 8)).isEqualTo(254);//11111110
+        buffer.andNot(src);
+        assertThat(buffer.getInt(0, 8)).isEqualTo(14);//00001110
+        buffer.getByte(2);
+        buffer.not();
+        assertThat(buffer.getInt(0, 8)).isEqualTo(49);//00110001
+        assertThat(buffer.position()).isEqualTo(2);
+        buffer.not(0, 1);
+        assertThat(buffer.getInt(0, 8)).isEqualTo(177);//10110001
+        try {
+            buffer.and(src, 1, 0, 8);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_operate_to_new_buffer() {
+        //10010101 01110001
+        BitBuffer left = BitBuffer.wrapBytes(new byte[]{ (byte)149, 113 });
+        //11110000
+        BitBuffer right = BitBuffer.wrapBytes(new byte[]{ (byte)240 });
+        left.getByte(8);
+        BitBuffer result = BitLogicHelper.and(left, right);
+        assertThat(result.remainingBits()).isEqualTo(8);
+        assertThat(result.getInt(8)).isEqualTo(112);//01110000
+        assertThat(BitLogicHelper.or(left, right).getInt(8)).isEqualTo(241);
+        assertThat(BitLogicHelper.xor(left, right).getInt(8)).isEqualTo(129);
+        assertThat(BitLogicHelper.andNot(left, right).getInt(8)).isEqualTo(1);
+        assertThat(BitLogicHelper.not(left).getInt(8)).isEqualTo(142);
+        assertThat(left.position()).isEqualTo(8);
+        assertThat(left.getInt(0, 8)).isEqualTo(149);
+        left.position(0);
+        try {
+            BitLogicHelper.and(left, right);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_same_as_bit_by_bit_at_any_offset() {
+        Random random = new Random(41);
+        int bitLength = 1000;
+        for(BitOrder leftOrder : BitOrder.values()) {
+            for(BitOrder rightOrder : BitOrder.values()) {
+                for(int n = 0; n < 30; n++) {
+                    int leftIndex = random.nextInt(20);
+                    int rightIndex = random.nextInt(20);
+                    int length = random.nextInt(bitLength - 20);
+                    int operation = random.nextInt(5);
+                    BitBuffer left = randomBuffer(random, bitLength, leftOrder);
+                    BitBuffer right = randomBuffer(random, bitLength, rightOrder);
+                    boolean[] expected = new boolean[bitLength];
+                    for(int i = 0; i < bitLength; i++) {
+                        expected[i] = left.getByte(i, 1) == 1;
+                    }
+                    for(int i = 0; i < length; i++) {
+                        boolean a = expected[leftIndex + i];
+                        boolean b = right.getByte(rightIndex + i, 1) == 1;
+                        expected[leftIndex + i] = operation == 0 ? a & b :
+                                operation == 1 ? a | b : operation == 2 ? a ^ b :
+                                        operation == 3 ? a & !b : !a;
+                    }
+                    switch(operation) {
+                        case 0:
+                            left.and(right, rightIndex, leftIndex, length);
+                            break;
+                        case 1:
+                            left.or(right, rightIndex, leftIndex, length);
+                            break;
+                        case 2:
+                            left.xor(right, rightIndex, leftIndex, length);
+                            break;
+                        case 3:
+                            left.andNot(right, rightIndex, leftIndex, length);
+                            break;
+                        default:
+                            left.not(leftIndex, length);
+                    }
+                    for(int i = 0; i < bitLength; i++) {
+                        assertThat(left.getByte(i, 1) == 1).isEqualTo(expected[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_overlap_in_same_buffer() {
+        Random random = new Random(43);
+        BitBuffer buffer = randomBuffer(random, 500, BitOrder.MSB_FIRST);
+        BitBuffer copy = BitBuffer.allocate(500);
+        copy.put(buffer, 0, 0, 500);
+        buffer.xor(buffer, 3, 50, 300);
+        copy.xor(BitBuffer.wrapBytes(copy.array()), 3, 50, 300);
+        assertThat(buffer.array()).isEqualTo(copy.array());
+        buffer.or(buffer, 100, 37, 300);
+        copy.or(BitBuffer.wrapBytes(copy.array()), 100, 37, 300);
+        assertThat(buffer.array()).isEqualTo(copy.array());
+    }
+
+    private static BitBuffer randomBuffer(Random random, int bitLength, BitOrder bitOrder) {
+        byte[] bytes = new byte[(bitLength + 7) >>> 3];
+        random.nextBytes(bytes);
+        BitBuffer buffer = BitBuffer.allocate(bitLength, bitOrder);
+        buffer.put(bytes, bitLength);
+        buffer.flip();
+        return buffer;
+    }
+
+}
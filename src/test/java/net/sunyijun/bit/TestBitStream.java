@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestBitStream {
+
+    @Test
+    public void test_get_cross_blocks() throws IOException {
+        //11010010  00110010  01001000
+        byte[] data = { (byte)210, 50, 72 };
+        BitInputStream in = new BitInputStream(new ByteArrayInputStream(data), 1);
+        assertThat(in.getByte(2)).isEqualTo((byte)3);
+        //01001000
+        assertThat(in.getByte(8)).isEqualTo((byte)72);
+        //11 00100100
+        assertThat(in.getBytes(10)).isEqualTo(new byte[]{ 3, 36 });
+        assertThat(in.getInt(4)).isEqualTo(8);
+        try {
+            in.getByte(1);
+            fail("Out of bounds must throw exception.");
+        } catch(EOFException e) {
+        }
+        assertThat(in.read()).isEqualTo(-1);
+
+        data = new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+        in = new BitInputStream(Channels.newChannel(new ByteArrayInputStream(data)), 2);
+        assertThat(in.getInt(4)).isEqualTo(0);
+        assertThat(in.getLong(64)).isEqualTo(0x1020304050607080L);
+        assertThat(in.getByte(4)).isEqualTo((byte)9);
+    }
+
+    @Test
+    public void test_get_long_not_enough_bits() throws IOException {
+        byte[] data = { 1, 2, 3, 4, 5, 6, 7, 8 };
+        BitInputStream in = new BitInputStream(new ByteArrayInputStream(data), 3);
+        assertThat(in.getInt(4)).isEqualTo(0);
+        try {
+            in.getLong(64);
+            fail("Out of bounds must throw exception.");
+        } catch(EOFException e) {
+        }
+        assertThat(in.getLong(60)).isEqualTo(0x102030405060708L);
+
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.source().configureBlocking(false);
+            try {
+                new BitInputStream(pipe.source());
+                fail("Non-blocking channel must throw exception.");
+            } catch(IllegalArgumentException e) {
+            }
+            pipe.sink().configureBlocking(false);
+            try {
+                new BitOutputStream(pipe.sink());
+                fail("Non-blocking channel must throw exception.");
+            } catch(IllegalArgumentException e) {
+            }
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    @Test
+    public void test_get_bytes_not_enough_bits() throws IOException {
+        byte[] data = { 1, 2, 3, 4, 5, 6, 7, 8 };
+        //more bits than block holds
+        BitInputStream in = new BitInputStream(new ByteArrayInputStream(data), 3);
+        assertThat(in.getInt(4)).isEqualTo(0);
+        try {
+            in.getBytes(61);
+            fail("Out of bounds must throw exception.");
+        } catch(EOFException e) {
+        }
+        assertThat(in.getBytes(52)).isEqualTo(new byte[]{ 1, 2, 3, 4, 5, 6, 7 });
+        assertThat(in.getInt(8)).isEqualTo(8);
+        in = new BitInputStream(Channels.newChannel(new ByteArrayInputStream(data)), 2);
+        in.getInt(3);
+        try {
+            in.getBytes(62);
+            fail("Out of bounds must throw exception.");
+        } catch(EOFException e) {
+        }
+        assertThat(in.getBytes(61)).isEqualTo(new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8 });
+    }
+
+    @Test
+    public void test_put_and_get_round_trip() throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        BitOutputStream out = new BitOutputStream(bytesOut, 3);
+        BitBuffer buffer = BitBuffer.allocate(2000);
+        for(int i = 0; i < 20; i++) {
+            out.put(i, i + 1);
+            buffer.put(i, i + 1);
+            out.put((long)i * 0x0123456789abcdefL, 64);
+            buffer.put((long)i * 0x0123456789abcdefL, 64);
+        }
+        out.put((byte)5, 3);
+        buffer.put((byte)5, 3);
+        out.put(new byte[]{ (byte)210, 89 }, 13);
+        buffer.put(new byte[]{ (byte)210, 89 }, 13);
+        out.close();
+        assertThat(bytesOut.toByteArray()).isEqualTo(buffer.getUsedArray());
+
+        BitInputStream in = new BitInputStream(
+                new ByteArrayInputStream(bytesOut.toByteArray()), 5);
+        for(int i = 0; i < 20; i++) {
+            assertThat(in.getInt(i + 1)).isEqualTo(i);
+            assertThat(in.getLong(64)).isEqualTo((long)i * 0x0123456789abcdefL);
+        }
+        assertThat(in.getByte(3)).isEqualTo((byte)5);
+        //11010010 01011
+        assertThat(in.getBytes(13)).isEqualTo(new byte[]{ 26, 75 });
+    }
+
+    @Test
+    public void test_flush_keep_not_whole_byte() throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        BitOutputStream out = new BitOutputStream(Channels.newChannel(bytesOut));
+        out.put((byte)13, 4);//1101
+        out.put((short)0x1e9, 9);//1 11101001
+        out.flush();
+        //11011111 01001
+        assertThat(bytesOut.toByteArray()).isEqualTo(new byte[]{ (byte)223 });
+        out.write(new byte[]{ (byte)255 });
+        out.close();
+        //11011111 01001111 11111000
+        assertThat(bytesOut.toByteArray())
+                .isEqualTo(new byte[]{ (byte)223, 79, (byte)248 });
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestConcurrentBitArray {
+
+    @Test
+    public void test_set_clear_flip() {
+        ConcurrentBitArray array = ConcurrentBitArray.allocate(70);
+        assertThat(array.set(3)).isTrue();
+        assertThat(array.set(3)).isFalse();
+        assertThat(array.get(3)).isTrue();
+        assertThat(array.getAndSet(69, true)).isFalse();
+        assertThat(array.getAndSet(69, false)).isTrue();
+        assertThat(array.flip(64)).isTrue();
+        assertThat(array.flip(64)).isFalse();
+        assertThat(array.flip(64)).isTrue();
+        assertThat(array.clear(3)).isTrue();
+        assertThat(array.clear(3)).isFalse();
+        assertThat(array.cardinality()).isEqualTo(1);
+        try {
+            array.get(70);
+            fail("Out of bounds must throw exception.");
+        } catch(IndexOutOfBoundsException e) {
+        }
+    }
+
+    @Test
+    public void test_fields_and_bit_buffer() {
+        ConcurrentBitArray array = ConcurrentBitArray.allocate(100);
+        array.putField(60, 0x2d5, 10);//10 1101 0101, cross two longs
+        array.putField(0, -1L, 3);
+        assertThat(array.getField(60, 10)).isEqualTo(0x2d5L);
+        assertThat(array.getField(0, 4)).isEqualTo(14L);
+        assertThat(array.compareAndSetField(8, 0, 0xab, 8)).isTrue();
+        assertThat(array.compareAndSetField(8, 0, 0xcd, 8)).isFalse();
+        assertThat(array.getField(8, 8)).isEqualTo(0xabL);
+        try {
+            array.compareAndSetField(60, 0x2d5, 0, 10);
+            fail("Bits cross two longs must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+
+        BitBuffer buffer = array.toBitBuffer();
+        assertThat(buffer.remainingBits()).isEqualTo(100);
+        assertThat(buffer.getInt(16)).isEqualTo(0xe0ab);
+        buffer.skipBits(44);
+        assertThat(buffer.getInt(10)).isEqualTo(0x2d5);
+        buffer.position(0);
+        assertThat(ConcurrentBitArray.copyOf(buffer).getField(60, 10)).isEqualTo(0x2d5L);
+
+        buffer = array.toBitBuffer(BitOrder.LSB_FIRST);
+        assertThat(buffer.getInt(3)).isEqualTo(7);
+        buffer.position(60);
+        assertThat(buffer.getInt(10)).isEqualTo(0x2ad);//reversed 10 1101 0101
+        buffer.position(0);
+        ConcurrentBitArray copy = ConcurrentBitArray.copyOf(buffer);
+        for(int i = 0; i < 100; i++) {
+            assertThat(copy.get(i)).isEqualTo(array.get(i));
+        }
+    }
+
+    @Test
+    public void test_change_in_many_threads() throws InterruptedException {
+        final int threadCount = 8;
+        final ConcurrentBitArray array = ConcurrentBitArray.allocate(threadCount * 2000 + 1000);
+        final AtomicInteger winCount = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[threadCount];
+        for(int t = 0; t < threadCount; t++) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch(InterruptedException e) {
+                        return;
+                    }
+                    for(int i = 0; i < 1000; i++) {
+                        // bits of all threads are in same longs
+                        array.set(i * threadCount + offset);
+                        // all threads try same bit, only one win
+                        if(!array.getAndSet(threadCount * 2000 + i, true)) {
+                            winCount.incrementAndGet();
+                        }
+                        array.putField(threadCount * 1000 + i * threadCount + offset, 1, 1);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(array.cardinality()).isEqualTo(threadCount * 2000 + 1000);
+        assertThat(winCount.get()).isEqualTo(1000);
+    }
+
+}
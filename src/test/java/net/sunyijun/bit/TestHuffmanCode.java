@@ -0,0 +1,155 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestHuffmanCode {
+
+    @Test
+    public void test_canonical_codes_from_code_lengths() {
+        HuffmanCode code = HuffmanCode.fromCodeLengths(new int[]{ 3, 3, 3, 3, 3, 2, 4, 4 });
+        assertThat(code.code(0)).isEqualTo(2);//010
+        assertThat(code.code(4)).isEqualTo(6);//110
+        assertThat(code.code(5)).isEqualTo(0);//00
+        assertThat(code.code(7)).isEqualTo(15);//1111
+
+        BitBuffer buffer = BitBuffer.allocate(16);
+        code.encode(buffer, 5);
+        code.encode(buffer, 7);
+        code.encode(buffer, 1);
+        //00 1111 011
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ 61, (byte)128 });
+        buffer.flip();
+        assertThat(code.decode(buffer)).isEqualTo(5);
+        assertThat(code.decode(buffer)).isEqualTo(7);
+        assertThat(code.decode(buffer)).isEqualTo(1);
+
+        buffer = BitBuffer.allocate(16, BitOrder.LSB_FIRST);
+        code.encode(buffer, new int[]{ 5, 7, 1 }, 0, 3);
+        //first bit is right bit of byte
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ (byte)188, 1 });
+        buffer.flip();
+        int[] symbols = new int[3];
+        code.decode(buffer, symbols, 0, 3);
+        assertThat(symbols).isEqualTo(new int[]{ 5, 7, 1 });
+
+        try {
+            HuffmanCode.fromCodeLengths(new int[]{ 1, 2, 2, 2 });
+            fail("Not a prefix code must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void test_encode_and_decode_long_codes_in_both_orders() {
+        // fibonacci frequencies make codes up to 19 bits, longer than root table
+        long[] frequencies = new long[20];
+        frequencies[0] = 1;
+        frequencies[1] = 1;
+        for(int i = 2; i < frequencies.length; i++) {
+            frequencies[i] = frequencies[i - 1] + frequencies[i - 2];
+        }
+        HuffmanCode code = HuffmanCode.fromFrequencies(frequencies);
+        assertThat(code.codeLength(0)).isEqualTo(19);
+        assertThat(code.codeLength(19)).isEqualTo(1);
+        assertRoundTrip(code, 20);
+
+        HuffmanCode limited = HuffmanCode.fromFrequencies(frequencies, 7);
+        long kraftSum = 0;
+        for(int codeLength : limited.codeLengths()) {
+            assertThat(codeLength).isLessThanOrEqualTo(7);
+            kraftSum += 1 << (7 - codeLength);
+        }
+        assertThat(kraftSum).isEqualTo(128L);
+        assertRoundTrip(limited, 20);
+
+        Random random = new Random(17);
+        frequencies = new long[300];
+        for(int i = 0; i < frequencies.length; i++) {
+            frequencies[i] = random.nextInt(1000) * (i % 3);
+        }
+        assertRoundTrip(HuffmanCode.fromFrequencies(frequencies, 12), 300);
+    }
+
+    @Test
+    public void test_decode_not_enough_bits() {
+        HuffmanCode code = HuffmanCode.fromFrequencies(new long[]{ 0, 5 });
+        assertThat(code.codeLength(1)).isEqualTo(1);
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ 1 });
+        for(int i = 0; i < 7; i++) {
+            assertThat(code.decode(buffer)).isEqualTo(1);
+        }
+        try {
+            code.decode(buffer);
+            fail("Invalid code must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+
+        code = HuffmanCode.fromCodeLengths(new int[]{ 3, 3, 3, 3, 3, 2, 4, 4 });
+        //1111 111
+        buffer = BitBuffer.allocate(7);
+        buffer.put(127, 7);
+        buffer.flip();
+        assertThat(code.decode(buffer)).isEqualTo(7);
+        try {
+            code.decode(buffer);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(3);
+    }
+
+    private static void assertRoundTrip(HuffmanCode code, int symbolCount) {
+        Random random = new Random(19);
+        int[] symbols = new int[1000];
+        for(int i = 0; i < symbols.length; i++) {
+            do {
+                symbols[i] = random.nextInt(symbolCount);
+            } while(code.codeLength(symbols[i]) == 0);
+        }
+        for(BitOrder bitOrder : BitOrder.values()) {
+            BitBuffer buffer = BitBuffer.allocateGrowable(8, false, bitOrder);
+            code.encode(buffer, symbols, 0, 500);
+            for(int i = 500; i < symbols.length; i++) {
+                code.encode(buffer, symbols[i]);
+            }
+            buffer.flip();
+            for(int i = 0; i < 500; i++) {
+                assertThat(code.decode(buffer)).isEqualTo(symbols[i]);
+            }
+            int[] decoded = new int[500];
+            code.decode(buffer, decoded, 0, 500);
+            for(int i = 0; i < 500; i++) {
+                assertThat(decoded[i]).isEqualTo(symbols[i + 500]);
+            }
+            assertThat(buffer.remainingBits()).isEqualTo(0);
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.InvalidMarkException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestLargeBitBuffer {
+
+    @Test
+    public void test_get_and_put_cross_chunks() {
+        //chunks of 8 bytes
+        LargeBitBuffer buffer = LargeBitBuffer.allocate(200, BitOrder.MSB_FIRST, false, 3);
+        buffer.position(60);
+        buffer.put(0x5555L, 16);
+        buffer.put((byte)-1, 124L, 8);
+        assertThat(buffer.position()).isEqualTo(76L);
+        assertThat(buffer.getLong(60L, 16)).isEqualTo(0x5555L);
+        assertThat(buffer.getInt(120L, 16)).isEqualTo(0x0ff0);
+        assertThat(buffer.getByte(128L, 4)).isEqualTo((byte)15);
+
+        buffer.position(0);
+        buffer.put(-1L, 64);
+        buffer.put(-1L, 3);
+        buffer.flip();
+        assertThat(buffer.remainingBits()).isEqualTo(67L);
+        assertThat(buffer.getSignedInt(3)).isEqualTo(-1);
+        assertThat(buffer.peekLong(64)).isEqualTo(-1L);
+        buffer.skipBits(62);
+        try {
+            buffer.getLong(3);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(buffer.getInt(2)).isEqualTo(3);
+
+        buffer = LargeBitBuffer.allocateDirect((1L << 31) + 64);
+        assertThat(buffer.remainingBits()).isEqualTo((1L << 31) + 64);
+        buffer.put(new byte[]{ -1, -1 }, (1L << 31) - 4, 16);
+        assertThat(buffer.getInt((1L << 31) - 5, 18)).isEqualTo(0x1fffe);
+        assertThat(buffer.getLong((1L << 31) + 12, 52)).isEqualTo(0L);
+    }
+
+    @Test
+    public void test_same_as_bit_buffer() {
+        Random random = new Random(23);
+        for(BitOrder bitOrder : BitOrder.values()) {
+            for(int chunkShift = 1; chunkShift <= 5; chunkShift++) {
+                LargeBitBuffer large =
+                        LargeBitBuffer.allocate(2000, bitOrder, chunkShift > 3, chunkShift);
+                BitBuffer buffer = BitBuffer.allocate(2000, bitOrder);
+                BitBuffer src = BitBuffer.allocate(2000, BitOrder.values()[random.nextInt(2)]);
+                byte[] srcBytes = new byte[250];
+                random.nextBytes(srcBytes);
+                src.put(srcBytes);
+                while(buffer.remainingBits() > 300) {
+                    int bitLength = random.nextInt(65);
+                    long data = random.nextLong();
+                    large.put(data, bitLength);
+                    buffer.put(data, bitLength);
+                    data >>= random.nextInt(64);
+                    large.putZigZag(data, 64);
+                    buffer.putZigZag(data, 64);
+                    large.putSigned(data, 64);
+                    buffer.putSigned(data, 64);
+                    byte[] bytes = new byte[random.nextInt(5)];
+                    random.nextBytes(bytes);
+                    bitLength = random.nextInt((bytes.length << 3) + 1);
+                    large.put(bytes, bitLength);
+                    buffer.put(bytes, bitLength);
+                    bitLength = random.nextInt((bytes.length << 3) + 1);
+                    large.putRightPart(bytes, bitLength);
+                    buffer.putRightPart(bytes, bitLength);
+                    bitLength = random.nextInt(150);
+                    int srcBitIndex = random.nextInt(2000 - bitLength);
+                    large.put(src, srcBitIndex, large.position(), bitLength);
+                    buffer.put(src, srcBitIndex, buffer.position(), bitLength);
+                }
+                assertThat(large.getUsedArray()).isEqualTo(buffer.getUsedArray());
+                assertThat(large.array()).isEqualTo(buffer.array());
+                large.flip();
+                buffer.flip();
+                assertThat(large.remainingBits()).isEqualTo(buffer.remainingBits());
+                assertThat(large.getBytes(0L, buffer.remainingBits()))
+                        .isEqualTo(buffer.getBytes(0, buffer.remainingBits()));
+                assertThat(large.cardinality(3, buffer.remainingBits() - 5))
+                        .isEqualTo(buffer.cardinality(3, buffer.remainingBits() - 5));
+                for(int i = 0; i < 50; i++) {
+                    int bitIndex = random.nextInt(buffer.remainingBits());
+                    assertThat(large.nextSetBit(bitIndex))
+                            .isEqualTo(buffer.nextSetBit(bitIndex));
+                    assertThat(large.nextClearBit(bitIndex))
+                            .isEqualTo(buffer.nextClearBit(bitIndex));
+                    assertThat(large.previousSetBit(bitIndex))
+                            .isEqualTo(buffer.previousSetBit(bitIndex));
+                }
+                while(buffer.remainingBits() > 100) {
+                    int bitLength = random.nextInt(65);
+                    assertThat(large.getLong(bitLength)).isEqualTo(buffer.getLong(bitLength));
+                    bitLength = random.nextInt(40);
+                    assertThat(large.getBytes(bitLength))
+                            .isEqualTo(buffer.getBytes(bitLength));
+                    bitLength = random.nextInt(65);
+                    assertThat(large.getZigZagLong(bitLength))
+                            .isEqualTo(buffer.getZigZagLong(bitLength));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_put_bit_buffer_and_mark() {
+        BitBuffer src = BitBuffer.wrapBytes(new byte[]{ (byte)0xf0, 0x0f });
+        LargeBitBuffer buffer = LargeBitBuffer.allocate(200, BitOrder.MSB_FIRST, false, 3);
+        buffer.position(60).mark();
+        src.skipBits(2);
+        buffer.put(src, 12);
+        assertThat(src.position()).isEqualTo(14);
+        assertThat(buffer.position()).isEqualTo(72L);
+        buffer.putSigned(-6, 5).putZigZag(-2, 2);
+        assertThat(buffer.reset().getInt(12)).isEqualTo(0xc03);
+        assertThat(buffer.getSignedInt(5)).isEqualTo(-6);
+        assertThat(buffer.getZigZagInt(2)).isEqualTo(-2);
+        try {
+            buffer.putSigned(16, 5);
+            fail("Out of range must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+        buffer.position(10);
+        try {
+            buffer.reset();
+            fail("Discarded mark must throw exception.");
+        } catch(InvalidMarkException e) {
+        }
+
+        //LSB_FIRST source is copied bit by bit in order
+        src = BitBuffer.wrapBytes(new byte[]{ 0x01 }, BitOrder.LSB_FIRST);
+        buffer.put(src, 0, 0L, 8);
+        assertThat(buffer.getInt(0L, 8)).isEqualTo(0x80);
+        buffer.position(200).flip().position(190);
+        assertThat(buffer.clear().remainingBits()).isEqualTo(200L);
+    }
+
+    @Test
+    public void test_wrap_chunks() {
+        ByteBuffer first = ByteBuffer.allocate(10);
+        first.position(2);
+        ByteBuffer second = ByteBuffer.allocateDirect(5);
+        LargeBitBuffer buffer = LargeBitBuffer.wrap(new ByteBuffer[]{ first, second },
+                BitOrder.LSB_FIRST);
+        assertThat(buffer.bitOrder()).isEqualTo(BitOrder.LSB_FIRST);
+        assertThat(buffer.remainingBits()).isEqualTo(104L);
+        buffer.position(60).put(0x1ffL, 9);
+        assertThat(first.get(9)).isEqualTo((byte)0xf0);
+        assertThat(second.get(0)).isEqualTo((byte)0x1f);
+        assertThat(first.order()).isEqualTo(ByteOrder.BIG_ENDIAN);
+        PrimitiveIterator.OfLong iterator = buffer.setBitIterator(0);
+        for(long i = 60; i < 69; i++) {
+            assertThat(iterator.nextLong()).isEqualTo(i);
+        }
+        assertThat(iterator.hasNext()).isFalse();
+        assertThat(LargeBitBuffer.wrap(ByteBuffer.allocate(3)).remainingBits()).isEqualTo(24L);
+        try {
+            LargeBitBuffer.wrap(new ByteBuffer[]{ ByteBuffer.allocate(6),
+                    ByteBuffer.allocate(6) });
+            fail("Chunk not in power of 2 must throw exception.");
+        } catch(IllegalArgumentException e) {
+        }
+    }
+
+}
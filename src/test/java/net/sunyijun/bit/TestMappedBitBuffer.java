@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.channels.FileChannel;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestMappedBitBuffer {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("bit_utils", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void test_get_from_mapped_file() throws IOException {
+        //11010010  00110010  01001000
+        writeFile(new byte[]{ (byte)210, 50, 72 });
+        MappedBitBuffer buffer = MappedBitBuffer.map(file);
+        assertThat(buffer.remainingBits()).isEqualTo(24L);
+        assertThat(buffer.getByte(2)).isEqualTo((byte)3);
+        assertThat(buffer.getInt(8)).isEqualTo(72);//01001000
+        assertThat(buffer.getBytes(10)).isEqualTo(new byte[]{ 3, 36 });//11 00100100
+        assertThat(buffer.remainingBits()).isEqualTo(4L);
+        assertThat(buffer.getByte(7L, 8)).isEqualTo((byte)25);//00011001
+        try {
+            buffer.getByte(5);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_get_and_put_cross_regions() throws IOException {
+        byte[] data = new byte[21];
+        for(int i = 0; i < data.length; i++) {
+            data[i] = (byte)(i + 1);
+        }
+        writeFile(data);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        MappedBitBuffer buffer;
+        try {
+            // 8 bytes every region
+            buffer = MappedBitBuffer.map(randomAccessFile.getChannel(),
+                    FileChannel.MapMode.READ_WRITE, 0, data.length, 3);
+        } finally {
+            randomAccessFile.close();
+        }
+        assertThat(buffer.getLong(4L, 64)).isEqualTo(0x1020304050607080L);
+        assertThat(buffer.getLong(60L, 64)).isEqualTo(0x8090a0b0c0d0e0f1L);
+        assertThat(buffer.getInt(124L, 12)).isEqualTo(0x011);
+        assertThat(buffer.getLong(104L, 64)).isEqualTo(0x0e0f101112131415L);
+
+        buffer.getByte(3);
+        buffer.put(0x123456789abcdef0L, 64);
+        buffer.put((short)0x7ff, 11);
+        assertThat(buffer.remainingBits()).isEqualTo(90L);
+        buffer.put((byte)0, 120L, 8);
+        buffer.force();
+
+        buffer = MappedBitBuffer.map(file);
+        assertThat(buffer.getByte(3)).isEqualTo((byte)0);
+        assertThat(buffer.getLong(64)).isEqualTo(0x123456789abcdef0L);
+        assertThat(buffer.getInt(11)).isEqualTo(0x7ff);
+        assertThat(buffer.getLong(120L, 16)).isEqualTo(0x0011L);
+    }
+
+    @Test
+    public void test_put_into_created_file() throws IOException {
+        MappedBitBuffer buffer = MappedBitBuffer.create(file, 20);
+        assertThat(file.length()).isEqualTo(3L);
+        assertThat(buffer.remainingBits()).isEqualTo(20L);
+        buffer.put((byte)13, 4);//1101
+        buffer.put(0xe99c, 16);//11101001 10011100
+        assertThat(buffer.remainingBits()).isEqualTo(0L);
+        try {
+            buffer.put((byte)1, 1);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        buffer.flip();
+        assertThat(buffer.remainingBits()).isEqualTo(20L);
+        assertThat(buffer.getByte()).isEqualTo((byte)222);//11011110
+        buffer.force();
+
+        buffer = MappedBitBuffer.map(file);
+        assertThat(buffer.getBytes(24)).isEqualTo(new byte[]{ (byte)222, (byte)153, (byte)192 });
+    }
+
+    private void writeFile(byte[] data) throws IOException {
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(data);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestPackedIntArray {
+
+    @Test
+    public void test_encode_and_decode_ints_every_width() {
+        Random random = new Random(3);
+        int[] values = new int[70];
+        int[] decoded = new int[72];
+        for(BitOrder bitOrder : BitOrder.values()) {
+            for(int bitWidth = 1; bitWidth <= 32; bitWidth++) {
+                for(int i = 0; i < values.length; i++) {
+                    values[i] = (int)(random.nextLong() >>> (64 - bitWidth));
+                }
+                BitBuffer buffer = BitBuffer.allocate(3 + values.length * bitWidth, bitOrder);
+                buffer.put((byte)5, 3);
+                PackedIntArray.encode(values, 0, values.length, bitWidth, buffer);
+                assertThat(buffer.remainingBits()).isEqualTo(0);
+                buffer.flip();
+                assertThat(buffer.getByte(3)).isEqualTo((byte)5);
+                for(int value : values) {
+                    assertThat(buffer.getInt(bitWidth)).isEqualTo(value);
+                }
+                buffer.position(3);
+                PackedIntArray.decode(buffer, bitWidth, decoded, 2, values.length);
+                assertThat(buffer.remainingBits()).isEqualTo(0);
+                for(int i = 0; i < values.length; i++) {
+                    assertThat(decoded[i + 2]).isEqualTo(values[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_encode_and_decode_longs_every_width() {
+        Random random = new Random(5);
+        long[] values = new long[21];
+        long[] decoded = new long[21];
+        for(int bitWidth = 1; bitWidth <= 64; bitWidth++) {
+            for(int i = 0; i < values.length; i++) {
+                values[i] = random.nextLong() >>> (64 - bitWidth);
+            }
+            BitBuffer buffer = BitBuffer.allocateGrowable(1);
+            buffer.put(1, 1);
+            PackedIntArray.encode(values, 0, values.length, bitWidth, buffer);
+            buffer.flip();
+            assertThat(buffer.remainingBits()).isEqualTo(1 + values.length * bitWidth);
+            buffer.getByte(1);
+            PackedIntArray.decode(buffer, bitWidth, decoded, 0, values.length);
+            assertThat(decoded).isEqualTo(values);
+        }
+    }
+
+    @Test
+    public void test_encode_truncate_values() {
+        BitBuffer buffer = BitBuffer.allocate(9);
+        //001 110 011
+        PackedIntArray.encode(new int[]{ 9, -2, 3 }, 0, 3, 3, buffer);
+        buffer.flip();
+        assertThat(buffer.getInt(9)).isEqualTo(115);
+        try {
+            PackedIntArray.encode(new int[]{ 1 }, 0, 1, 3, buffer);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_random_access() {
+        PackedIntArray array = PackedIntArray.allocate(100, 7);
+        for(int i = 0; i < 100; i++) {
+            array.set(i, i + 28);
+        }
+        array.set(50, 0x1ff);
+        assertThat(array.get(50)).isEqualTo(0x7fL);
+        assertThat(array.get(49)).isEqualTo(77L);
+        assertThat(array.get(51)).isEqualTo(79L);
+        long[] values = new long[3];
+        array.get(98, values, 1, 2);
+        assertThat(values).isEqualTo(new long[]{ 0, 126, 127 });
+        array.set(0, new long[]{ 1, 2, 3 }, 0, 3);
+        assertThat(array.get(2)).isEqualTo(3L);
+        assertThat(array.get(3)).isEqualTo(31L);
+        try {
+            array.get(100);
+            fail("Out of bounds must throw exception.");
+        } catch(IndexOutOfBoundsException e) {
+        }
+
+        //11010010 00110010 01001000
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ (byte)210, 50, 72 });
+        array = PackedIntArray.wrap(buffer, 2, 2, 10);
+        assertThat(array.get(0)).isEqualTo(291L);//0100100011
+        assertThat(array.get(1)).isEqualTo(146L);//0010010010
+        try {
+            PackedIntArray.wrap(buffer, 2, 3, 10);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+    }
+
+    @Test
+    public void test_encode_and_decode_lsb_first() {
+        BitBuffer buffer = BitBuffer.allocate(9, BitOrder.LSB_FIRST);
+        PackedIntArray.encode(new int[]{ 1, 6, 3 }, 0, 3, 3, buffer);
+        //11110001 0, bits from right of byte
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ (byte)241, 0 });
+
+        Random random = new Random(7);
+        long[] values = new long[40];
+        long[] decoded = new long[40];
+        for(int bitWidth = 1; bitWidth <= 64; bitWidth++) {
+            for(int i = 0; i < values.length; i++) {
+                values[i] = random.nextLong() >>> (64 - bitWidth);
+            }
+            buffer = BitBuffer.allocate(5 + values.length * bitWidth, BitOrder.LSB_FIRST);
+            buffer.put(0, 5);
+            PackedIntArray.encode(values, 0, values.length, bitWidth, buffer);
+            buffer.flip();
+            buffer.getByte(5);
+            for(long value : values) {
+                assertThat(buffer.getLong(bitWidth)).isEqualTo(value);
+            }
+            buffer.flip();
+            buffer.getByte(5);
+            PackedIntArray.decode(buffer, bitWidth, decoded, 0, values.length);
+            assertThat(decoded).isEqualTo(values);
+        }
+    }
+
+}
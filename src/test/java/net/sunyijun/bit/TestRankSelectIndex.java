@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestRankSelectIndex {
+
+    @Test
+    public void test_rank_and_select() {
+        //10010101 01110001
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ (byte)149, 113 });
+        RankSelectIndex index = RankSelectIndex.build(buffer);
+        assertThat(index.bitLength()).isEqualTo(16);
+        assertThat(index.cardinality()).isEqualTo(8);
+        assertThat(index.rank1(0)).isEqualTo(0);
+        assertThat(index.rank1(4)).isEqualTo(2);
+        assertThat(index.rank1(16)).isEqualTo(8);
+        assertThat(index.rank0(9)).isEqualTo(5);
+        assertThat(index.select1(0)).isEqualTo(0);
+        assertThat(index.select1(3)).isEqualTo(7);
+        assertThat(index.select1(7)).isEqualTo(15);
+        assertThat(index.select0(0)).isEqualTo(1);
+        assertThat(index.select0(7)).isEqualTo(14);
+        try {
+            index.select1(8);
+            fail("Out of bounds must throw exception.");
+        } catch(IndexOutOfBoundsException e) {
+        }
+        try {
+            index.rank1(17);
+            fail("Out of bounds must throw exception.");
+        } catch(IndexOutOfBoundsException e) {
+        }
+
+        buffer.getByte(3);
+        index = RankSelectIndex.build(buffer);//10101 01110001
+        assertThat(index.bitLength()).isEqualTo(13);
+        assertThat(index.select1(2)).isEqualTo(4);
+        assertThat(buffer.position()).isEqualTo(3);
+    }
+
+    @Test
+    public void test_select_in_word() {
+        Random random = new Random(29);
+        for(int n = 0; n < 1000; n++) {
+            long word = random.nextLong() & random.nextLong();
+            int rank = 0;
+            for(int i = 0; i < 64; i++) {
+                if((word & (1L << i)) != 0) {
+                    assertThat(RankSelectIndex.selectInWord(word, rank++)).isEqualTo(i);
+                }
+            }
+        }
+        assertThat(RankSelectIndex.selectInWord(-1L, 63)).isEqualTo(63);
+    }
+
+    @Test
+    public void test_same_as_scan_in_both_orders() {
+        Random random = new Random(31);
+        int[] bitLengths = { 1, 64, 511, 512, 513, 20000, 70001 };
+        for(BitOrder bitOrder : BitOrder.values()) {
+            for(int bitLength : bitLengths) {
+                for(int density = 0; density <= 4; density++) {
+                    BitBuffer buffer = BitBuffer.allocate(bitLength + 5, bitOrder);
+                    boolean[] expected = new boolean[bitLength];
+                    buffer.put(31, 5);
+                    for(int i = 0; i < bitLength; i++) {
+                        expected[i] = random.nextInt(4) < density;
+                        buffer.put(expected[i] ? 1 : 0, 1);
+                    }
+                    buffer.flip();
+                    buffer.getByte(5);
+                    assertIndex(RankSelectIndex.build(buffer), expected);
+                }
+            }
+        }
+    }
+
+    private static void assertIndex(RankSelectIndex index, boolean[] expected) {
+        int ones = 0;
+        int zeros = 0;
+        for(int i = 0; i < expected.length; i++) {
+            assertThat(index.rank1(i)).isEqualTo(ones);
+            assertThat(index.rank0(i)).isEqualTo(zeros);
+            if(expected[i]) {
+                assertThat(index.select1(ones++)).isEqualTo(i);
+            } else {
+                assertThat(index.select0(zeros++)).isEqualTo(i);
+            }
+        }
+        assertThat(index.rank1(expected.length)).isEqualTo(ones);
+        assertThat(index.cardinality()).isEqualTo(ones);
+    }
+
+}
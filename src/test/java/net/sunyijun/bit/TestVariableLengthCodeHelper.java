@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 SunYiJun
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package net.sunyijun.bit;
+
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+
+/**
+ * @author SunYiJun
+ */
+public class TestVariableLengthCodeHelper {
+
+    private static final long[] VALUES = { 1, 2, 3, 6, 7, 8, 100, 1000, 65535, 1L << 31,
+            (1L << 40) + 5, Long.MAX_VALUE, -1L, Long.MIN_VALUE };
+
+    @Test
+    public void test_elias_gamma() {
+        BitBuffer buffer = BitBuffer.allocate(16);
+        VariableLengthCodeHelper.putEliasGamma(buffer, 6);
+        VariableLengthCodeHelper.putEliasGamma(buffer, 1);
+        buffer.flip();
+        assertThat(buffer.getInt(6)).isEqualTo(13);//00110 1
+
+        buffer = BitBuffer.allocateGrowable(8);
+        for(long value : VALUES) {
+            VariableLengthCodeHelper.putEliasGamma(buffer, value);
+        }
+        buffer.flip();
+        for(long value : VALUES) {
+            assertThat(VariableLengthCodeHelper.getEliasGamma(buffer)).isEqualTo(value);
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(0);
+    }
+
+    @Test
+    public void test_elias_delta() {
+        BitBuffer buffer = BitBuffer.allocate(16);
+        VariableLengthCodeHelper.putEliasDelta(buffer, 10);
+        buffer.flip();
+        assertThat(buffer.getInt(8)).isEqualTo(0x22);//00100 010
+
+        buffer = BitBuffer.allocateGrowable(8);
+        for(long value : VALUES) {
+            VariableLengthCodeHelper.putEliasDelta(buffer, value);
+        }
+        buffer.flip();
+        for(long value : VALUES) {
+            assertThat(VariableLengthCodeHelper.getEliasDelta(buffer)).isEqualTo(value);
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(0);
+    }
+
+    @Test
+    public void test_golomb_rice() {
+        BitBuffer buffer = BitBuffer.allocate(16);
+        VariableLengthCodeHelper.putGolombRice(buffer, 6, 1);
+        buffer.flip();
+        assertThat(buffer.getInt(5)).isEqualTo(2);//0001 0
+
+        buffer = BitBuffer.allocateGrowable(8);
+        for(int k = 0; k < 64; k += 7) {
+            for(long value : new long[]{ 0, 1, 5, 130, 1000, ~(-1L << k) }) {
+                VariableLengthCodeHelper.putGolombRice(buffer, value, k);
+            }
+        }
+        buffer.flip();
+        for(int k = 0; k < 64; k += 7) {
+            for(long value : new long[]{ 0, 1, 5, 130, 1000, ~(-1L << k) }) {
+                assertThat(VariableLengthCodeHelper.getGolombRice(buffer, k)).isEqualTo(value);
+            }
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(0);
+    }
+
+    @Test
+    public void test_exp_golomb() {
+        BitBuffer buffer = BitBuffer.allocate(16);
+        VariableLengthCodeHelper.putSignedExpGolomb(buffer, 0);
+        VariableLengthCodeHelper.putSignedExpGolomb(buffer, 1);
+        VariableLengthCodeHelper.putSignedExpGolomb(buffer, -1);
+        VariableLengthCodeHelper.putSignedExpGolomb(buffer, 2);
+        buffer.flip();
+        //1 010 011 00100
+        assertThat(buffer.getInt(12)).isEqualTo(0xa64);
+
+        long[] values = { 0, 1, 2, 3, 4, 100, 1L << 40, Long.MAX_VALUE - 1 };
+        buffer = BitBuffer.allocateGrowable(8);
+        for(long value : values) {
+            VariableLengthCodeHelper.putExpGolomb(buffer, value);
+            VariableLengthCodeHelper.putSignedExpGolomb(buffer, value);
+            VariableLengthCodeHelper.putSignedExpGolomb(buffer, -value);
+        }
+        buffer.flip();
+        for(long value : values) {
+            assertThat(VariableLengthCodeHelper.getExpGolomb(buffer)).isEqualTo(value);
+            assertThat(VariableLengthCodeHelper.getSignedExpGolomb(buffer)).isEqualTo(value);
+            assertThat(VariableLengthCodeHelper.getSignedExpGolomb(buffer)).isEqualTo(-value);
+        }
+    }
+
+    @Test
+    public void test_not_whole_code_not_change_position() {
+        //0000 00000000 01 00
+        BitBuffer buffer = BitBuffer.wrapBytes(new byte[]{ 0, 4 });
+        buffer.getByte(4);
+        try {
+            VariableLengthCodeHelper.getEliasGamma(buffer);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(12);
+
+        buffer = BitBuffer.wrapBytes(new byte[]{ 0, 0 });
+        try {
+            VariableLengthCodeHelper.getGolombRice(buffer, 2);
+            fail("Out of bounds must throw exception.");
+        } catch(BufferOverflowException e) {
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(16);
+    }
+
+    @Test
+    public void test_codes_lsb_first() {
+        BitBuffer buffer = BitBuffer.allocate(8, BitOrder.LSB_FIRST);
+        VariableLengthCodeHelper.putEliasGamma(buffer, 6);
+        //00 1 then 10 from right bit, byte is "xxx10100"
+        assertThat(buffer.getUsedArray()).isEqualTo(new byte[]{ 20 });
+
+        Random random = new Random(13);
+        buffer = BitBuffer.allocateGrowable(8, false, BitOrder.LSB_FIRST);
+        long[] values = new long[300];
+        for(int i = 0; i < values.length; i++) {
+            values[i] = (random.nextLong() >>> (i % 64)) | 1;
+            VariableLengthCodeHelper.putEliasGamma(buffer, values[i]);
+            VariableLengthCodeHelper.putEliasDelta(buffer, values[i]);
+            int k = Math.max(0, 60 - i % 64);
+            VariableLengthCodeHelper.putGolombRice(buffer, values[i], k);
+            VariableLengthCodeHelper.putSignedExpGolomb(buffer, -(values[i] >>> 1));
+        }
+        buffer.flip();
+        for(int i = 0; i < values.length; i++) {
+            assertThat(VariableLengthCodeHelper.getEliasGamma(buffer)).isEqualTo(values[i]);
+            assertThat(VariableLengthCodeHelper.getEliasDelta(buffer)).isEqualTo(values[i]);
+            int k = Math.max(0, 60 - i % 64);
+            assertThat(VariableLengthCodeHelper.getGolombRice(buffer, k)).isEqualTo(values[i]);
+            assertThat(VariableLengthCodeHelper.getSignedExpGolomb(buffer))
+                    .isEqualTo(-(values[i] >>> 1));
+        }
+        assertThat(buffer.remainingBits()).isEqualTo(0);
+    }
+
+}